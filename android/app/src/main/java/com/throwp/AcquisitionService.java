@@ -0,0 +1,138 @@
+package com.throwp;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.IBinder;
+import android.os.PowerManager;
+import android.util.Log;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 擷取用的前景服務
+// TGDevice 與 GATT 連線由 NeuroSkyModule / ESP32Module 的擷取執行緒持有。這個服務讓行程在切換畫面、
+// 螢幕關閉或 App 進入背景時維持前景優先權並保持 CPU 運作，連線與擷取執行緒不會中斷。
+// 頭戴裝置連上時 NeuroSkyModule 會自動開啟擷取 session（EegSessionStore），持有服務期間
+// 樣本都留在原生端；Evaluate 離開畫面時移除事件訂閱，回到畫面後由此補讀期間的樣本。
+// 各模組連上設備時以 acquire 登記；手動斷線、放棄重試或最後一個連線中斷時 release，
+// 全部釋放後服務自動停止
+public class AcquisitionService extends Service {
+    private static final String TAG = "AcquisitionService";
+    private static final String CHANNEL_ID = "acquisition";
+    private static final int NOTIFICATION_ID = 1001;
+    // 單次量測不會超過這個時間，避免異常情況下永久持有 wake lock
+    private static final long WAKE_LOCK_TIMEOUT_MS = 4 * 60 * 60 * 1000L;
+
+    // 目前持有服務的模組
+    private static final Set<String> holders = ConcurrentHashMap.newKeySet();
+    private static volatile AcquisitionService running;
+
+    private PowerManager.WakeLock wakeLock;
+
+    // 登記擷取來源；第一個來源登記時啟動前景服務
+    public static void acquire(Context context, String owner) {
+        boolean first;
+        synchronized (holders) {
+            first = holders.isEmpty();
+            if (!holders.add(owner)) {
+                return;
+            }
+        }
+        Log.i(TAG, "擷取來源登記: " + owner);
+        Context appContext = context.getApplicationContext();
+        if (first) {
+            appContext.startForegroundService(new Intent(appContext, AcquisitionService.class));
+        } else {
+            AcquisitionService service = running;
+            if (service != null) {
+                service.updateNotification();
+            }
+        }
+    }
+
+    // 釋放擷取來源；沒有任何來源時停止服務
+    public static void release(Context context, String owner) {
+        boolean last;
+        synchronized (holders) {
+            if (!holders.remove(owner)) {
+                return;
+            }
+            last = holders.isEmpty();
+        }
+        Log.i(TAG, "擷取來源釋放: " + owner);
+        Context appContext = context.getApplicationContext();
+        if (last) {
+            appContext.stopService(new Intent(appContext, AcquisitionService.class));
+        } else {
+            AcquisitionService service = running;
+            if (service != null) {
+                service.updateNotification();
+            }
+        }
+    }
+
+    public static boolean isRunning() {
+        return running != null;
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "資料擷取", NotificationManager.IMPORTANCE_LOW);
+        manager.createNotificationChannel(channel);
+        startForeground(NOTIFICATION_ID, buildNotification(), ServiceInfo.FOREGROUND_SERVICE_TYPE_CONNECTED_DEVICE);
+
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "throwp:acquisition");
+        wakeLock.setReferenceCounted(false);
+        wakeLock.acquire(WAKE_LOCK_TIMEOUT_MS);
+        running = this;
+        Log.i(TAG, "前景擷取服務已啟動");
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // 所有來源都已在啟動前釋放時直接停止
+        if (holders.isEmpty()) {
+            stopSelf();
+        }
+        // 連線由模組持有，行程被回收後重新建立服務也沒有連線可維持
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        running = null;
+        if (wakeLock != null && wakeLock.isHeld()) {
+            wakeLock.release();
+        }
+        stopForeground(STOP_FOREGROUND_REMOVE);
+        Log.i(TAG, "前景擷取服務已停止");
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private void updateNotification() {
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        manager.notify(NOTIFICATION_ID, buildNotification());
+    }
+
+    private Notification buildNotification() {
+        return new Notification.Builder(this, CHANNEL_ID)
+                .setSmallIcon(getApplicationInfo().icon)
+                .setContentTitle("資料擷取中")
+                .setContentText("連線中的設備: " + String.join("、", holders))
+                .setOngoing(true)
+                .build();
+    }
+}
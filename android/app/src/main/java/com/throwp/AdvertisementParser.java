@@ -0,0 +1,98 @@
+package com.throwp;
+
+// 不配置記憶體的 BLE 廣播資料（AD structure）解析器
+// 直接在 ScanRecord.getBytes() 的原始陣列上比對，不建立 byte[]、String 或 ParcelUuid
+public final class AdvertisementParser {
+    public static final int TYPE_UUID16_INCOMPLETE = 0x02;
+    public static final int TYPE_UUID16_COMPLETE = 0x03;
+    public static final int TYPE_UUID128_INCOMPLETE = 0x06;
+    public static final int TYPE_UUID128_COMPLETE = 0x07;
+    public static final int TYPE_NAME_SHORT = 0x08;
+    public static final int TYPE_NAME_COMPLETE = 0x09;
+
+    // Bluetooth Base UUID 0000xxxx-0000-1000-8000-00805F9B34FB，依廣播中的小端序排列，
+    // 第 12、13 位元組為 16 位元短 UUID
+    private static final byte[] BASE_UUID_LE = {
+        (byte) 0xFB, (byte) 0x34, (byte) 0x9B, (byte) 0x5F, (byte) 0x80, (byte) 0x00, (byte) 0x00, (byte) 0x80,
+        (byte) 0x00, (byte) 0x10, (byte) 0x00, (byte) 0x00, 0, 0, (byte) 0x00, (byte) 0x00
+    };
+
+    private AdvertisementParser() {
+    }
+
+    // 廣播中是否宣告了指定的 16 位元服務 UUID（含以 128 位元形式宣告的 Base UUID）
+    public static boolean hasServiceUuid16(byte[] raw, int uuid16) {
+        if (raw == null) {
+            return false;
+        }
+        int offset = 0;
+        while (offset < raw.length) {
+            int length = raw[offset] & 0xFF;
+            if (length == 0 || offset + length + 1 > raw.length) {
+                break;
+            }
+            int type = raw[offset + 1] & 0xFF;
+            int dataStart = offset + 2;
+            int dataEnd = offset + 1 + length;
+            if (type == TYPE_UUID16_INCOMPLETE || type == TYPE_UUID16_COMPLETE) {
+                for (int p = dataStart; p + 1 < dataEnd; p += 2) {
+                    int value = (raw[p] & 0xFF) | ((raw[p + 1] & 0xFF) << 8);
+                    if (value == uuid16) {
+                        return true;
+                    }
+                }
+            } else if (type == TYPE_UUID128_INCOMPLETE || type == TYPE_UUID128_COMPLETE) {
+                for (int p = dataStart; p + 15 < dataEnd; p += 16) {
+                    if (isBaseUuid128(raw, p, uuid16)) {
+                        return true;
+                    }
+                }
+            }
+            offset += length + 1;
+        }
+        return false;
+    }
+
+    // 廣播中的裝置名稱（完整或縮短）是否等於 name；name 需為 ASCII/UTF-8 位元組
+    public static boolean hasLocalName(byte[] raw, byte[] name) {
+        if (raw == null || name == null) {
+            return false;
+        }
+        int offset = 0;
+        while (offset < raw.length) {
+            int length = raw[offset] & 0xFF;
+            if (length == 0 || offset + length + 1 > raw.length) {
+                break;
+            }
+            int type = raw[offset + 1] & 0xFF;
+            if ((type == TYPE_NAME_COMPLETE || type == TYPE_NAME_SHORT) && length - 1 == name.length) {
+                int dataStart = offset + 2;
+                boolean equal = true;
+                for (int k = 0; k < name.length; k++) {
+                    if (raw[dataStart + k] != name[k]) {
+                        equal = false;
+                        break;
+                    }
+                }
+                if (equal) {
+                    return true;
+                }
+            }
+            offset += length + 1;
+        }
+        return false;
+    }
+
+    private static boolean isBaseUuid128(byte[] raw, int p, int uuid16) {
+        for (int k = 0; k < 16; k++) {
+            if (k == 12 || k == 13) {
+                continue;
+            }
+            if (raw[p + k] != BASE_UUID_LE[k]) {
+                return false;
+            }
+        }
+        int value = (raw[p + 12] & 0xFF) | ((raw[p + 13] & 0xFF) << 8);
+        return value == uuid16;
+    }
+}
@@ -0,0 +1,75 @@
+package com.throwp;
+
+// 固定容量的事件環形佇列
+// 佇列已滿時丟棄最舊的事件並計數；不依賴 Android / React Native，可在 JVM 上測試
+public class BoundedEventQueue<T> {
+    public interface Sink<T> {
+        void accept(String eventName, T payload, long receivedNanos);
+    }
+
+    private final String[] names;
+    private final Object[] payloads;
+    // 每個事件在藍牙回調收到的時間（elapsedRealtimeNanos）
+    private final long[] receivedAt;
+    private int head = 0;
+    private int size = 0;
+    private long droppedCount = 0;
+
+    public BoundedEventQueue(int capacity) {
+        int actual = Math.max(1, capacity);
+        names = new String[actual];
+        payloads = new Object[actual];
+        receivedAt = new long[actual];
+    }
+
+    public int capacity() {
+        return names.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public void resetDroppedCount() {
+        droppedCount = 0;
+    }
+
+    // 加入一個事件；佇列已滿時先丟棄最舊的一筆，回傳是否有丟棄
+    public boolean offer(String eventName, T payload, long receivedNanos) {
+        boolean dropped = false;
+        if (size == names.length) {
+            removeHead();
+            droppedCount++;
+            dropped = true;
+        }
+        int tail = (head + size) % names.length;
+        names[tail] = eventName;
+        payloads[tail] = payload;
+        receivedAt[tail] = receivedNanos;
+        size++;
+        return dropped;
+    }
+
+    // 依加入順序取出最多 maxCount 筆，回傳取出的筆數
+    @SuppressWarnings("unchecked")
+    public int drain(int maxCount, Sink<T> sink) {
+        int count = 0;
+        while (size > 0 && count < maxCount) {
+            sink.accept(names[head], (T) payloads[head], receivedAt[head]);
+            removeHead();
+            count++;
+        }
+        return count;
+    }
+
+    private void removeHead() {
+        names[head] = null;
+        payloads[head] = null;
+        head = (head + 1) % names.length;
+        size--;
+    }
+}
@@ -0,0 +1,210 @@
+package com.throwp;
+
+import java.util.Random;
+
+// 頭戴裝置的連線狀態機
+// 以單一狀態取代分散的旗標：同一時間只允許一次連線嘗試，重複的斷線 / 找不到設備
+// 事件不會重複排程重試。斷線後第一次重試很快，之後以指數退避加上隨機抖動，
+// 並統計重新連線所需時間與嘗試次數。每次嘗試都有期限，逾時由呼叫端以 onAttemptFailed 回報
+public class ConnectionStateMachine {
+    public enum State {
+        IDLE,        // 未連線，也沒有排程中的重試
+        CONNECTING,  // 連線嘗試進行中
+        CONNECTED,
+        BACKOFF      // 等待下一次重試
+    }
+
+    public static final int MAX_ATTEMPTS = 10;
+    public static final long FIRST_RETRY_DELAY_MS = 500;
+    public static final long BASE_RETRY_DELAY_MS = 2000;
+    public static final long MAX_RETRY_DELAY_MS = 30000;
+    // 單次連線嘗試的期限，超過仍未連上視為失敗
+    public static final long ATTEMPT_TIMEOUT_MS = 15000;
+    private static final double JITTER = 0.2;
+
+    private final Random random = new Random();
+    private State state = State.IDLE;
+    private int failedInRow = 0;
+    private long attemptStartedAt = -1;   // 本輪第一次嘗試的時間
+    private long outageStartedAt = -1;    // 連線中斷的時間
+    private long attemptDeadline = -1;    // 進行中嘗試的期限
+
+    private long totalAttempts = 0;
+    private long failedAttempts = 0;
+    private long givenUp = 0;
+    private long timedOut = 0;
+    private long connects = 0;
+    private long reconnects = 0;
+    private long lastConnectMs = -1;
+    private long lastReconnectMs = -1;
+    private long maxReconnectMs = -1;
+    private int lastReconnectAttempts = 0;
+    private final LatencyHistogram reconnectHistogram = new LatencyHistogram();
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // 開始一次連線嘗試；已在連線中或已連線時回傳 false，避免重建進行中的連線。
+    // replaceStale 為 true（使用者手動連線）時，已超過期限的嘗試視為失敗並由新的嘗試取代
+    public synchronized boolean beginAttempt(long now, boolean replaceStale) {
+        if (state == State.CONNECTED) {
+            return false;
+        }
+        if (state == State.CONNECTING) {
+            if (!replaceStale || !isAttemptExpired(now)) {
+                return false;
+            }
+            failedAttempts++;
+            timedOut++;
+        }
+        if (attemptStartedAt < 0) {
+            attemptStartedAt = now;
+        }
+        state = State.CONNECTING;
+        attemptDeadline = now + ATTEMPT_TIMEOUT_MS;
+        totalAttempts++;
+        return true;
+    }
+
+    public synchronized boolean isAttemptExpired(long now) {
+        return state == State.CONNECTING && now >= attemptDeadline;
+    }
+
+    // 嘗試逾時：與 onAttemptFailed 相同回傳下一次重試的延遲；嘗試已結束或尚未到期時回傳 -1
+    public synchronized long onAttemptTimeout(long now) {
+        if (!isAttemptExpired(now)) {
+            return -1;
+        }
+        timedOut++;
+        return onAttemptFailed(now);
+    }
+
+    public synchronized void onConnected(long now) {
+        if (state == State.CONNECTED) {
+            return;
+        }
+        connects++;
+        if (attemptStartedAt >= 0) {
+            lastConnectMs = now - attemptStartedAt;
+        }
+        if (outageStartedAt >= 0) {
+            long reconnectMs = now - outageStartedAt;
+            reconnects++;
+            lastReconnectMs = reconnectMs;
+            maxReconnectMs = Math.max(maxReconnectMs, reconnectMs);
+            lastReconnectAttempts = failedInRow + 1;
+            reconnectHistogram.recordNanos(reconnectMs * 1_000_000L);
+        }
+        state = State.CONNECTED;
+        attemptDeadline = -1;
+        failedInRow = 0;
+        attemptStartedAt = -1;
+        outageStartedAt = -1;
+    }
+
+    // 已連線的裝置斷線：回傳第一次重試的延遲；不需要重試時回傳 -1
+    public synchronized long onConnectionLost(long now) {
+        if (state == State.CONNECTING) {
+            return onAttemptFailed(now);
+        }
+        if (state != State.CONNECTED) {
+            return -1;
+        }
+        outageStartedAt = now;
+        attemptStartedAt = now;
+        failedInRow = 0;
+        state = State.BACKOFF;
+        return jitter(FIRST_RETRY_DELAY_MS);
+    }
+
+    // 連線嘗試失敗：回傳下一次重試的延遲；重複事件或已達上限時回傳 -1
+    public synchronized long onAttemptFailed(long now) {
+        if (state != State.CONNECTING) {
+            return -1;
+        }
+        failedAttempts++;
+        failedInRow++;
+        attemptDeadline = -1;
+        if (failedInRow >= MAX_ATTEMPTS) {
+            givenUp++;
+            reset();
+            return -1;
+        }
+        state = State.BACKOFF;
+        if (failedInRow == 1 && outageStartedAt < 0) {
+            // 首次連線失敗也快速重試一次
+            return jitter(FIRST_RETRY_DELAY_MS);
+        }
+        // 第一次快速重試之後才從 BASE_RETRY_DELAY_MS 開始加倍
+        int exponent = failedInRow - (outageStartedAt < 0 ? 2 : 1);
+        long delay = BASE_RETRY_DELAY_MS << Math.min(exponent, 16);
+        return Math.min(jitter(delay), MAX_RETRY_DELAY_MS);
+    }
+
+    // 手動斷線或無法重試（權限、藍牙關閉）時取消
+    public synchronized void cancel() {
+        reset();
+    }
+
+    public synchronized int getFailedInRow() {
+        return failedInRow;
+    }
+
+    public synchronized long getTotalAttempts() {
+        return totalAttempts;
+    }
+
+    public synchronized long getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public synchronized long getGivenUp() {
+        return givenUp;
+    }
+
+    public synchronized long getTimedOut() {
+        return timedOut;
+    }
+
+    public synchronized long getConnects() {
+        return connects;
+    }
+
+    public synchronized long getReconnects() {
+        return reconnects;
+    }
+
+    public synchronized long getLastConnectMs() {
+        return lastConnectMs;
+    }
+
+    public synchronized long getLastReconnectMs() {
+        return lastReconnectMs;
+    }
+
+    public synchronized long getMaxReconnectMs() {
+        return maxReconnectMs;
+    }
+
+    public synchronized int getLastReconnectAttempts() {
+        return lastReconnectAttempts;
+    }
+
+    public synchronized long getReconnectPercentileMs(double percentile) {
+        return reconnectHistogram.getPercentileMicros(percentile) / 1000;
+    }
+
+    private void reset() {
+        state = State.IDLE;
+        failedInRow = 0;
+        attemptStartedAt = -1;
+        outageStartedAt = -1;
+        attemptDeadline = -1;
+    }
+
+    private long jitter(long delay) {
+        double factor = 1 - JITTER + random.nextDouble() * 2 * JITTER;
+        return Math.round(delay * factor);
+    }
+}
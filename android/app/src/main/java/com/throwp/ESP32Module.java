@@ -10,6 +10,7 @@ import android.bluetooth.BluetoothGattDescriptor;
 import android.bluetooth.BluetoothGattService;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothProfile;
+import android.bluetooth.BluetoothStatusCodes;
 import android.bluetooth.le.BluetoothLeScanner;
 import android.bluetooth.le.ScanCallback;
 import android.bluetooth.le.ScanFilter;
@@ -17,28 +18,43 @@ import android.bluetooth.le.ScanRecord;
 import android.bluetooth.le.ScanResult;
 import android.bluetooth.le.ScanSettings;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Handler;
-import android.os.Looper;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
 import android.os.ParcelUuid;
+import android.text.TextUtils;
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.bridge.UiThreadUtil;
 
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ESP32Module extends ReactContextBaseJavaModule {
     private static final String TAG = "ESP32Module";
@@ -47,29 +63,110 @@ public class ESP32Module extends ReactContextBaseJavaModule {
     private static final UUID SERVICE_UUID = UUID.fromString("0000FFE0-0000-1000-8000-00805F9B34FB");
     private static final UUID CHARACTERISTIC_UUID = UUID.fromString("0000FFE1-0000-1000-8000-00805F9B34FB");
     private static final UUID DESCRIPTOR_UUID = UUID.fromString("00002902-0000-1000-8000-00805F9B34FB");
+    // 短 UUID，供廣播資料比對使用
+    private static final int SERVICE_UUID16 = 0xFFE0;
+    private static final byte[] ESP32_NAME_BYTES = ESP32_NAME.getBytes(StandardCharsets.UTF_8);
 
     private BluetoothAdapter bluetoothAdapter;
     private BluetoothLeScanner bluetoothLeScanner;
-    private BluetoothGatt bluetoothGatt;
+    // GATT 回調、掃描結果、逾時與重連都在專用的擷取執行緒上處理，不佔用主執行緒
+    private final HandlerThread acquisitionThread;
     private Handler handler;
-    private boolean isScanning = false;
-    private boolean deviceConnected = false;
+    // 掃描狀態只在擷取執行緒上修改，volatile 讓其他執行緒可以直接讀取
+    private volatile boolean isScanning = false;
+    // 多個投擲站同時連線：以藍牙地址為 key，各自擁有 GATT 連線與通知解碼器。
+    // 只在擷取執行緒上新增或移除，統計方法可從其他執行緒讀取
+    private static final int MAX_STATIONS_LIMIT = 7;
+    private final Map<String, ESP32Station> stations = new ConcurrentHashMap<>();
+    private volatile int maxStations = 1;
+    // 重播注入的通知沒有對應的投擲站，使用獨立的解碼器
+    private final ThrowFrameDecoder replayDecoder = new ThrowFrameDecoder();
+    // 目前正在解碼的通知所屬的投擲站（重播時為 null），只在擷取執行緒上使用
+    private ESP32Station decodingStation;
+    // JS 設定的投擲事件過濾管線，每個投擲站使用各自狀態的複本；
+    // 重播的通知沒有投擲站，使用 replayPipeline。只在擷取執行緒上使用與替換
+    private SignalPipeline throwPipeline;
+    private SignalPipeline replayPipeline;
+    private final double[] throwValues = new double[2];
+    // 寫入紀錄檔用的暫存陣列，只在擷取執行緒上使用
+    private final int[] throwRow = new int[4];
+    // 目前正在解碼的通知在 GATT 回調收到的時間，只在擷取執行緒上使用
+    private long notificationReceivedNanos = 0;
+    // 各事件類型從藍牙回調到 emit 的延遲統計
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    // 通知事件的批次發送器（預設關閉）
+    private EventBatcher eventBatcher;
 
-    // 用於檢查短 UUID
-    private String getShortUUID(String uuid) {
-        return uuid.substring(4, 8);
-    }
+    private static ESP32Module instance;
+    public static final String NAME = "ESP32Module";
+    private static final String ACQUISITION_OWNER = "ESP32";
 
-    private boolean matchesShortUUID(String fullUUID, String shortUUID) {
-        return getShortUUID(fullUUID).equalsIgnoreCase(shortUUID);
-    }
+    // 直接連線快取：保存成功連線過的投擲站地址與各自 FFE0/FFE1 的 instance id，
+    // 重新連線時直接連到這些地址，失敗才退回掃描
+    private static final String PREFS_NAME = "ESP32Prefs";
+    private static final String LAST_DEVICE_ADDRESS = "LastDeviceAddress";
+    private static final String STATION_ADDRESSES = "StationAddresses";
+    private static final String SERVICE_INSTANCE_ID = "ServiceInstanceId:";
+    private static final String CHARACTERISTIC_INSTANCE_ID = "CharacteristicInstanceId:";
+    private static final String CONNECT_PATH_DIRECT = "direct";
+    private static final String CONNECT_PATH_BONDED = "bonded";
+    private static final String CONNECT_PATH_SCAN = "scan";
+    // 最近成功連線的地址排在最前面；只在擷取執行緒上修改
+    private final List<String> cachedAddresses = new CopyOnWriteArrayList<>();
+    private final Set<String> directConnectFailed = new HashSet<>();  // 直接連線失敗的地址，下一次改用掃描
+    private volatile long lastTimeToNotifyMs = -1;
+    private volatile String lastConnectPath = null;
+    private volatile int directAttempts = 0;
+    private volatile int directSuccesses = 0;
+    private volatile int scanFallbacks = 0;
+
+    // 掃描設定：服務 UUID 與名稱過濾器一律套用，控制器支援時預設交給硬體過濾，只有符合的廣播才會喚醒應用程式
+    private volatile boolean useHardwareFilter = true;
+    private volatile int scanMode = ScanSettings.SCAN_MODE_LOW_LATENCY;
+    private volatile long scanReportDelayMs = 0;
+    private final Runnable scanTimeoutRunnable = this::onScanTimeout;
+    // 連線逾時後重新掃描、GATT 錯誤或掃描逾時後重新連線；手動斷開或關閉投擲站時取消，
+    // 避免斷開後又自動連線
+    private final Runnable rescanRunnable = () -> {
+        Log.d(TAG, "重新開始掃描...");
+        startScan();
+    };
+    private final Runnable reconnectRunnable = () -> {
+        Log.d(TAG, "重新嘗試連接...");
+        connectInternal();
+    };
+
+    // 連線參數：連上後要求高優先權（較短的連線間隔）、較大的 MTU 與 2M PHY，
+    // 投擲通知不必等一個慢速連線間隔才送達
+    private static final long MTU_TIMEOUT_MS = 2000;
+    private static final long GATT_OPERATION_TIMEOUT_MS = 5000;
+    private volatile int linkPriority = BluetoothGatt.CONNECTION_PRIORITY_HIGH;
+    private volatile int linkMtu = 185;
+    private volatile int linkPhyMask = BluetoothDevice.PHY_LE_2M_MASK;
 
     public ESP32Module(ReactApplicationContext reactContext) {
         super(reactContext);
-        
-        // 在主線程上創建 Handler
-        handler = new Handler(Looper.getMainLooper());
-        
+
+        // 在專用的擷取線程上創建 Handler
+        acquisitionThread = new HandlerThread("ESP32Acquisition", Process.THREAD_PRIORITY_MORE_FAVORABLE);
+        acquisitionThread.start();
+        handler = new Handler(acquisitionThread.getLooper());
+        instance = this;
+
+        // 讀取保存的投擲站地址
+        SharedPreferences prefs = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String savedAddresses = prefs.getString(STATION_ADDRESSES, null);
+        if (!TextUtils.isEmpty(savedAddresses)) {
+            cachedAddresses.addAll(Arrays.asList(savedAddresses.split(",")));
+        } else {
+            String lastAddress = prefs.getString(LAST_DEVICE_ADDRESS, null);
+            if (lastAddress != null) {
+                cachedAddresses.add(lastAddress);
+            }
+        }
+        Log.i(TAG, "保存的 ESP32 地址: " + cachedAddresses);
+        eventBatcher = new EventBatcher("onESP32Batch", handler, this::emitEvent, latencyTracker);
+
         // 初始化藍牙適配器
         BluetoothManager bluetoothManager = (BluetoothManager) reactContext.getSystemService(Context.BLUETOOTH_SERVICE);
         if (bluetoothManager != null) {
@@ -85,9 +182,28 @@ public class ESP32Module extends ReactContextBaseJavaModule {
         }
     }
 
+    public static ESP32Module getInstance() {
+        return instance;
+    }
+
     @Override
     public String getName() {
-        return "ESP32Module";
+        return NAME;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        handler.post(() -> {
+            handler.removeCallbacksAndMessages(null);
+            stopScan();
+            closeAllStations();
+        });
+        AcquisitionService.release(getReactApplicationContext(), ACQUISITION_OWNER);
+        acquisitionThread.quitSafely();
+        if (instance == this) {
+            instance = null;
+        }
     }
 
     // 添加必要的事件監聽方法
@@ -101,7 +217,65 @@ public class ESP32Module extends ReactContextBaseJavaModule {
         // Required for RN built in Event Emitter Calls
     }
 
+    // 開啟或關閉通知事件的批次模式；批次事件名稱為 onESP32Batch
+    @ReactMethod
+    public void setEventBatching(boolean enabled, int intervalMs, int maxBatchSize, int queueCapacity) {
+        eventBatcher.configure(enabled, intervalMs, maxBatchSize, queueCapacity);
+    }
+
+    @ReactMethod
+    public void getEventBatchingStats(Promise promise) {
+        promise.resolve(eventBatcher.getStats());
+    }
+
     private void sendEvent(String eventName, @Nullable WritableMap params) {
+        // 連線、錯誤等狀態事件在 GATT 回調當下送出，同樣附上單調時鐘的收到時間
+        if (params != null && !params.hasKey("tNanos")) {
+            params.putDouble("tNanos", SystemClock.elapsedRealtimeNanos());
+        }
+        // 狀態事件一律即時送出，送出前先清空批次佇列以維持順序
+        eventBatcher.flush();
+        emitEvent(eventName, params);
+    }
+
+    // 投擲站相關的事件附上 stationId（藍牙地址）與 stationIndex
+    private void sendStationEvent(ESP32Station station, String eventName, WritableMap params) {
+        putStation(params, station);
+        sendEvent(eventName, params);
+    }
+
+    private static void putStation(WritableMap params, @Nullable ESP32Station station) {
+        if (station != null) {
+            params.putString("stationId", station.address);
+            params.putInt("stationIndex", station.index);
+        }
+    }
+
+    // 高頻率的資料事件，批次模式開啟時先進入佇列
+    private void sendDataEvent(String eventName, WritableMap params, long receivedNanos) {
+        // 附上單調時鐘的收到時間，JS 可以搭配 getMonotonicNanos 計算端到端延遲
+        params.putDouble("tNanos", receivedNanos);
+        if (eventBatcher.isEnabled()) {
+            eventBatcher.enqueue(eventName, params, receivedNanos);
+        } else {
+            emitEvent(eventName, params);
+            latencyTracker.record(eventName, SystemClock.elapsedRealtimeNanos() - receivedNanos);
+        }
+    }
+
+    // 回傳各事件類型從藍牙回調到 emit 的延遲統計（微秒）並重置
+    @ReactMethod
+    public void getLatencyStats(Promise promise) {
+        promise.resolve(latencyTracker.snapshotAndReset());
+    }
+
+    // 同步回傳 elapsedRealtimeNanos，讓 JS 對齊事件上的 tNanos
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getMonotonicNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    private void emitEvent(String eventName, @Nullable Object params) {
         getReactApplicationContext()
             .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
             .emit(eventName, params);
@@ -111,88 +285,54 @@ public class ESP32Module extends ReactContextBaseJavaModule {
     private ScanCallback scanCallback = new ScanCallback() {
         @Override
         public void onScanResult(int callbackType, ScanResult result) {
-            BluetoothDevice device = result.getDevice();
-            String deviceName = device.getName();
-            String deviceAddress = device.getAddress();
-            
-            // 記錄所有掃描到的設備
-            // Log.d(TAG, "----------------------------------------");
-            // Log.d(TAG, String.format("掃描到設備 - 名稱: %s, 地址: %s, RSSI: %d", 
-            //     deviceName != null ? deviceName : "未知", 
-            //     deviceAddress, 
-            //     result.getRssi()));
-            
-            // 檢查廣播數據
-            ScanRecord scanRecord = result.getScanRecord();
-            if (scanRecord != null) {
-                String advertisedName = scanRecord.getDeviceName();
-                //Log.d(TAG, "設備名稱(從廣播): " + (advertisedName != null ? advertisedName : "未知"));
-                
-                // 打印完整的廣播數據
-                byte[] rawBytes = scanRecord.getBytes();
-                if (rawBytes != null) {
-                    //Log.d(TAG, "完整廣播數據: " + bytesToHex(rawBytes));
-                    // 解析廣播數據包
-                    int offset = 0;
-                    while (offset < rawBytes.length) {
-                        int length = rawBytes[offset] & 0xFF;
-                        if (length == 0) break;
-                        
-                        if (offset + length + 1 > rawBytes.length) break;
-                        
-                        int type = rawBytes[offset + 1] & 0xFF;
-                        byte[] data = new byte[length - 1];
-                        System.arraycopy(rawBytes, offset + 2, data, 0, length - 1);
-                        
-                        // Log.d(TAG, String.format("廣播包 - 類型: 0x%02X, 長度: %d, 數據: %s",
-                        //     type, length - 1, bytesToHex(data)));
-                        
-                        offset += length + 1;
-                    }
-                }
-                
-                // 打印所有服務 UUID
-                List<ParcelUuid> serviceUuids = scanRecord.getServiceUuids();
-                if (serviceUuids != null) {
-                    for (ParcelUuid uuid : serviceUuids) {
-                        String uuidString = uuid.toString().toUpperCase();
-                        //Log.d(TAG, "服務 UUID: " + uuidString + " (短 UUID: " + getShortUUID(uuidString) + ")");
-                        
-                        // 檢查是否匹配目標服務（使用短 UUID）
-                        if (matchesShortUUID(uuidString, "FFE0")) {
-                            Log.i(TAG, "找到匹配的服務 UUID!");
-                            stopScan();
-                            connectToDevice(device);
-                            return;
-                        }
-                    }
-                }
-                
-                // 打印所有製造商數據
-                android.util.SparseArray<byte[]> manufacturerData = scanRecord.getManufacturerSpecificData();
-                if (manufacturerData != null) {
-                    for (int i = 0; i < manufacturerData.size(); i++) {
-                        int manufacturerId = manufacturerData.keyAt(i);
-                        byte[] data = manufacturerData.valueAt(i);
-                        // Log.d(TAG, String.format("製造商ID: 0x%04X, 數據: %s", 
-                        //     manufacturerId, 
-                        //     bytesToHex(data)));
+            // 掃描結果由主執行緒回調，轉交擷取執行緒處理
+            handler.post(() -> handleScanResult(result));
+        }
+
+        @Override
+        public void onBatchScanResults(List<ScanResult> results) {
+            // 批次回報模式：控制器累積結果後一次送出
+            handler.post(() -> {
+                for (ScanResult result : results) {
+                    if (!isScanning) {
+                        break;
                     }
+                    handleScanResult(result);
                 }
+            });
+        }
+
+        private void handleScanResult(ScanResult result) {
+            if (!isScanning) {
+                return;  // 已經停止掃描或已找到所有投擲站
             }
-            
-            // 檢查設備名稱匹配
-            boolean nameMatches = ESP32_NAME.equals(deviceName) || 
-                                (deviceName == null && scanRecord != null && ESP32_NAME.equals(scanRecord.getDeviceName()));
-            
-            if (nameMatches) {
+            BluetoothDevice device = result.getDevice();
+            if (stations.containsKey(device.getAddress())) {
+                return;  // 已連線或連線中的投擲站
+            }
+
+            // 使用硬體過濾時控制器只回報符合條件的設備，仍在此做一次確認；
+            // 直接在原始廣播資料上比對，不為每個 AD 結構或 UUID 配置物件
+            ScanRecord scanRecord = result.getScanRecord();
+            byte[] rawBytes = scanRecord != null ? scanRecord.getBytes() : null;
+            boolean matches = AdvertisementParser.hasServiceUuid16(rawBytes, SERVICE_UUID16);
+            if (matches) {
+                Log.i(TAG, "找到匹配的服務 UUID!");
+            } else if (AdvertisementParser.hasLocalName(rawBytes, ESP32_NAME_BYTES)
+                    || ESP32_NAME.equals(device.getName())) {
+                // 檢查設備名稱匹配
                 Log.i(TAG, "找到目標設備（通過名稱匹配）!");
-                stopScan();
-                connectToDevice(device);
+                matches = true;
+            }
+            if (!matches) {
                 return;
             }
-            
-            Log.d(TAG, "----------------------------------------");
+
+            // 同一次掃描繼續尋找其他投擲站，找齊後才停止
+            connectToDevice(device, CONNECT_PATH_SCAN);
+            if (stations.size() >= maxStations) {
+                stopScan();
+            }
         }
 
         @Override
@@ -220,7 +360,7 @@ public class ESP32Module extends ReactContextBaseJavaModule {
             sendEvent("onESP32Error", params);
         }
     };
-    
+
     private String bytesToHex(byte[] bytes) {
         if (bytes == null) return "null";
         StringBuilder sb = new StringBuilder();
@@ -230,115 +370,163 @@ public class ESP32Module extends ReactContextBaseJavaModule {
         return sb.toString();
     }
 
-    private void connectToDevice(BluetoothDevice device) {
+    private void connectToDevice(BluetoothDevice device, String path) {
         Log.d(TAG, "正在連接到設備: " + device.getName() + " (" + device.getAddress() + ")");
-        
-        // 先斷開現有連接
-        if (bluetoothGatt != null) {
+
+        // 先關閉同一地址現有的連接
+        ESP32Station existing = stations.get(device.getAddress());
+        if (existing != null) {
             Log.d(TAG, "關閉現有的 GATT 連接");
-            bluetoothGatt.close();
-            bluetoothGatt = null;
+            closeStation(existing);
         }
 
         // 檢查設備狀態
         int bondState = device.getBondState();
         Log.d(TAG, "設備配對狀態: " + bondState);
-        
+
+        ESP32Station station = new ESP32Station(device.getAddress(), nextStationIndex());
+        station.connectPath = path;
+        station.connectStartedAt = SystemClock.elapsedRealtime();
+        station.throwPipeline = throwPipeline != null ? throwPipeline.copy() : null;
+
         // 使用 TRANSPORT_LE 參數確保使用 BLE 連接
-        bluetoothGatt = device.connectGatt(getReactApplicationContext(), false, gattCallback, BluetoothDevice.TRANSPORT_LE);
-        
-        if (bluetoothGatt == null) {
+        // 並指定 GATT 回調在擷取執行緒上執行
+        station.gatt = device.connectGatt(getReactApplicationContext(), false, new StationGattCallback(station),
+                BluetoothDevice.TRANSPORT_LE, BluetoothDevice.PHY_LE_1M_MASK, handler);
+
+        if (station.gatt == null) {
             Log.e(TAG, "connectGatt 返回 null");
             WritableMap params = Arguments.createMap();
             params.putString("error", "無法創建 GATT 連接");
-            sendEvent("onESP32Error", params);
+            sendStationEvent(station, "onESP32Error", params);
             return;
         }
-        
+        station.operations = new GattOperationQueue(handler, station.gatt);
+        stations.put(station.address, station);
+
         // 設置連接超時
-        handler.postDelayed(new Runnable() {
+        station.connectTimeoutRunnable = new Runnable() {
             @Override
             public void run() {
-                if (bluetoothGatt != null && !deviceConnected) {
-                    Log.e(TAG, "連接超時");
-                    disconnectGatt();
+                if (stations.get(station.address) == station && !station.connected) {
+                    Log.e(TAG, "連接超時: " + station.address);
+                    closeStation(station);
+                    markDirectConnectFailed(station);
                     WritableMap params = Arguments.createMap();
                     params.putString("error", "連接超時");
-                    sendEvent("onESP32Error", params);
-                    
+                    sendStationEvent(station, "onESP32Error", params);
+
                     // 重新開始掃描
-                    handler.postDelayed(() -> {
-                        Log.d(TAG, "重新開始掃描...");
-                        startScan();
-                    }, 1000);
+                    handler.removeCallbacks(rescanRunnable);
+                    handler.postDelayed(rescanRunnable, 1000);
                 }
             }
-        }, 10000);  // 10 秒超時
+        };
+        handler.postDelayed(station.connectTimeoutRunnable, 10000);  // 10 秒超時
+    }
+
+    // 取最小的未使用站號
+    private int nextStationIndex() {
+        int index = 1;
+        while (true) {
+            boolean used = false;
+            for (ESP32Station station : stations.values()) {
+                if (station.index == index) {
+                    used = true;
+                    break;
+                }
+            }
+            if (!used) {
+                return index;
+            }
+            index++;
+        }
     }
 
-    // GATT 回調
-    private final BluetoothGattCallback gattCallback = new BluetoothGattCallback() {
+    // 每個投擲站各自的 GATT 回調
+    private class StationGattCallback extends BluetoothGattCallback {
+        private final ESP32Station station;
+
+        StationGattCallback(ESP32Station station) {
+            this.station = station;
+        }
+
+        // 已被關閉或取代的連線，忽略遲到的回調
+        private boolean isStale() {
+            return stations.get(station.address) != station;
+        }
+
         @Override
         public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
-            Log.d(TAG, "連接狀態改變: status=" + status + ", newState=" + newState);
-            
+            Log.d(TAG, "連接狀態改變: " + station.address + " status=" + status + ", newState=" + newState);
+            if (isStale()) {
+                return;
+            }
+
             WritableMap params = Arguments.createMap();
-            
+
             if (status == BluetoothGatt.GATT_SUCCESS) {
                 if (newState == BluetoothProfile.STATE_CONNECTED) {
-                    deviceConnected = true;
+                    station.connected = true;
+                    handler.removeCallbacks(station.connectTimeoutRunnable);
+                    AcquisitionService.acquire(getReactApplicationContext(), ACQUISITION_OWNER);
                     Log.i(TAG, "成功連接到GATT服務器");
                     params.putString("status", "CONNECTED");
-                    sendEvent("onESP32Connected", params);
-                    
-                    // 開始發現服務
+                    sendStationEvent(station, "onESP32Connected", params);
+
+                    // 先套用連線參數，再開始發現服務
                     handler.post(() -> {
-                        if (bluetoothGatt != null) {
-                            Log.d(TAG, "開始發現服務...");
-                            bluetoothGatt.discoverServices();
+                        if (!isStale() && station.gatt != null) {
+                            applyLinkProfile(station);
                         }
                     });
                 } else if (newState == BluetoothProfile.STATE_DISCONNECTED) {
-                    deviceConnected = false;
                     Log.i(TAG, "與GATT服務器斷開連接");
+                    closeStation(station);
                     params.putString("status", "DISCONNECTED");
-                    sendEvent("onESP32Connected", params);
-                    disconnectGatt();
+                    sendStationEvent(station, "onESP32Connected", params);
                 }
             } else {
-                deviceConnected = false;
                 Log.e(TAG, "連接狀態改變出錯，status: " + status);
+                closeStation(station);
+                markDirectConnectFailed(station);
                 params.putString("status", "DISCONNECTED");
-                sendEvent("onESP32Connected", params);
-                disconnectGatt();
-                
+                sendStationEvent(station, "onESP32Connected", params);
+
                 // 重新嘗試連接
-                handler.postDelayed(() -> connect(), 1000);
+                handler.removeCallbacks(reconnectRunnable);
+                handler.postDelayed(reconnectRunnable, 1000);
             }
         }
 
         @Override
         public void onServicesDiscovered(BluetoothGatt gatt, int status) {
-            Log.d(TAG, "服務發現完成: status=" + status);
-            
+            Log.d(TAG, "服務發現完成: " + station.address + " status=" + status);
+            if (isStale()) {
+                return;
+            }
+
             if (status == BluetoothGatt.GATT_SUCCESS) {
                 BluetoothGattService service = gatt.getService(SERVICE_UUID);
                 if (service != null) {
                     Log.d(TAG, "找到目標服務: " + service.getUuid());
-                    BluetoothGattCharacteristic characteristic = 
+                    BluetoothGattCharacteristic characteristic =
                         service.getCharacteristic(CHARACTERISTIC_UUID);
                     if (characteristic != null) {
                         Log.d(TAG, "找到目標特徵: " + characteristic.getUuid());
-                        // 啟用通知
-                        boolean success = gatt.setCharacteristicNotification(characteristic, true);
-                        Log.d(TAG, "設置通知結果: " + success);
-                        
+                        SharedPreferences prefs = getReactApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                        int cachedServiceInstanceId = prefs.getInt(SERVICE_INSTANCE_ID + station.address, -1);
+                        int cachedCharacteristicInstanceId = prefs.getInt(CHARACTERISTIC_INSTANCE_ID + station.address, -1);
+                        if (cachedCharacteristicInstanceId >= 0
+                                && (service.getInstanceId() != cachedServiceInstanceId
+                                    || characteristic.getInstanceId() != cachedCharacteristicInstanceId)) {
+                            Log.i(TAG, "特徵 handle 與快取不同，韌體可能已更新，將更新快取");
+                        }
+                        station.characteristic = characteristic;
                         BluetoothGattDescriptor descriptor = characteristic.getDescriptor(DESCRIPTOR_UUID);
                         if (descriptor != null) {
                             Log.d(TAG, "找到描述符: " + descriptor.getUuid());
-                            descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
-                            boolean writeSuccess = gatt.writeDescriptor(descriptor);
-                            Log.d(TAG, "寫入描述符結果: " + writeSuccess);
+                            enableNotifications(station, characteristic, descriptor);
                         } else {
                             Log.e(TAG, "未找到描述符");
                         }
@@ -357,43 +545,660 @@ public class ESP32Module extends ReactContextBaseJavaModule {
             } else {
                 Log.e(TAG, "服務發現失敗: " + status);
             }
+            station.operations.onGattCallback(GattOperationQueue.KIND_DISCOVER_SERVICES, status);
         }
 
         @Override
-        public void onCharacteristicChanged(BluetoothGatt gatt, 
+        public void onCharacteristicChanged(BluetoothGatt gatt,
                                           BluetoothGattCharacteristic characteristic) {
-            byte[] data = characteristic.getValue();
-            String jsonString = new String(data);
-            Log.d(TAG, "收到數據: " + jsonString);
-            
-            WritableMap params = Arguments.createMap();
-            params.putString("data", jsonString);
-            sendEvent("onESP32Data", params);
+            handleNotification(characteristic.getValue());
         }
-        
+
+        // Android 13 起通知內容直接以參數傳入，不會被同一特徵上的寫入覆蓋
+        @Override
+        public void onCharacteristicChanged(BluetoothGatt gatt,
+                                          BluetoothGattCharacteristic characteristic, byte[] value) {
+            handleNotification(value);
+        }
+
+        private void handleNotification(byte[] data) {
+            // Log.d(TAG, "收到數據: " + bytesToHex(data));
+            notificationReceivedNanos = SystemClock.elapsedRealtimeNanos();
+            station.recordNotification(notificationReceivedNanos);
+            TrafficRecorder recorder = TrafficRecorder.active();
+            if (recorder != null) {
+                recorder.recordNotification(notificationReceivedNanos, data);
+            }
+            decodingStation = station;
+            station.frameDecoder.feed(data, frameListener);
+            decodingStation = null;
+        }
+
         @Override
         public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
             Log.d(TAG, "描述符寫入完成: status=" + status);
+            if (isStale()) {
+                return;
+            }
+            station.operations.onGattCallback(GattOperationQueue.KIND_DESCRIPTOR_WRITE, status);
+        }
+
+        @Override
+        public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+            if (isStale()) {
+                return;
+            }
+            // 不需回應的寫入在資料交給控制器後也會回調，佇列依此做流量控制
+            station.operations.onGattCallback(GattOperationQueue.KIND_CHARACTERISTIC_WRITE, status);
+        }
+
+        @Override
+        public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
+            Log.i(TAG, "MTU 協商完成: " + station.address + " mtu=" + mtu + ", status=" + status);
+            if (isStale()) {
+                return;
+            }
             if (status == BluetoothGatt.GATT_SUCCESS) {
-                Log.d(TAG, "通知已成功啟用");
+                station.mtu = mtu;
+            }
+            WritableMap params = Arguments.createMap();
+            params.putString("type", "mtu");
+            params.putInt("mtu", station.mtu);
+            params.putInt("status", status);
+            sendStationEvent(station, "onESP32LinkUpdate", params);
+            station.operations.onGattCallback(GattOperationQueue.KIND_MTU, status);
+        }
+
+        @Override
+        public void onPhyUpdate(BluetoothGatt gatt, int txPhy, int rxPhy, int status) {
+            Log.i(TAG, "PHY 更新: " + station.address + " tx=" + txPhy + ", rx=" + rxPhy + ", status=" + status);
+            if (isStale()) {
+                return;
+            }
+            if (status == BluetoothGatt.GATT_SUCCESS) {
+                station.txPhy = txPhy;
+                station.rxPhy = rxPhy;
+            }
+            WritableMap params = Arguments.createMap();
+            params.putString("type", "phy");
+            params.putString("txPhy", phyName(station.txPhy));
+            params.putString("rxPhy", phyName(station.rxPhy));
+            params.putInt("status", status);
+            sendStationEvent(station, "onESP32LinkUpdate", params);
+        }
+    }
+
+    // 連線後套用連線參數；連線優先權與 PHY 不佔用 GATT 操作佇列，
+    // MTU 與服務發現則依序排入佇列，MTU 協商完成（或逾時）後才發現服務
+    private void applyLinkProfile(ESP32Station station) {
+        BluetoothGatt gatt = station.gatt;
+        station.resetLink();
+
+        station.priorityGranted = gatt.requestConnectionPriority(linkPriority);
+        Log.d(TAG, "要求連線優先權 " + linkPriority + ": " + station.priorityGranted);
+        if (linkPhyMask != BluetoothDevice.PHY_LE_1M_MASK) {
+            gatt.setPreferredPhy(linkPhyMask, linkPhyMask, BluetoothDevice.PHY_OPTION_NO_PREFERRED);
+        }
+        int mtu = linkMtu;
+        if (mtu > ESP32Station.DEFAULT_MTU) {
+            Log.d(TAG, "要求 MTU: " + mtu);
+            station.operations.enqueue(GattOperationQueue.KIND_MTU, MTU_TIMEOUT_MS,
+                    g -> g.requestMtu(mtu), null);
+        }
+        station.operations.enqueue(GattOperationQueue.KIND_DISCOVER_SERVICES, GATT_OPERATION_TIMEOUT_MS,
+                g -> {
+                    Log.d(TAG, "開始發現服務...");
+                    return g.discoverServices();
+                },
+                status -> {
+                    if (status != BluetoothGatt.GATT_SUCCESS) {
+                        Log.e(TAG, "服務發現未完成: " + status);
+                    }
+                });
+    }
+
+    // 在本機開啟通知後寫入 CCCD，寫入完成才算連線可用
+    private void enableNotifications(ESP32Station station, BluetoothGattCharacteristic characteristic,
+                                     BluetoothGattDescriptor descriptor) {
+        station.operations.enqueue(GattOperationQueue.KIND_DESCRIPTOR_WRITE, GATT_OPERATION_TIMEOUT_MS,
+                g -> {
+                    boolean success = g.setCharacteristicNotification(characteristic, true);
+                    Log.d(TAG, "設置通知結果: " + success);
+                    descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
+                    return g.writeDescriptor(descriptor);
+                },
+                status -> {
+                    if (status == BluetoothGatt.GATT_SUCCESS) {
+                        Log.d(TAG, "通知已成功啟用");
+                        onNotificationsEnabled(station, descriptor);
+                    } else {
+                        Log.e(TAG, "通知啟用失敗: " + status);
+                    }
+                });
+    }
+
+    private static String phyName(int phy) {
+        switch (phy) {
+            case BluetoothDevice.PHY_LE_2M:
+                return "2M";
+            case BluetoothDevice.PHY_LE_CODED:
+                return "coded";
+            default:
+                return "1M";
+        }
+    }
+
+    // 寫入資料到投擲站的 FFE1 特徵；stationId 為 null 時使用第一個已連線的投擲站。
+    // options.encoding 為 utf8（預設）或 base64；options.withResponse 預設 false，
+    // 此時資料依 MTU 切成多個封包連續排入佇列，全部交給控制器後才 resolve
+    @ReactMethod
+    public void write(@Nullable String stationId, String data, @Nullable ReadableMap options, Promise promise) {
+        handler.post(() -> {
+            try {
+                ESP32Station station = writableStation(stationId, promise);
+                if (station == null) {
+                    return;
+                }
+                boolean withResponse = options != null && options.hasKey("withResponse") && options.getBoolean("withResponse");
+                byte[] bytes = decodePayload(data, options);
+                List<byte[]> packets = new ArrayList<>();
+                int packetSize = withResponse ? bytes.length : Math.max(1, station.mtu - 3);
+                for (int offset = 0; offset < bytes.length || packets.isEmpty(); offset += packetSize) {
+                    packets.add(Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + packetSize)));
+                }
+                enqueueWrites(station, packets, withResponse, promise);
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // 一次排入多個指令封包（每個封包各自一次寫入），以不需回應的寫入連續送出；
+    // 封包不會再切割，呼叫端需讓每個封包不超過 MTU - 3
+    @ReactMethod
+    public void writeBatch(@Nullable String stationId, ReadableArray packets, @Nullable ReadableMap options, Promise promise) {
+        handler.post(() -> {
+            try {
+                ESP32Station station = writableStation(stationId, promise);
+                if (station == null) {
+                    return;
+                }
+                boolean withResponse = options != null && options.hasKey("withResponse") && options.getBoolean("withResponse");
+                List<byte[]> list = new ArrayList<>(packets.size());
+                for (int i = 0; i < packets.size(); i++) {
+                    list.add(decodePayload(packets.getString(i), options));
+                }
+                if (list.isEmpty()) {
+                    promise.resolve(writeResult(0, 0));
+                    return;
+                }
+                enqueueWrites(station, list, withResponse, promise);
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    @Nullable
+    private ESP32Station writableStation(@Nullable String stationId, Promise promise) {
+        ESP32Station station = null;
+        if (stationId != null) {
+            station = stations.get(stationId);
+        } else {
+            for (ESP32Station candidate : stations.values()) {
+                if (candidate.connected && candidate.characteristic != null) {
+                    station = candidate;
+                    break;
+                }
+            }
+        }
+        if (station == null || !station.connected || station.characteristic == null) {
+            promise.reject("NOT_CONNECTED", "投擲站未連線或服務尚未就緒");
+            return null;
+        }
+        return station;
+    }
+
+    private static byte[] decodePayload(String data, @Nullable ReadableMap options) {
+        String encoding = options != null && options.hasKey("encoding") ? options.getString("encoding") : "utf8";
+        if ("base64".equals(encoding)) {
+            return Base64.decode(data, Base64.NO_WRAP);
+        }
+        return data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 把封包依序排入 GATT 佇列，最後一個封包完成時回報結果
+    private void enqueueWrites(ESP32Station station, List<byte[]> packets, boolean withResponse, Promise promise) {
+        BluetoothGattCharacteristic characteristic = station.characteristic;
+        int writeType = withResponse
+                ? BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT
+                : BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE;
+        int[] remaining = {packets.size()};
+        int[] failed = {0};
+        int[] lastError = {BluetoothGatt.GATT_SUCCESS};
+        long[] bytes = {0};
+        for (byte[] packet : packets) {
+            station.operations.enqueue(GattOperationQueue.KIND_CHARACTERISTIC_WRITE, GATT_OPERATION_TIMEOUT_MS,
+                    g -> {
+                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+                            return g.writeCharacteristic(characteristic, packet, writeType) == BluetoothStatusCodes.SUCCESS;
+                        }
+                        characteristic.setWriteType(writeType);
+                        characteristic.setValue(packet);
+                        return g.writeCharacteristic(characteristic);
+                    },
+                    status -> {
+                        if (status == BluetoothGatt.GATT_SUCCESS) {
+                            bytes[0] += packet.length;
+                            station.bytesWritten += packet.length;
+                        } else {
+                            failed[0]++;
+                            lastError[0] = status;
+                        }
+                        if (--remaining[0] == 0) {
+                            if (failed[0] == 0) {
+                                promise.resolve(writeResult(packets.size(), bytes[0]));
+                            } else {
+                                promise.reject("WRITE_FAILED", failed[0] + "/" + packets.size()
+                                        + " 個封包寫入失敗，狀態: " + lastError[0]);
+                            }
+                        }
+                    });
+        }
+    }
+
+    private static WritableMap writeResult(int packets, long bytes) {
+        WritableMap result = Arguments.createMap();
+        result.putInt("packets", packets);
+        result.putDouble("bytes", bytes);
+        return result;
+    }
+
+    // 設定連線參數：priority 為 high / balanced / lowPower、mtu 為要求的 MTU
+    // （0 表示不協商）、phy 為 1M / 2M / coded。連線中會立即更新優先權與 PHY，
+    // MTU 則在下次連線時生效
+    @ReactMethod
+    public void configureLinkProfile(ReadableMap options) {
+        if (options.hasKey("priority")) {
+            String priority = options.getString("priority");
+            if ("balanced".equals(priority)) {
+                linkPriority = BluetoothGatt.CONNECTION_PRIORITY_BALANCED;
+            } else if ("lowPower".equals(priority)) {
+                linkPriority = BluetoothGatt.CONNECTION_PRIORITY_LOW_POWER;
             } else {
-                Log.e(TAG, "通知啟用失敗");
+                linkPriority = BluetoothGatt.CONNECTION_PRIORITY_HIGH;
             }
         }
+        if (options.hasKey("mtu")) {
+            linkMtu = Math.max(0, Math.min(517, options.getInt("mtu")));
+        }
+        if (options.hasKey("phy")) {
+            String phy = options.getString("phy");
+            if ("1M".equals(phy)) {
+                linkPhyMask = BluetoothDevice.PHY_LE_1M_MASK;
+            } else if ("coded".equals(phy)) {
+                linkPhyMask = BluetoothDevice.PHY_LE_CODED_MASK;
+            } else {
+                linkPhyMask = BluetoothDevice.PHY_LE_2M_MASK;
+            }
+        }
+        Log.i(TAG, "連線參數 - 優先權: " + linkPriority + "，MTU: " + linkMtu + "，PHY: " + linkPhyMask);
+        handler.post(() -> {
+            for (ESP32Station station : stations.values()) {
+                if (station.gatt != null && station.connected) {
+                    station.priorityGranted = station.gatt.requestConnectionPriority(linkPriority);
+                    station.gatt.setPreferredPhy(linkPhyMask, linkPhyMask, BluetoothDevice.PHY_OPTION_NO_PREFERRED);
+                }
+            }
+        });
+    }
+
+    // 各投擲站目前的協商結果與通知間隔統計（毫秒）
+    @ReactMethod
+    public void getLinkStats(Promise promise) {
+        WritableArray list = Arguments.createArray();
+        for (ESP32Station station : stations.values()) {
+            WritableMap stats = Arguments.createMap();
+            putStation(stats, station);
+            stats.putBoolean("isConnected", station.connected);
+            stats.putBoolean("priorityGranted", station.priorityGranted);
+            stats.putInt("mtu", station.mtu);
+            stats.putString("txPhy", phyName(station.txPhy));
+            stats.putString("rxPhy", phyName(station.rxPhy));
+
+            LatencyHistogram histogram = station.notificationIntervals;
+            WritableMap intervals = Arguments.createMap();
+            intervals.putDouble("count", histogram.getCount());
+            intervals.putDouble("meanMs", histogram.getMeanMicros() / 1000.0);
+            intervals.putDouble("p50Ms", histogram.getPercentileMicros(50) / 1000.0);
+            intervals.putDouble("p95Ms", histogram.getPercentileMicros(95) / 1000.0);
+            intervals.putDouble("p99Ms", histogram.getPercentileMicros(99) / 1000.0);
+            intervals.putDouble("maxMs", histogram.getMaxMicros() / 1000.0);
+            stats.putMap("notificationIntervals", intervals);
+
+            GattOperationQueue operations = station.operations;
+            if (operations != null) {
+                WritableMap queue = Arguments.createMap();
+                queue.putInt("pending", operations.size());
+                queue.putInt("maxDepth", operations.getMaxDepth());
+                queue.putDouble("completed", operations.getCompleted());
+                queue.putDouble("failed", operations.getFailed());
+                queue.putDouble("timeouts", operations.getTimeouts());
+                stats.putMap("gattQueue", queue);
+            }
+            stats.putDouble("bytesWritten", station.bytesWritten);
+            list.pushMap(stats);
+        }
+        WritableMap result = Arguments.createMap();
+        result.putArray("stations", list);
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    public void resetLinkStats() {
+        handler.post(() -> {
+            for (ESP32Station station : stations.values()) {
+                station.notificationIntervals.reset();
+                station.lastNotificationNanos = 0;
+            }
+        });
+    }
+
+    // 通知啟用代表連線真正可用：記錄耗時並更新直接連線快取
+    private void onNotificationsEnabled(ESP32Station station, BluetoothGattDescriptor descriptor) {
+        station.timeToNotifyMs = SystemClock.elapsedRealtime() - station.connectStartedAt;
+        lastTimeToNotifyMs = station.timeToNotifyMs;
+        lastConnectPath = station.connectPath;
+        if (CONNECT_PATH_DIRECT.equals(station.connectPath)) {
+            directSuccesses++;
+        }
+        directConnectFailed.remove(station.address);
+        Log.i(TAG, "連線路徑: " + station.connectPath + "，到通知啟用耗時: " + station.timeToNotifyMs + "ms");
+
+        BluetoothGattCharacteristic characteristic = descriptor.getCharacteristic();
+        cachedAddresses.remove(station.address);
+        cachedAddresses.add(0, station.address);
+        while (cachedAddresses.size() > MAX_STATIONS_LIMIT) {
+            cachedAddresses.remove(cachedAddresses.size() - 1);
+        }
+        SharedPreferences prefs = getReactApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit()
+                .putString(LAST_DEVICE_ADDRESS, station.address)
+                .putString(STATION_ADDRESSES, TextUtils.join(",", cachedAddresses))
+                .putInt(SERVICE_INSTANCE_ID + station.address, characteristic.getService().getInstanceId())
+                .putInt(CHARACTERISTIC_INSTANCE_ID + station.address, characteristic.getInstanceId())
+                .apply();
+
+        WritableMap params = Arguments.createMap();
+        params.putString("status", "NOTIFICATIONS_ENABLED");
+        params.putString("connectPath", station.connectPath);
+        params.putDouble("timeToNotifyMs", station.timeToNotifyMs);
+        sendStationEvent(station, "onESP32Connected", params);
+    }
+
+    private void markDirectConnectFailed(ESP32Station station) {
+        if (CONNECT_PATH_DIRECT.equals(station.connectPath)) {
+            Log.i(TAG, "直接連線失敗，改用掃描: " + station.address);
+            directConnectFailed.add(station.address);
+            scanFallbacks++;
+        }
+    }
+
+    @ReactMethod
+    public void getConnectionStats(Promise promise) {
+        WritableMap stats = Arguments.createMap();
+        WritableArray list = Arguments.createArray();
+        int connectedCount = 0;
+        for (ESP32Station station : stations.values()) {
+            if (station.connected) {
+                connectedCount++;
+            }
+            WritableMap item = Arguments.createMap();
+            putStation(item, station);
+            item.putBoolean("isConnected", station.connected);
+            item.putString("connectPath", station.connectPath);
+            item.putDouble("timeToNotifyMs", station.timeToNotifyMs);
+            list.pushMap(item);
+        }
+        stats.putBoolean("isConnected", connectedCount > 0);
+        stats.putInt("connectedCount", connectedCount);
+        stats.putInt("maxStations", maxStations);
+        stats.putArray("stations", list);
+        WritableArray addresses = Arguments.createArray();
+        for (String address : cachedAddresses) {
+            addresses.pushString(address);
+        }
+        stats.putString("cachedAddress", cachedAddresses.isEmpty() ? null : cachedAddresses.get(0));
+        stats.putArray("cachedAddresses", addresses);
+        stats.putString("lastConnectPath", lastConnectPath);
+        stats.putDouble("lastTimeToNotifyMs", lastTimeToNotifyMs);
+        stats.putInt("directAttempts", directAttempts);
+        stats.putInt("directSuccesses", directSuccesses);
+        stats.putInt("scanFallbacks", scanFallbacks);
+        promise.resolve(stats);
+    }
+
+    // 同步回傳各投擲站的連線狀態，讓遊戲迴圈直接輪詢，不經過 Promise 往返
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getConnectionStatusSync() {
+        WritableArray list = Arguments.createArray();
+        int connectedCount = 0;
+        for (ESP32Station station : stations.values()) {
+            if (station.connected) {
+                connectedCount++;
+            }
+            WritableMap item = Arguments.createMap();
+            putStation(item, station);
+            item.putBoolean("isConnected", station.connected);
+            list.pushMap(item);
+        }
+        WritableMap status = Arguments.createMap();
+        status.putBoolean("isConnected", connectedCount > 0);
+        status.putInt("connectedCount", connectedCount);
+        status.putBoolean("isScanning", isScanning);
+        status.putArray("stations", list);
+        return status;
+    }
+
+    // 清除直接連線快取（例如更換設備時）
+    @ReactMethod
+    public void clearDeviceCache() {
+        handler.post(() -> {
+            cachedAddresses.clear();
+            directConnectFailed.clear();
+            SharedPreferences prefs = getReactApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            prefs.edit().clear().apply();
+            Log.i(TAG, "清除保存的 ESP32 地址");
+        });
+    }
+
+    // 設定同時連線的投擲站數量（1 ~ 7）；之後呼叫 connect 會在同一次掃描中找齊
+    @ReactMethod
+    public void setMaxStations(int count) {
+        maxStations = Math.max(1, Math.min(MAX_STATIONS_LIMIT, count));
+        Log.i(TAG, "投擲站數量上限: " + maxStations);
+    }
+
+    // 解碼後的投擲事件直接以型別欄位送到 JS，data 也改為物件，JS 不需再 JSON.parse
+    private final ThrowFrameDecoder.Listener frameListener = new ThrowFrameDecoder.Listener() {
+        @Override
+        public void onThrow(int format, boolean cast, boolean castBig, int sequence) {
+            SessionFileRecorder recorder = SessionFileRecorder.active();
+            if (recorder != null) {
+                throwRow[0] = cast ? 1 : 0;
+                throwRow[1] = castBig ? 1 : 0;
+                throwRow[2] = sequence;
+                throwRow[3] = decodingStation != null ? decodingStation.index : 0;
+                recorder.append(SessionFileRecorder.TYPE_THROW, throwRow);
+            }
+
+            // 過濾管線只影響送往 JS 的事件，紀錄檔仍保留每一次投擲
+            SignalPipeline pipeline = decodingStation != null ? decodingStation.throwPipeline : replayPipeline;
+            if (pipeline != null) {
+                throwValues[0] = cast ? 1 : 0;
+                throwValues[1] = castBig ? 1 : 0;
+                if (!pipeline.process(notificationReceivedNanos / 1_000_000L, throwValues, 0)) {
+                    return;
+                }
+            }
+
+            WritableMap data = Arguments.createMap();
+            data.putBoolean("cast", cast);
+            data.putBoolean("castbig", castBig);
+
+            WritableMap params = Arguments.createMap();
+            params.putString("type", "throw");
+            params.putString("format", format == ThrowFrameDecoder.FORMAT_BINARY ? "binary" : "json");
+            params.putBoolean("cast", cast);
+            params.putBoolean("castbig", castBig);
+            params.putInt("sequence", sequence);
+            params.putMap("data", data);
+            putStation(params, decodingStation);
+            sendDataEvent("onESP32Data", params, notificationReceivedNanos);
+
+            // 交給 NeuroSkyModule 以同一個單調時鐘對齊投擲當下的腦波狀態
+            NeuroSkyModule neuroSky = NeuroSkyModule.getInstance();
+            if (neuroSky != null) {
+                neuroSky.onThrow(notificationReceivedNanos, cast, castBig, sequence,
+                        decodingStation != null ? decodingStation.address : null,
+                        decodingStation != null ? decodingStation.index : 0);
+            }
+        }
+
+        @Override
+        public void onMessage(byte[] buffer, int offset, int length) {
+            // 非投擲資料維持舊格式，以字串轉送
+            WritableMap params = Arguments.createMap();
+            params.putString("data", new String(buffer, offset, length, StandardCharsets.UTF_8));
+            putStation(params, decodingStation);
+            sendDataEvent("onESP32Data", params, notificationReceivedNanos);
+        }
     };
 
+    // 設定投擲事件的過濾管線：channel 目前只有 throw，stages 格式見 SignalPipeline
+    // （例如 [{type: "minInterval", ms: 300}] 去除抖動的重複投擲），空陣列或 null 表示移除。
+    // 每個投擲站各自套用一份，已連線的投擲站立即生效
+    @ReactMethod
+    public void configurePipeline(String channel, @Nullable ReadableArray stages, Promise promise) {
+        handler.post(() -> {
+            if (!"throw".equals(channel)) {
+                promise.reject("INVALID_CHANNEL", "未知的通道: " + channel);
+                return;
+            }
+            try {
+                throwPipeline = stages == null || stages.size() == 0 ? null : SignalPipeline.fromConfig(stages);
+            } catch (Exception e) {
+                promise.reject("INVALID_PIPELINE", e.getMessage());
+                return;
+            }
+            replayPipeline = throwPipeline != null ? throwPipeline.copy() : null;
+            for (ESP32Station station : stations.values()) {
+                station.throwPipeline = throwPipeline != null ? throwPipeline.copy() : null;
+            }
+            Log.i(TAG, "投擲事件過濾管線: " + (throwPipeline == null ? "無" : stages.size() + " 個階段"));
+            promise.resolve(true);
+        });
+    }
+
+    // 回傳各投擲站管線的輸入、輸出與各階段丟棄數量
+    @ReactMethod
+    public void getPipelineStats(Promise promise) {
+        handler.post(() -> {
+            WritableArray list = Arguments.createArray();
+            for (ESP32Station station : stations.values()) {
+                if (station.throwPipeline == null) {
+                    continue;
+                }
+                WritableMap entry = station.throwPipeline.getStats();
+                putStation(entry, station);
+                list.pushMap(entry);
+            }
+            WritableMap stats = Arguments.createMap();
+            stats.putBoolean("enabled", throwPipeline != null);
+            stats.putArray("stations", list);
+            promise.resolve(stats);
+        });
+    }
+
+    // 設定掃描方式：hardwareFilter 是否使用控制器硬體過濾的比對設定（過濾器本身一律套用）、scanMode 為
+    // lowLatency / balanced / lowPower、reportDelayMs 大於 0 時啟用批次回報
+    @ReactMethod
+    public void configureScan(ReadableMap options) {
+        if (options.hasKey("hardwareFilter")) {
+            useHardwareFilter = options.getBoolean("hardwareFilter");
+        }
+        if (options.hasKey("scanMode")) {
+            String mode = options.getString("scanMode");
+            if ("balanced".equals(mode)) {
+                scanMode = ScanSettings.SCAN_MODE_BALANCED;
+            } else if ("lowPower".equals(mode)) {
+                scanMode = ScanSettings.SCAN_MODE_LOW_POWER;
+            } else {
+                scanMode = ScanSettings.SCAN_MODE_LOW_LATENCY;
+            }
+        }
+        if (options.hasKey("reportDelayMs")) {
+            scanReportDelayMs = Math.max(0, (long) options.getDouble("reportDelayMs"));
+        }
+        Log.i(TAG, "掃描設定 - 硬體過濾: " + useHardwareFilter + "，模式: " + scanMode + "，批次延遲: " + scanReportDelayMs + "ms");
+    }
+
+    // 重播時注入擷取的通知，走與實際 GATT 通知相同的解碼路徑
+    void injectNotification(byte[] data) {
+        handler.post(() -> {
+            notificationReceivedNanos = SystemClock.elapsedRealtimeNanos();
+            replayDecoder.feed(data, frameListener);
+        });
+    }
+
     private void stopScan() {
+        handler.removeCallbacks(scanTimeoutRunnable);
         if (isScanning && bluetoothLeScanner != null) {
             isScanning = false;
             bluetoothLeScanner.stopScan(scanCallback);
         }
     }
 
-    private void disconnectGatt() {
-        if (bluetoothGatt != null) {
-            bluetoothGatt.disconnect();
-            bluetoothGatt.close();
-            bluetoothGatt = null;
+    private void closeStation(ESP32Station station) {
+        boolean wasConnected = station.connected;
+        station.connected = false;
+        station.frameDecoder.reset();
+        if (station.operations != null) {
+            station.operations.close();
+        }
+        if (station.connectTimeoutRunnable != null) {
+            handler.removeCallbacks(station.connectTimeoutRunnable);
+        }
+        cancelPendingReconnect();
+        if (station.gatt != null) {
+            station.gatt.disconnect();
+            station.gatt.close();
+            station.gatt = null;
+        }
+        stations.remove(station.address, station);
+        // 最後一個已連線的投擲站關閉（包含連線中斷）時釋放前景服務，重新連上時會再登記
+        if (wasConnected && !hasConnectedStation()) {
+            AcquisitionService.release(getReactApplicationContext(), ACQUISITION_OWNER);
+        }
+    }
+
+    private boolean hasConnectedStation() {
+        for (ESP32Station station : stations.values()) {
+            if (station.connected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void cancelPendingReconnect() {
+        handler.removeCallbacks(rescanRunnable);
+        handler.removeCallbacks(reconnectRunnable);
+    }
+
+    private void closeAllStations() {
+        for (ESP32Station station : new ArrayList<>(stations.values())) {
+            closeStation(station);
         }
     }
 
@@ -408,10 +1213,15 @@ public class ESP32Module extends ReactContextBaseJavaModule {
         }
     }
 
+    // 連線相關狀態都限定在擷取執行緒上存取
     @ReactMethod
     public void connect() {
+        handler.post(this::connectInternal);
+    }
+
+    private void connectInternal() {
         Log.d(TAG, "開始連接程序");
-        
+
         // 檢查權限
         if (!checkPermissions()) {
             Log.e(TAG, "缺少必要權限");
@@ -429,69 +1239,90 @@ public class ESP32Module extends ReactContextBaseJavaModule {
             return;
         }
 
+        if (stations.size() >= maxStations) {
+            Log.d(TAG, "所有投擲站都已連線或連線中");
+            return;
+        }
+
         // 發送連接中狀態
         WritableMap params = Arguments.createMap();
         params.putString("status", "CONNECTING");
         sendEvent("onESP32Connected", params);
 
-        // 先檢查已配對設備
+        // 優先直接連到之前成功的地址，不需要掃描
+        for (String address : cachedAddresses) {
+            if (stations.size() >= maxStations) {
+                return;
+            }
+            if (stations.containsKey(address) || directConnectFailed.contains(address)
+                    || !BluetoothAdapter.checkBluetoothAddress(address)) {
+                continue;
+            }
+            Log.i(TAG, "使用保存的設備地址直接連接: " + address);
+            directAttempts++;
+            connectToDevice(bluetoothAdapter.getRemoteDevice(address), CONNECT_PATH_DIRECT);
+        }
+
+        // 再檢查已配對設備
         Set<BluetoothDevice> pairedDevices = bluetoothAdapter.getBondedDevices();
-        BluetoothDevice targetDevice = null;
-        
         for (BluetoothDevice device : pairedDevices) {
+            if (stations.size() >= maxStations) {
+                return;
+            }
             String deviceName = device.getName();
-            if (deviceName != null && deviceName.equals(ESP32_NAME)) {
+            if (deviceName != null && deviceName.equals(ESP32_NAME) && !stations.containsKey(device.getAddress())) {
+                // 如果找到已配對設備，直接連接
                 Log.d(TAG, "找到已配對的目標設備: " + deviceName);
-                targetDevice = device;
-                break;
+                connectToDevice(device, CONNECT_PATH_BONDED);
             }
         }
 
-        if (targetDevice != null) {
-            // 如果找到已配對設備，直接連接
-            connectToDevice(targetDevice);
-        } else {
-            // 如果沒有找到已配對設備，才開始掃描
+        // 還沒找齊的投擲站才開始掃描
+        if (stations.size() < maxStations) {
             startScan();
         }
     }
 
     private void startScan() {
-        // 斷開現有連接
-        disconnectGatt();
+        if (isScanning) {
+            return;
+        }
 
         // 開始掃描
         bluetoothLeScanner = bluetoothAdapter.getBluetoothLeScanner();
         if (bluetoothLeScanner != null) {
             Log.d(TAG, "開始掃描設備");
-            
-            // 設置掃描過濾器 - 暫時移除過濾器以查看所有設備
+
+            // 兩個過濾器為「或」的關係：宣告 FFE0 服務或名稱為 Alchemy_TP。
+            // 控制器不支援硬體過濾時由藍牙堆疊在軟體中過濾，仍然只回報符合的廣播
             List<ScanFilter> filters = new ArrayList<>();
-            
-            // 設置掃描設置為低延遲模式
-            ScanSettings settings = new ScanSettings.Builder()
-                    .setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY)
-                    .setReportDelay(0)
-                    .build();
+            filters.add(new ScanFilter.Builder()
+                    .setServiceUuid(new ParcelUuid(SERVICE_UUID))
+                    .build());
+            filters.add(new ScanFilter.Builder()
+                    .setDeviceName(ESP32_NAME)
+                    .build());
+            ScanSettings.Builder settingsBuilder = new ScanSettings.Builder()
+                    .setScanMode(scanMode);
+            // 積極比對與比對次數只有在控制器硬體過濾時才有意義
+            if (useHardwareFilter && bluetoothAdapter.isOffloadedFilteringSupported()) {
+                settingsBuilder
+                        .setCallbackType(ScanSettings.CALLBACK_TYPE_ALL_MATCHES)
+                        .setMatchMode(ScanSettings.MATCH_MODE_AGGRESSIVE)
+                        .setNumOfMatches(ScanSettings.MATCH_NUM_ONE_ADVERTISEMENT);
+                Log.d(TAG, "使用硬體掃描過濾器");
+            }
+            if (scanReportDelayMs > 0 && bluetoothAdapter.isOffloadedScanBatchingSupported()) {
+                settingsBuilder.setReportDelay(scanReportDelayMs);
+            } else {
+                settingsBuilder.setReportDelay(0);
+            }
 
             isScanning = true;
-            bluetoothLeScanner.startScan(null, settings, scanCallback);  // 使用 null 過濾器查看所有設備
+            bluetoothLeScanner.startScan(filters, settingsBuilder.build(), scanCallback);
 
             // 10秒後停止掃描
-            handler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    if (isScanning) {
-                        Log.d(TAG, "掃描超時，停止掃描");
-                        stopScan();
-                        // 重新開始掃描
-                        handler.postDelayed(() -> {
-                            Log.d(TAG, "重新開始掃描...");
-                            connect();
-                        }, 1000);
-                    }
-                }
-            }, 10000);
+            handler.postDelayed(scanTimeoutRunnable, 10000);
         } else {
             Log.e(TAG, "無法初始化藍牙掃描器");
             WritableMap errorParams = Arguments.createMap();
@@ -500,16 +1331,54 @@ public class ESP32Module extends ReactContextBaseJavaModule {
         }
     }
 
+    private void onScanTimeout() {
+        if (isScanning) {
+            Log.d(TAG, "掃描超時，停止掃描");
+            stopScan();
+            // 還沒找齊投擲站時重新開始掃描
+            if (stations.size() < maxStations) {
+                handler.removeCallbacks(reconnectRunnable);
+                handler.postDelayed(reconnectRunnable, 1000);
+            }
+        }
+    }
+
+    // 斷開所有投擲站
     @ReactMethod
     public void disconnect() {
-        if (bluetoothGatt != null) {
-            bluetoothGatt.disconnect();
-            bluetoothGatt.close();
-            bluetoothGatt = null;
+        handler.post(this::disconnectInternal);
+    }
+
+    // 只斷開指定的投擲站
+    @ReactMethod
+    public void disconnectStation(String stationId) {
+        handler.post(() -> {
+            ESP32Station station = stations.get(stationId);
+            if (station != null) {
+                closeStation(station);
+                WritableMap params = Arguments.createMap();
+                params.putString("status", "DISCONNECTED");
+                sendStationEvent(station, "onESP32Connected", params);
+            }
+        });
+    }
+
+    private void disconnectInternal() {
+        stopScan();
+        cancelPendingReconnect();
+        AcquisitionService.release(getReactApplicationContext(), ACQUISITION_OWNER);
+        List<ESP32Station> closed = new ArrayList<>(stations.values());
+        closeAllStations();
+
+        for (ESP32Station station : closed) {
+            WritableMap params = Arguments.createMap();
+            params.putString("status", "DISCONNECTED");
+            sendStationEvent(station, "onESP32Connected", params);
+        }
+        if (closed.isEmpty()) {
+            WritableMap params = Arguments.createMap();
+            params.putString("status", "DISCONNECTED");
+            sendEvent("onESP32Connected", params);
         }
-        
-        WritableMap params = Arguments.createMap();
-        params.putString("status", "DISCONNECTED");
-        sendEvent("onESP32Connected", params);
     }
-}
\ No newline at end of file
+}
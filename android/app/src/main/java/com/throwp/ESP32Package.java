@@ -1,24 +1,45 @@
 package com.throwp;
 
-import com.facebook.react.ReactPackage;
+import com.facebook.react.BaseReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class ESP32Package implements ReactPackage {
+// 延遲載入：模組在 JS 第一次存取 ESP32Module 時才建立，不在啟動時初始化
+public class ESP32Package extends BaseReactPackage {
     @Override
-    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-        return Collections.emptyList();
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (ESP32Module.NAME.equals(name)) {
+            return new ESP32Module(reactContext);
+        }
+        return null;
     }
 
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        List<NativeModule> modules = new ArrayList<>();
-        modules.add(new ESP32Module(reactContext));
-        return modules;
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> {
+            Map<String, ReactModuleInfo> modules = new HashMap<>();
+            modules.put(ESP32Module.NAME, new ReactModuleInfo(
+                    ESP32Module.NAME,
+                    ESP32Module.class.getName(),
+                    false,  // canOverrideExistingModule
+                    false,  // needsEagerInit
+                    false,  // isCxxModule
+                    false   // isTurboModule：新架構目前關閉，開啟後改為 true
+            ));
+            return modules;
+        };
+    }
+
+    @Override
+    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+        return Collections.emptyList();
     }
 }
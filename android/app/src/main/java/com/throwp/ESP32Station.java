@@ -0,0 +1,62 @@
+package com.throwp;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+
+// 單一投擲站的 GATT 連線狀態
+// 每個 Alchemy_TP 各自擁有 GATT 連線、通知解碼器與連線參數協商結果，
+// 除 volatile 欄位外只在 ESP32Module 的擷取執行緒上存取
+class ESP32Station {
+    static final int DEFAULT_MTU = 23;
+
+    // 以藍牙地址作為投擲站 id，index 是從 1 開始的站號，方便畫面顯示
+    final String address;
+    final int index;
+    final ThrowFrameDecoder frameDecoder = new ThrowFrameDecoder();
+    // 相鄰兩次通知的間隔，用來確認實際的連線間隔
+    final LatencyHistogram notificationIntervals = new LatencyHistogram();
+
+    // 投擲事件的過濾管線（JS 設定，每站各一份狀態），只在擷取執行緒上使用
+    SignalPipeline throwPipeline;
+
+    BluetoothGatt gatt;
+    // 這個連線的 GATT 操作佇列，連線關閉時取消尚未完成的操作
+    GattOperationQueue operations;
+    // 通知與寫入共用的 FFE1 特徵，服務發現後才有值
+    BluetoothGattCharacteristic characteristic;
+    volatile boolean connected = false;
+    volatile String connectPath;
+    long connectStartedAt;
+    volatile long timeToNotifyMs = -1;
+    long lastNotificationNanos = 0;
+    Runnable connectTimeoutRunnable;
+
+    volatile boolean priorityGranted = false;
+    volatile int mtu = DEFAULT_MTU;
+    volatile int txPhy = BluetoothDevice.PHY_LE_1M;
+    volatile int rxPhy = BluetoothDevice.PHY_LE_1M;
+    volatile long bytesWritten = 0;
+
+    ESP32Station(String address, int index) {
+        this.address = address;
+        this.index = index;
+    }
+
+    // 連上後重置本次連線的協商結果與通知間隔基準
+    void resetLink() {
+        characteristic = null;
+        lastNotificationNanos = 0;
+        priorityGranted = false;
+        mtu = DEFAULT_MTU;
+        txPhy = BluetoothDevice.PHY_LE_1M;
+        rxPhy = BluetoothDevice.PHY_LE_1M;
+    }
+
+    void recordNotification(long receivedNanos) {
+        if (lastNotificationNanos != 0) {
+            notificationIntervals.recordNanos(receivedNanos - lastNotificationNanos);
+        }
+        lastNotificationNanos = receivedNanos;
+    }
+}
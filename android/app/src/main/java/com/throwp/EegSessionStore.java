@@ -0,0 +1,90 @@
+package com.throwp;
+
+// 單一量測階段（session）的原生樣本儲存
+// 專注度、冥想度、訊號品質與八個頻段各自使用固定容量的環形緩衝區，
+// 長時間量測也不會讓記憶體無限成長
+public class EegSessionStore {
+    public static final int CHANNEL_ATTENTION = 0;
+    public static final int CHANNEL_MEDITATION = 1;
+    public static final int CHANNEL_POOR_SIGNAL = 2;
+    public static final int CHANNEL_BANDS = 3;
+
+    public static final String[] CHANNEL_NAMES = {
+        "attention", "meditation", "poorSignal", "bands"
+    };
+
+    public static final String[] BAND_NAMES = {
+        "delta", "theta", "lowAlpha", "highAlpha",
+        "lowBeta", "highBeta", "lowGamma", "midGamma"
+    };
+
+    // eSense 約 1 Hz，預設可保存約 2 小時的資料
+    public static final int DEFAULT_CAPACITY = 7200;
+    // 容量上限約 8 小時；每筆約 76 位元組，單一 session 最多約 2 MiB
+    public static final int MAX_CAPACITY = 4 * DEFAULT_CAPACITY;
+
+    private final int handle;
+    private final long startedAt;
+    private final SampleRingBuffer attention;
+    private final SampleRingBuffer meditation;
+    private final SampleRingBuffer poorSignal;
+    private final SampleRingBuffer bands;
+
+    public EegSessionStore(int handle, int capacity, long startedAt) {
+        this.handle = handle;
+        this.startedAt = startedAt;
+        this.attention = new SampleRingBuffer(1, capacity);
+        this.meditation = new SampleRingBuffer(1, capacity);
+        this.poorSignal = new SampleRingBuffer(1, capacity);
+        this.bands = new SampleRingBuffer(BAND_NAMES.length, capacity);
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void appendAttention(long timestamp, int value) {
+        attention.append(timestamp, value);
+    }
+
+    public void appendMeditation(long timestamp, int value) {
+        meditation.append(timestamp, value);
+    }
+
+    public void appendPoorSignal(long timestamp, int value) {
+        poorSignal.append(timestamp, value);
+    }
+
+    // row 依 BAND_NAMES 的順序排列
+    public void appendBands(long timestamp, int[] row) {
+        bands.append(timestamp, row);
+    }
+
+    public SampleRingBuffer getChannel(int channel) {
+        switch (channel) {
+            case CHANNEL_ATTENTION:
+                return attention;
+            case CHANNEL_MEDITATION:
+                return meditation;
+            case CHANNEL_POOR_SIGNAL:
+                return poorSignal;
+            case CHANNEL_BANDS:
+                return bands;
+            default:
+                return null;
+        }
+    }
+
+    public static int channelFromName(String name) {
+        for (int i = 0; i < CHANNEL_NAMES.length; i++) {
+            if (CHANNEL_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,159 @@
+package com.throwp;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+// 時間窗批次發送器
+// 事件先進入固定容量的佇列，只在每 intervalMs 一次的定時送出時取出最多 maxBatchSize 筆，
+// 合併成一次 bridge 呼叫；加入事件時不會直接送出。送往 JS 的速率因此有上限，
+// JS 執行緒卡住時事件留在原生佇列，滿了就丟棄最舊的並計數，不會在 bridge 佇列中無限堆積
+public class EventBatcher {
+    private static final String TAG = "EventBatcher";
+    // 未設定前的佇列容量
+    private static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    public interface Emitter {
+        void emit(String eventName, WritableArray batch);
+    }
+
+    private final String batchEventName;
+    private final Handler handler;
+    private final Emitter emitter;
+    private final LatencyTracker latencyTracker;
+
+    private boolean enabled = false;
+    private int intervalMs = 100;
+    private int maxBatchSize = 32;
+
+    private BoundedEventQueue<WritableMap> queue = new BoundedEventQueue<>(DEFAULT_QUEUE_CAPACITY);
+    private boolean flushScheduled = false;
+
+    private long enqueuedCount = 0;
+    private long emittedCount = 0;
+    private long batchCount = 0;
+    // 重新設定容量前舊佇列丟棄的筆數
+    private long retiredDroppedCount = 0;
+
+    // 定時送出一批；佇列中還有事件時排程下一次
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int limit;
+            synchronized (EventBatcher.this) {
+                flushScheduled = false;
+                limit = maxBatchSize;
+            }
+            emitBatch(limit);
+            synchronized (EventBatcher.this) {
+                if (queue.size() > 0) {
+                    scheduleFlush();
+                }
+            }
+        }
+    };
+
+    public EventBatcher(String batchEventName, Handler handler, Emitter emitter, LatencyTracker latencyTracker) {
+        this.batchEventName = batchEventName;
+        this.handler = handler;
+        this.emitter = emitter;
+        this.latencyTracker = latencyTracker;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    public void configure(boolean enabled, int intervalMs, int maxBatchSize, int queueCapacity) {
+        // 關閉或重新設定前先送出尚在佇列中的事件
+        flush();
+        synchronized (this) {
+            this.enabled = enabled;
+            this.intervalMs = Math.max(1, intervalMs);
+            this.maxBatchSize = Math.max(1, maxBatchSize);
+            int capacity = Math.max(this.maxBatchSize, queueCapacity);
+            if (capacity != queue.capacity()) {
+                // 換掉佇列時保留丟棄統計，resetStats 才歸零
+                retiredDroppedCount += queue.getDroppedCount();
+                queue = new BoundedEventQueue<>(capacity);
+            }
+            Log.i(TAG, batchEventName + " 批次模式: " + enabled + "，間隔: " + this.intervalMs
+                    + "ms，批次上限: " + this.maxBatchSize + "，佇列容量: " + capacity);
+        }
+    }
+
+    // 加入一個事件；佇列已滿時丟棄最舊的事件。只排程定時送出，不在這裡送出
+    public synchronized void enqueue(String eventName, WritableMap params, long receivedNanos) {
+        queue.offer(eventName, params, receivedNanos);
+        enqueuedCount++;
+        if (!flushScheduled) {
+            scheduleFlush();
+        }
+    }
+
+    // 立即送出佇列中所有事件；狀態事件送出前呼叫以維持順序
+    public void flush() {
+        synchronized (this) {
+            if (flushScheduled) {
+                handler.removeCallbacks(flushRunnable);
+                flushScheduled = false;
+            }
+        }
+        emitBatch(Integer.MAX_VALUE);
+    }
+
+    private void scheduleFlush() {
+        flushScheduled = true;
+        handler.postDelayed(flushRunnable, intervalMs);
+    }
+
+    // 取出最多 limit 筆，以單一陣列事件送出
+    private void emitBatch(int limit) {
+        WritableArray batch;
+        synchronized (this) {
+            if (queue.size() == 0) {
+                return;
+            }
+            WritableArray items = Arguments.createArray();
+            long now = SystemClock.elapsedRealtimeNanos();
+            emittedCount += queue.drain(limit, (eventName, payload, receivedNanos) -> {
+                WritableMap item = Arguments.createMap();
+                item.putString("event", eventName);
+                item.putMap("data", payload);
+                items.pushMap(item);
+                if (latencyTracker != null) {
+                    latencyTracker.record(eventName, now - receivedNanos);
+                }
+            });
+            batchCount++;
+            batch = items;
+        }
+        emitter.emit(batchEventName, batch);
+    }
+
+    public synchronized WritableMap getStats() {
+        WritableMap stats = Arguments.createMap();
+        stats.putBoolean("enabled", enabled);
+        stats.putInt("intervalMs", intervalMs);
+        stats.putInt("maxBatchSize", maxBatchSize);
+        stats.putInt("queueCapacity", queue.capacity());
+        stats.putInt("queued", queue.size());
+        stats.putDouble("enqueued", enqueuedCount);
+        stats.putDouble("emitted", emittedCount);
+        stats.putDouble("batches", batchCount);
+        stats.putDouble("dropped", retiredDroppedCount + queue.getDroppedCount());
+        return stats;
+    }
+
+    public synchronized void resetStats() {
+        enqueuedCount = 0;
+        emittedCount = 0;
+        batchCount = 0;
+        retiredDroppedCount = 0;
+        queue.resetDroppedCount();
+    }
+}
@@ -0,0 +1,231 @@
+package com.throwp;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.List;
+
+// 遊戲歷史紀錄模組
+// 取代 JS 端以 SQLite 外掛一次讀出整張表的作法：紀錄依時間游標分頁讀取，
+// 使用者統計直接讀 user_stats，不論累積多少紀錄，開啟歷史頁面的成本都只有一頁
+public class GameHistoryModule extends ReactContextBaseJavaModule {
+    private static final String TAG = "GameHistoryModule";
+    public static final String NAME = "GameHistoryModule";
+
+    private final GameHistoryStore store;
+    // 資料庫存取都在同一條背景執行緒上依序執行
+    private final HandlerThread dbThread;
+    private final Handler handler;
+
+    public GameHistoryModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.store = new GameHistoryStore(reactContext);
+        this.dbThread = new HandlerThread("GameHistory", Process.THREAD_PRIORITY_BACKGROUND);
+        this.dbThread.start();
+        this.handler = new Handler(dbThread.getLooper());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        handler.post(store::close);
+        dbThread.quitSafely();
+    }
+
+    // 儲存一筆紀錄，record 欄位與 Evaluate 的 gameData 相同；timestamp 可為 ISO 字串或 epoch 毫秒。
+    // 回傳新紀錄的 id
+    @ReactMethod
+    public void saveRecord(ReadableMap record, Promise promise) {
+        handler.post(() -> {
+            try {
+                GameHistoryStore.Record parsed = parseRecord(record);
+                long id = store.insert(parsed);
+                promise.resolve((double) id);
+            } catch (Exception e) {
+                Log.e(TAG, "儲存遊戲紀錄失敗: " + e.getMessage());
+                promise.reject("HISTORY_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    @ReactMethod
+    public void deleteRecord(double id, Promise promise) {
+        handler.post(() -> {
+            try {
+                promise.resolve(store.delete((long) id));
+            } catch (Exception e) {
+                Log.e(TAG, "刪除遊戲紀錄失敗: " + e.getMessage());
+                promise.reject("HISTORY_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // 讀取一頁紀錄，依時間由新到舊。options：
+    //   userName   只查詢該使用者（可省略）
+    //   cursor     上一頁回傳的 nextCursor {timestamp, id}，省略時從最新一筆開始
+    //   limit      每頁筆數，預設 50，上限 GameHistoryStore.MAX_PAGE_SIZE
+    // 回傳 {records, nextCursor}，沒有下一頁時 nextCursor 為 null
+    @ReactMethod
+    public void getRecordsPage(ReadableMap options, Promise promise) {
+        handler.post(() -> {
+            try {
+                String userName = options.hasKey("userName") && !options.isNull("userName")
+                        ? options.getString("userName") : null;
+                long beforePlayedAt = -1;
+                long beforeId = 0;
+                if (options.hasKey("cursor") && !options.isNull("cursor")) {
+                    ReadableMap cursor = options.getMap("cursor");
+                    beforePlayedAt = (long) cursor.getDouble("timestamp");
+                    beforeId = (long) cursor.getDouble("id");
+                }
+                int limit = options.hasKey("limit") ? options.getInt("limit") : 50;
+
+                GameHistoryStore.Page page = store.queryPage(userName, beforePlayedAt, beforeId, limit);
+                WritableArray records = Arguments.createArray();
+                for (GameHistoryStore.Record record : page.records) {
+                    records.pushMap(toMap(record));
+                }
+                WritableMap result = Arguments.createMap();
+                result.putArray("records", records);
+                if (page.hasMore) {
+                    GameHistoryStore.Record last = page.records.get(page.records.size() - 1);
+                    WritableMap nextCursor = Arguments.createMap();
+                    nextCursor.putDouble("timestamp", last.playedAt);
+                    nextCursor.putDouble("id", last.id);
+                    result.putMap("nextCursor", nextCursor);
+                } else {
+                    result.putNull("nextCursor");
+                }
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "讀取遊戲紀錄失敗: " + e.getMessage());
+                promise.reject("HISTORY_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // 回傳 {recordCount, users: [{userName, recordCount, averageScore, bestScore, averageAccuracy,
+    // averageAttention, averageMeditation, firstPlayedAt, lastPlayedAt}]}；userName 為 null 時回傳所有使用者
+    @ReactMethod
+    public void getSummary(String userName, Promise promise) {
+        handler.post(() -> {
+            try {
+                List<GameHistoryStore.UserStats> stats = store.queryUserStats(userName);
+                WritableArray users = Arguments.createArray();
+                int recordCount = 0;
+                for (GameHistoryStore.UserStats item : stats) {
+                    users.pushMap(toMap(item));
+                    recordCount += item.recordCount;
+                }
+                WritableMap result = Arguments.createMap();
+                result.putInt("recordCount", recordCount);
+                result.putArray("users", users);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "讀取統計失敗: " + e.getMessage());
+                promise.reject("HISTORY_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    private static GameHistoryStore.Record parseRecord(ReadableMap map) {
+        GameHistoryStore.Record record = new GameHistoryStore.Record();
+        record.userName = map.hasKey("userName") && !map.isNull("userName") ? map.getString("userName") : null;
+        record.playedAt = System.currentTimeMillis();
+        if (map.hasKey("timestamp") && !map.isNull("timestamp")) {
+            switch (map.getType("timestamp")) {
+                case Number:
+                    record.playedAt = (long) map.getDouble("timestamp");
+                    break;
+                case String:
+                    long parsed = GameHistoryStore.parseLegacyTimestamp(map.getString("timestamp"));
+                    if (parsed > 0) {
+                        record.playedAt = parsed;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        record.completionTime = optInt(map, "completionTime");
+        record.accuracy = optInt(map, "accuracy");
+        record.attentionAvg = optInt(map, "attentionAvg");
+        record.brainPower = optInt(map, "brainPower");
+        record.endurance = optInt(map, "endurance");
+        record.meditationAvg = optInt(map, "meditationAvg");
+        record.score = optInt(map, "score");
+        record.stability = optInt(map, "stability");
+        record.successCount = optInt(map, "successCount");
+        record.superPower = optInt(map, "superPower");
+        record.throwCount = optInt(map, "throwCount");
+        return record;
+    }
+
+    // 數值欄位缺少或不是數字時視為 0，與舊版 `|| 0` 的行為一致
+    private static int optInt(ReadableMap map, String key) {
+        if (!map.hasKey(key) || map.isNull(key)) {
+            return 0;
+        }
+        switch (map.getType(key)) {
+            case Number:
+                return (int) Math.round(map.getDouble(key));
+            case String:
+                try {
+                    return (int) Math.round(Double.parseDouble(map.getString(key)));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            default:
+                return 0;
+        }
+    }
+
+    private static WritableMap toMap(GameHistoryStore.Record record) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("id", record.id);
+        map.putString("userName", record.userName);
+        map.putDouble("timestamp", record.playedAt);
+        map.putInt("completionTime", record.completionTime);
+        map.putInt("accuracy", record.accuracy);
+        map.putInt("attentionAvg", record.attentionAvg);
+        map.putInt("brainPower", record.brainPower);
+        map.putInt("endurance", record.endurance);
+        map.putInt("meditationAvg", record.meditationAvg);
+        map.putInt("score", record.score);
+        map.putInt("stability", record.stability);
+        map.putInt("successCount", record.successCount);
+        map.putInt("superPower", record.superPower);
+        map.putInt("throwCount", record.throwCount);
+        return map;
+    }
+
+    private static WritableMap toMap(GameHistoryStore.UserStats stats) {
+        WritableMap map = Arguments.createMap();
+        int count = Math.max(1, stats.recordCount);
+        map.putString("userName", stats.userName);
+        map.putInt("recordCount", stats.recordCount);
+        map.putDouble("averageScore", (double) stats.scoreSum / count);
+        map.putInt("bestScore", stats.bestScore);
+        map.putDouble("averageAccuracy", (double) stats.accuracySum / count);
+        map.putDouble("averageAttention", (double) stats.attentionSum / count);
+        map.putDouble("averageMeditation", (double) stats.meditationSum / count);
+        map.putDouble("firstPlayedAt", stats.firstPlayedAt);
+        map.putDouble("lastPlayedAt", stats.lastPlayedAt);
+        return map;
+    }
+}
@@ -0,0 +1,45 @@
+package com.throwp;
+
+import com.facebook.react.BaseReactPackage;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
+import com.facebook.react.uimanager.ViewManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 延遲載入：模組在 JS 第一次存取 GameHistoryModule 時才建立並開啟資料庫，不在啟動時初始化
+public class GameHistoryPackage extends BaseReactPackage {
+    @Override
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (GameHistoryModule.NAME.equals(name)) {
+            return new GameHistoryModule(reactContext);
+        }
+        return null;
+    }
+
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> {
+            Map<String, ReactModuleInfo> modules = new HashMap<>();
+            modules.put(GameHistoryModule.NAME, new ReactModuleInfo(
+                    GameHistoryModule.NAME,
+                    GameHistoryModule.class.getName(),
+                    false,  // canOverrideExistingModule
+                    false,  // needsEagerInit
+                    false,  // isCxxModule
+                    false   // isTurboModule：新架構目前關閉，開啟後改為 true
+            ));
+            return modules;
+        };
+    }
+
+    @Override
+    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+        return Collections.emptyList();
+    }
+}
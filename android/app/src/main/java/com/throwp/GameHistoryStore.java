@@ -0,0 +1,388 @@
+package com.throwp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// 遊戲歷史紀錄的原生儲存
+// 使用者名稱獨立成 users 表，紀錄以 user_id 參照；時間以 epoch 毫秒的 INTEGER 儲存，
+// (played_at, id) 與 (user_id, played_at, id) 兩個索引讓分頁查詢只掃描需要的那一頁。
+// 每位使用者的統計（次數、總分、最佳分數…）存在 user_stats，與紀錄在同一個交易中更新，
+// 讀取統計不需要掃描整張紀錄表
+public class GameHistoryStore extends SQLiteOpenHelper {
+    private static final String TAG = "GameHistoryStore";
+    private static final String DB_NAME = "game_history.db";
+    private static final int DB_VERSION = 1;
+    // react-native-sqlite-storage 使用的舊資料庫，第一次建立時匯入其中的 game_records
+    private static final String LEGACY_DB_NAME = "throwp.db";
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final Context context;
+
+    // 單筆遊戲紀錄，欄位與 JS 端 gameData 相同
+    public static class Record {
+        public long id;
+        public String userName;
+        public long playedAt;
+        public int completionTime;
+        public int accuracy;
+        public int attentionAvg;
+        public int brainPower;
+        public int endurance;
+        public int meditationAvg;
+        public int score;
+        public int stability;
+        public int successCount;
+        public int superPower;
+        public int throwCount;
+    }
+
+    // 一頁紀錄；hasMore 時以最後一筆的 (playedAt, id) 作為下一頁的游標
+    public static class Page {
+        public final List<Record> records = new ArrayList<>();
+        public boolean hasMore;
+    }
+
+    // 每位使用者的累計統計
+    public static class UserStats {
+        public String userName;
+        public int recordCount;
+        public long scoreSum;
+        public int bestScore;
+        public long accuracySum;
+        public long attentionSum;
+        public long meditationSum;
+        public long firstPlayedAt;
+        public long lastPlayedAt;
+    }
+
+    public GameHistoryStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        this.context = context.getApplicationContext();
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.execSQL("PRAGMA foreign_keys = ON;");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE users ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "name TEXT NOT NULL UNIQUE);");
+        db.execSQL("CREATE TABLE game_records ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + "user_id INTEGER NOT NULL REFERENCES users(id),"
+                + "played_at INTEGER NOT NULL,"
+                + "completion_time INTEGER NOT NULL DEFAULT 0,"
+                + "accuracy INTEGER NOT NULL DEFAULT 0,"
+                + "attention_avg INTEGER NOT NULL DEFAULT 0,"
+                + "brain_power INTEGER NOT NULL DEFAULT 0,"
+                + "endurance INTEGER NOT NULL DEFAULT 0,"
+                + "meditation_avg INTEGER NOT NULL DEFAULT 0,"
+                + "score INTEGER NOT NULL DEFAULT 0,"
+                + "stability INTEGER NOT NULL DEFAULT 0,"
+                + "success_count INTEGER NOT NULL DEFAULT 0,"
+                + "super_power INTEGER NOT NULL DEFAULT 0,"
+                + "throw_count INTEGER NOT NULL DEFAULT 0);");
+        db.execSQL("CREATE INDEX idx_records_time ON game_records(played_at, id);");
+        db.execSQL("CREATE INDEX idx_records_user_time ON game_records(user_id, played_at, id);");
+        db.execSQL("CREATE TABLE user_stats ("
+                + "user_id INTEGER PRIMARY KEY REFERENCES users(id),"
+                + "record_count INTEGER NOT NULL,"
+                + "score_sum INTEGER NOT NULL,"
+                + "best_score INTEGER NOT NULL,"
+                + "accuracy_sum INTEGER NOT NULL,"
+                + "attention_sum INTEGER NOT NULL,"
+                + "meditation_sum INTEGER NOT NULL,"
+                + "first_played_at INTEGER NOT NULL,"
+                + "last_played_at INTEGER NOT NULL);");
+        importLegacyRecords(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 目前只有第一版
+    }
+
+    // 新增一筆紀錄並更新該使用者的統計，回傳紀錄 id
+    public long insert(Record record) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long id = insertInternal(db, record);
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // 刪除紀錄並從統計中扣除，紀錄不存在時回傳 false
+    public boolean delete(long id) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long userId;
+            int score;
+            int accuracy;
+            int attention;
+            int meditation;
+            try (Cursor cursor = db.rawQuery(
+                    "SELECT user_id, score, accuracy, attention_avg, meditation_avg FROM game_records WHERE id = ?;",
+                    new String[] {String.valueOf(id)})) {
+                if (!cursor.moveToFirst()) {
+                    return false;
+                }
+                userId = cursor.getLong(0);
+                score = cursor.getInt(1);
+                accuracy = cursor.getInt(2);
+                attention = cursor.getInt(3);
+                meditation = cursor.getInt(4);
+            }
+            db.execSQL("DELETE FROM game_records WHERE id = ?;", new Object[] {id});
+
+            // 最佳分數與首末時間無法用減法還原，改由 user_id 索引範圍重新取得
+            long[] bounds = queryUserBounds(db, userId);
+            if (bounds == null) {
+                db.execSQL("DELETE FROM user_stats WHERE user_id = ?;", new Object[] {userId});
+            } else {
+                db.execSQL("UPDATE user_stats SET "
+                        + "record_count = record_count - 1,"
+                        + "score_sum = score_sum - ?,"
+                        + "accuracy_sum = accuracy_sum - ?,"
+                        + "attention_sum = attention_sum - ?,"
+                        + "meditation_sum = meditation_sum - ?,"
+                        + "best_score = ?,"
+                        + "first_played_at = ?,"
+                        + "last_played_at = ? "
+                        + "WHERE user_id = ?;",
+                        new Object[] {score, accuracy, attention, meditation,
+                                bounds[0], bounds[1], bounds[2], userId});
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // 以游標分頁，依時間由新到舊；beforePlayedAt < 0 表示從最新一筆開始。
+    // userName 為 null 時查詢所有使用者
+    public Page queryPage(String userName, long beforePlayedAt, long beforeId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder(
+                "SELECT r.id, u.name, r.played_at, r.completion_time, r.accuracy, r.attention_avg,"
+                + " r.brain_power, r.endurance, r.meditation_avg, r.score, r.stability,"
+                + " r.success_count, r.super_power, r.throw_count"
+                + " FROM game_records r JOIN users u ON u.id = r.user_id");
+        List<String> args = new ArrayList<>();
+        String separator = " WHERE ";
+        if (userName != null) {
+            sql.append(separator).append("r.user_id = (SELECT id FROM users WHERE name = ?)");
+            args.add(userName);
+            separator = " AND ";
+        }
+        if (beforePlayedAt >= 0) {
+            // 以 row value 比較，SQLite 可直接在索引上定位，不需要額外排序
+            sql.append(separator).append("(r.played_at, r.id) < (?, ?)");
+            args.add(String.valueOf(beforePlayedAt));
+            args.add(String.valueOf(beforeId));
+        }
+        // 多取一筆判斷是否還有下一頁
+        sql.append(" ORDER BY r.played_at DESC, r.id DESC LIMIT ").append(pageSize + 1).append(";");
+
+        Page page = new Page();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql.toString(), args.toArray(new String[0]))) {
+            while (cursor.moveToNext()) {
+                if (page.records.size() == pageSize) {
+                    page.hasMore = true;
+                    break;
+                }
+                Record record = new Record();
+                record.id = cursor.getLong(0);
+                record.userName = cursor.getString(1);
+                record.playedAt = cursor.getLong(2);
+                record.completionTime = cursor.getInt(3);
+                record.accuracy = cursor.getInt(4);
+                record.attentionAvg = cursor.getInt(5);
+                record.brainPower = cursor.getInt(6);
+                record.endurance = cursor.getInt(7);
+                record.meditationAvg = cursor.getInt(8);
+                record.score = cursor.getInt(9);
+                record.stability = cursor.getInt(10);
+                record.successCount = cursor.getInt(11);
+                record.superPower = cursor.getInt(12);
+                record.throwCount = cursor.getInt(13);
+                page.records.add(record);
+            }
+        }
+        return page;
+    }
+
+    // 所有使用者的統計，依最近遊戲時間排序；筆數與使用者數量成正比，與紀錄數量無關
+    public List<UserStats> queryUserStats(String userName) {
+        String sql = "SELECT u.name, s.record_count, s.score_sum, s.best_score, s.accuracy_sum,"
+                + " s.attention_sum, s.meditation_sum, s.first_played_at, s.last_played_at"
+                + " FROM user_stats s JOIN users u ON u.id = s.user_id";
+        String[] args = null;
+        if (userName != null) {
+            sql += " WHERE u.name = ?";
+            args = new String[] {userName};
+        }
+        sql += " ORDER BY s.last_played_at DESC;";
+
+        List<UserStats> result = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                UserStats stats = new UserStats();
+                stats.userName = cursor.getString(0);
+                stats.recordCount = cursor.getInt(1);
+                stats.scoreSum = cursor.getLong(2);
+                stats.bestScore = cursor.getInt(3);
+                stats.accuracySum = cursor.getLong(4);
+                stats.attentionSum = cursor.getLong(5);
+                stats.meditationSum = cursor.getLong(6);
+                stats.firstPlayedAt = cursor.getLong(7);
+                stats.lastPlayedAt = cursor.getLong(8);
+                result.add(stats);
+            }
+        }
+        return result;
+    }
+
+    private long insertInternal(SQLiteDatabase db, Record record) {
+        String userName = record.userName == null || record.userName.isEmpty() ? "Anonymous" : record.userName;
+        db.execSQL("INSERT OR IGNORE INTO users (name) VALUES (?);", new Object[] {userName});
+        long userId;
+        try (SQLiteStatement statement = db.compileStatement("SELECT id FROM users WHERE name = ?;")) {
+            statement.bindString(1, userName);
+            userId = statement.simpleQueryForLong();
+        }
+
+        long id;
+        try (SQLiteStatement statement = db.compileStatement("INSERT INTO game_records ("
+                + "user_id, played_at, completion_time, accuracy, attention_avg, brain_power, endurance,"
+                + " meditation_avg, score, stability, success_count, super_power, throw_count"
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);")) {
+            statement.bindLong(1, userId);
+            statement.bindLong(2, record.playedAt);
+            statement.bindLong(3, record.completionTime);
+            statement.bindLong(4, record.accuracy);
+            statement.bindLong(5, record.attentionAvg);
+            statement.bindLong(6, record.brainPower);
+            statement.bindLong(7, record.endurance);
+            statement.bindLong(8, record.meditationAvg);
+            statement.bindLong(9, record.score);
+            statement.bindLong(10, record.stability);
+            statement.bindLong(11, record.successCount);
+            statement.bindLong(12, record.superPower);
+            statement.bindLong(13, record.throwCount);
+            id = statement.executeInsert();
+        }
+
+        // minSdk 29 的 SQLite 尚不支援 UPSERT，先更新，沒有資料列時再新增
+        int updated;
+        try (SQLiteStatement statement = db.compileStatement("UPDATE user_stats SET "
+                + "record_count = record_count + 1,"
+                + "score_sum = score_sum + ?1,"
+                + "best_score = MAX(best_score, ?1),"
+                + "accuracy_sum = accuracy_sum + ?2,"
+                + "attention_sum = attention_sum + ?3,"
+                + "meditation_sum = meditation_sum + ?4,"
+                + "first_played_at = MIN(first_played_at, ?5),"
+                + "last_played_at = MAX(last_played_at, ?5) "
+                + "WHERE user_id = ?6;")) {
+            statement.bindLong(1, record.score);
+            statement.bindLong(2, record.accuracy);
+            statement.bindLong(3, record.attentionAvg);
+            statement.bindLong(4, record.meditationAvg);
+            statement.bindLong(5, record.playedAt);
+            statement.bindLong(6, userId);
+            updated = statement.executeUpdateDelete();
+        }
+        if (updated == 0) {
+            db.execSQL("INSERT INTO user_stats (user_id, record_count, score_sum, best_score, accuracy_sum,"
+                    + " attention_sum, meditation_sum, first_played_at, last_played_at)"
+                    + " VALUES (?, 1, ?, ?, ?, ?, ?, ?, ?);",
+                    new Object[] {userId, record.score, record.score, record.accuracy,
+                            record.attentionAvg, record.meditationAvg, record.playedAt, record.playedAt});
+        }
+        return id;
+    }
+
+    // 回傳 {bestScore, firstPlayedAt, lastPlayedAt}，使用者已沒有紀錄時回傳 null
+    private static long[] queryUserBounds(SQLiteDatabase db, long userId) {
+        try (Cursor cursor = db.rawQuery(
+                "SELECT MAX(score), MIN(played_at), MAX(played_at), COUNT(*) FROM game_records WHERE user_id = ?;",
+                new String[] {String.valueOf(userId)})) {
+            if (!cursor.moveToFirst() || cursor.getInt(3) == 0) {
+                return null;
+            }
+            return new long[] {cursor.getLong(0), cursor.getLong(1), cursor.getLong(2)};
+        }
+    }
+
+    // 舊版由 JS 透過 SQLite 外掛寫入，timestamp 為 ISO 字串、completionTime 為文字
+    private void importLegacyRecords(SQLiteDatabase db) {
+        File legacyFile = context.getDatabasePath(LEGACY_DB_NAME);
+        if (legacyFile == null || !legacyFile.exists()) {
+            return;
+        }
+        int imported = 0;
+        try (SQLiteDatabase legacy = SQLiteDatabase.openDatabase(legacyFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+             Cursor cursor = legacy.rawQuery("SELECT accuracy, attentionAvg, brainPower, endurance, meditationAvg,"
+                     + " score, stability, successCount, superPower, throwCount, userName, timestamp, completionTime"
+                     + " FROM game_records ORDER BY id;", null)) {
+            while (cursor.moveToNext()) {
+                Record record = new Record();
+                record.accuracy = cursor.getInt(0);
+                record.attentionAvg = cursor.getInt(1);
+                record.brainPower = cursor.getInt(2);
+                record.endurance = cursor.getInt(3);
+                record.meditationAvg = cursor.getInt(4);
+                record.score = cursor.getInt(5);
+                record.stability = cursor.getInt(6);
+                record.successCount = cursor.getInt(7);
+                record.superPower = cursor.getInt(8);
+                record.throwCount = cursor.getInt(9);
+                record.userName = cursor.getString(10);
+                record.playedAt = parseLegacyTimestamp(cursor.isNull(11) ? null : cursor.getString(11));
+                record.completionTime = cursor.getInt(12);
+                insertInternal(db, record);
+                imported++;
+            }
+            Log.i(TAG, "已匯入舊版遊戲紀錄: " + imported + " 筆");
+        } catch (Exception e) {
+            // 舊資料庫不存在 game_records 或格式不符時只略過匯入，不影響新資料庫建立
+            Log.w(TAG, "匯入舊版遊戲紀錄失敗: " + e.getMessage());
+        }
+    }
+
+    static long parseLegacyTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (Exception e) {
+            // 不是 ISO 格式時嘗試當作 epoch 毫秒
+        }
+        try {
+            return (long) Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
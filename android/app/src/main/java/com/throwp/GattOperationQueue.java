@@ -0,0 +1,186 @@
+package com.throwp;
+
+import android.bluetooth.BluetoothGatt;
+import android.os.Handler;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+
+// 序列化的 GATT 操作佇列
+// Android 同一時間只能有一個進行中的 GATT 操作，重疊的請求會被直接丟棄。
+// 每個操作在前一個完成（對應的 GATT 回調）或逾時後才開始，完成時呼叫各自的回調。
+// 逾時後藍牙堆疊可能仍在處理該請求，下一個操作會延遲 SETTLE_DELAY_MS 再開始，避免連續 START_FAILED。
+// 所有方法都必須在擷取執行緒上呼叫
+class GattOperationQueue {
+    private static final String TAG = "GattOperationQueue";
+
+    // 操作種類，用來比對 GATT 回調與目前的操作，忽略逾時後才到的回調
+    static final int KIND_MTU = 1;
+    static final int KIND_DISCOVER_SERVICES = 2;
+    static final int KIND_DESCRIPTOR_WRITE = 3;
+    static final int KIND_CHARACTERISTIC_WRITE = 4;
+
+    // 非 GATT 狀態碼的失敗原因
+    static final int STATUS_TIMEOUT = -1;
+    static final int STATUS_START_FAILED = -2;
+    static final int STATUS_CANCELLED = -3;
+
+    // 逾時後等待藍牙堆疊釋放的時間
+    static final long SETTLE_DELAY_MS = 300;
+
+    interface Operation {
+        // 送出 GATT 請求；回傳 false 表示請求未被接受
+        boolean start(BluetoothGatt gatt);
+    }
+
+    interface Callback {
+        void onComplete(int status);
+    }
+
+    private static final class Entry {
+        final int kind;
+        final long timeoutMs;
+        final Operation operation;
+        final Callback callback;
+
+        Entry(int kind, long timeoutMs, Operation operation, Callback callback) {
+            this.kind = kind;
+            this.timeoutMs = timeoutMs;
+            this.operation = operation;
+            this.callback = callback;
+        }
+    }
+
+    private final Handler handler;
+    private final BluetoothGatt gatt;
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private Entry current;
+    private boolean closed = false;
+    // 逾時後的等待期間，期間不開始新操作
+    private boolean settling = false;
+    private volatile long completed = 0;
+    private volatile long failed = 0;
+    private volatile long timeouts = 0;
+    private volatile int maxDepth = 0;
+    // 佇列深度（含進行中的操作），統計方法可從其他執行緒讀取
+    private volatile int depth = 0;
+    private final Runnable settleRunnable = () -> {
+        settling = false;
+        startNext();
+    };
+    private final Runnable timeoutRunnable = () -> {
+        if (current != null) {
+            Log.w(TAG, "GATT 操作逾時，種類: " + current.kind);
+            timeouts++;
+            complete(STATUS_TIMEOUT);
+        }
+    };
+
+    GattOperationQueue(Handler handler, BluetoothGatt gatt) {
+        this.handler = handler;
+        this.gatt = gatt;
+    }
+
+    void enqueue(int kind, long timeoutMs, Operation operation, Callback callback) {
+        if (closed) {
+            if (callback != null) {
+                callback.onComplete(STATUS_CANCELLED);
+            }
+            return;
+        }
+        pending.addLast(new Entry(kind, timeoutMs, operation, callback));
+        updateDepth();
+        maxDepth = Math.max(maxDepth, depth);
+        startNext();
+    }
+
+    // 由 GATT 回調呼叫；種類不符（例如逾時後才到的回調）時忽略
+    void onGattCallback(int kind, int status) {
+        if (current == null || current.kind != kind) {
+            return;
+        }
+        complete(status);
+    }
+
+    // 連線關閉時取消所有操作
+    void close() {
+        closed = true;
+        handler.removeCallbacks(timeoutRunnable);
+        handler.removeCallbacks(settleRunnable);
+        settling = false;
+        Entry active = current;
+        current = null;
+        if (active != null && active.callback != null) {
+            active.callback.onComplete(STATUS_CANCELLED);
+        }
+        while (!pending.isEmpty()) {
+            Entry entry = pending.pollFirst();
+            if (entry.callback != null) {
+                entry.callback.onComplete(STATUS_CANCELLED);
+            }
+        }
+        updateDepth();
+    }
+
+    int size() {
+        return depth;
+    }
+
+    long getCompleted() {
+        return completed;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+
+    long getTimeouts() {
+        return timeouts;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private void complete(int status) {
+        handler.removeCallbacks(timeoutRunnable);
+        Entry finished = current;
+        current = null;
+        if (status == STATUS_TIMEOUT) {
+            settling = true;
+            handler.postDelayed(settleRunnable, SETTLE_DELAY_MS);
+        }
+        if (status == BluetoothGatt.GATT_SUCCESS) {
+            completed++;
+        } else {
+            failed++;
+        }
+        updateDepth();
+        if (finished.callback != null) {
+            finished.callback.onComplete(status);
+        }
+        startNext();
+    }
+
+    private void updateDepth() {
+        depth = pending.size() + (current != null ? 1 : 0);
+    }
+
+    private void startNext() {
+        // 回調中可能再加入操作，每次都重新檢查 current
+        while (current == null && !closed && !settling && !pending.isEmpty()) {
+            Entry entry = pending.pollFirst();
+            current = entry;
+            if (entry.operation.start(gatt)) {
+                handler.postDelayed(timeoutRunnable, entry.timeoutMs);
+                return;
+            }
+            current = null;
+            updateDepth();
+            failed++;
+            if (entry.callback != null) {
+                entry.callback.onComplete(STATUS_START_FAILED);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.throwp;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 依事件類型分別統計「藍牙回調收到資料 → emit 到 JS」的延遲
+public class LatencyTracker {
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String eventName, long latencyNanos) {
+        LatencyHistogram histogram = histograms.get(eventName);
+        if (histogram == null) {
+            // 只在每種事件第一次出現時建立
+            histogram = histograms.computeIfAbsent(eventName, name -> new LatencyHistogram());
+        }
+        histogram.recordNanos(latencyNanos);
+    }
+
+    // 回傳各事件的 p50 / p95 / p99 / max（微秒）並重置
+    public WritableMap snapshotAndReset() {
+        WritableMap result = Arguments.createMap();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            WritableMap stats = Arguments.createMap();
+            synchronized (histogram) {
+                stats.putDouble("count", histogram.getCount());
+                stats.putDouble("meanUs", histogram.getMeanMicros());
+                stats.putDouble("p50Us", histogram.getPercentileMicros(50));
+                stats.putDouble("p95Us", histogram.getPercentileMicros(95));
+                stats.putDouble("p99Us", histogram.getPercentileMicros(99));
+                stats.putDouble("maxUs", histogram.getMaxMicros());
+                histogram.reset();
+            }
+            result.putMap(entry.getKey(), stats);
+        }
+        return result;
+    }
+}
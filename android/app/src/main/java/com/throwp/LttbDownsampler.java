@@ -0,0 +1,78 @@
+package com.throwp;
+
+// Largest-Triangle-Three-Buckets 降採樣
+// 保留第一與最後一點，其餘點平均分成 threshold - 2 個區間，每個區間選出與
+// 「上一個選中點」及「下一個區間平均點」構成最大三角形面積的點，保留峰值與轉折，
+// 畫成折線時與原始資料幾乎一樣。回傳選中的索引，呼叫者再取出對應的時間與數值
+public final class LttbDownsampler {
+    private LttbDownsampler() {
+    }
+
+    // x 需遞增；選中的索引依序寫入 outIndices（長度需 >= min(count, threshold)），回傳選中的數量。
+    // count <= threshold 或 threshold < 3 時不降採樣（threshold < 3 時只保留首尾）
+    public static int downsample(double[] x, double[] y, int count, int threshold, int[] outIndices) {
+        if (count <= 0) {
+            return 0;
+        }
+        if (count <= threshold) {
+            for (int i = 0; i < count; i++) {
+                outIndices[i] = i;
+            }
+            return count;
+        }
+        if (threshold < 3) {
+            outIndices[0] = 0;
+            if (threshold < 2 || count == 1) {
+                return 1;
+            }
+            outIndices[1] = count - 1;
+            return 2;
+        }
+
+        double bucketSize = (double) (count - 2) / (threshold - 2);
+        int selected = 0;
+        int previous = 0;
+        outIndices[selected++] = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // 目前區間 [start, end)
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            end = Math.min(end, count - 1);
+
+            // 下一個區間的平均點；最後一個區間以最後一點代替
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, count);
+            double avgX = 0;
+            double avgY = 0;
+            int nextCount = nextEnd - nextStart;
+            if (nextCount <= 0) {
+                avgX = x[count - 1];
+                avgY = y[count - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    avgX += x[i];
+                    avgY += y[i];
+                }
+                avgX /= nextCount;
+                avgY /= nextCount;
+            }
+
+            double px = x[previous];
+            double py = y[previous];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // 三角形面積的兩倍，只用來比較大小
+                double area = Math.abs((px - avgX) * (y[i] - py) - (px - x[i]) * (avgY - py));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            outIndices[selected++] = chosen;
+            previous = chosen;
+        }
+        outIndices[selected++] = count - 1;
+        return selected;
+    }
+}
@@ -11,6 +11,9 @@ import com.facebook.soloader.SoLoader
 import com.facebook.react.PackageList
 import com.throwp.NeuroSkyPackage 
 import com.throwp.ESP32Package 
+import com.throwp.ReportPdfPackage
+import com.throwp.GameHistoryPackage
+import com.throwp.SessionArchivePackage
 import org.pgsqlite.SQLitePluginPackage
 import com.christopherdro.htmltopdf.RNHTMLtoPDFPackage
 import com.rnfs.RNFSPackage
@@ -25,6 +28,9 @@ class MainApplication : Application(), ReactApplication {
           PackageList(this).packages.apply {
             add(NeuroSkyPackage())
             add(ESP32Package())
+            add(ReportPdfPackage())
+            add(GameHistoryPackage())
+            add(SessionArchivePackage())
             add(SQLitePluginPackage()) 
             add(RNHTMLtoPDFPackage())
             add(RNFSPackage())
@@ -6,12 +6,16 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.content.pm.PackageManager;
 import android.os.Build;
-import android.os.Looper;
+import android.os.HandlerThread;
+import android.os.Process;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
@@ -20,9 +24,16 @@ import com.facebook.react.modules.core.PermissionAwareActivity;
 import com.neurosky.thinkgear.*;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
+import android.util.Base64;
 import android.util.Log;
 import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.lang.reflect.Field;
 import android.content.Context;
 import android.content.SharedPreferences;
@@ -34,27 +45,91 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
     private static final int PERMISSION_REQUEST_CODE = 1001;
     private final ReactApplicationContext reactContext;
     private BluetoothAdapter bluetoothAdapter;
-    private TGDevice tgDevice;
+    private volatile TGDevice tgDevice;
     private static final String TARGET_DEVICE_NAME = "Alchemy";
     private BluetoothDevice lastConnectedDevice = null;
     private String lastSuccessfulAddress = null; // 保存最後一次成功連接的地址
-    private boolean isConnected = false;
+    // 連線狀態只在擷取執行緒上修改，volatile 讓其他執行緒可以直接讀取
+    private volatile boolean isConnected = false;
+    // 藍牙訊息與重試都在專用的擷取執行緒上處理，不與 UI 繪製競爭主執行緒
+    private final HandlerThread acquisitionThread;
     private Handler handler;
     private static NeuroSkyModule instance;
-    private static final int MAX_RETRY_COUNT = 10;  // 最大重試次數
-    private static final int INITIAL_RETRY_DELAY_MS = 2000;  // 初始重試延遲
-    private static final int MAX_RETRY_DELAY_MS = 30000;  // 最大重試延遲（30秒）
-    private int retryCount = 0;  // 當前重試次數
-    private int currentRetryDelay = INITIAL_RETRY_DELAY_MS;  // 當前重試延遲
-    private boolean isRetrying = false;  // 是否正在重試中
-    private Handler retryHandler = new Handler(Looper.getMainLooper());
-    private Runnable retryRunnable;
+    public static final String NAME = "NeuroSkyModule";
+    private static final String ACQUISITION_OWNER = "NeuroSky";
+    // 連線與重試狀態集中在狀態機，只在擷取執行緒上推進
+    private final ConnectionStateMachine connectionState = new ConnectionStateMachine();
+    private Handler retryHandler;
+    private final Runnable retryRunnable = this::connectInternal;
+    private final Runnable attemptTimeoutRunnable = this::onAttemptTimeout;
+    // EegSessionStore 通道對應的紀錄檔類型
+    private static final int[] RECORDING_TYPES = {
+            SessionFileRecorder.TYPE_ATTENTION, SessionFileRecorder.TYPE_MEDITATION,
+            SessionFileRecorder.TYPE_POOR_SIGNAL, SessionFileRecorder.TYPE_BANDS
+    };
+    // 原生樣本儲存：JS 以 session handle 分段讀取，避免在 JS heap 保存無限成長的陣列
+    private static final int MAX_SLICE_COUNT = 4096;
+    // 同時開啟的 session 上限，避免 JS 忘記 closeSession 時記憶體持續累積
+    private static final int MAX_OPEN_SESSIONS = 4;
+    private final Map<Integer, EegSessionStore> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSessionHandle = new AtomicInteger(1);
+    // 頭戴裝置連上時自動開啟的 session，持有前景服務期間 JS 即使沒有訂閱事件，樣本也留在原生端；
+    // 之後的連線沿用同一個 session，不計入 MAX_OPEN_SESSIONS
+    private volatile int acquisitionSessionHandle = -1;
+    private final int[] bandRow = new int[EegSessionStore.BAND_NAMES.length];
+    // 量測指標引擎，每個樣本 O(1) 更新
+    private final SessionMetricsEngine metricsEngine = new SessionMetricsEngine();
+    // 擷取時轉換 TGEegPower 用的暫存陣列，只在擷取執行緒上使用
+    private final int[] captureRow = new int[EegSessionStore.BAND_NAMES.length];
+    private static final String CAPTURE_DIR = "captures";
+    static final String RECORDING_DIR = "sessions";
+    private volatile TrafficReplayer replayer;
+    // 各事件類型從藍牙回調到 emit 的延遲統計
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    // 樣本事件的批次發送器（預設關閉）
+    private final EventBatcher eventBatcher;
+    // 原始腦波串流（預設關閉）：開啟後以 connect(true) 連線，樣本在原生端降頻後定時整批送出
+    private static final int DEFAULT_RAW_DECIMATION = 4;
+    private volatile boolean rawEnabled = false;
+    private volatile int rawBatchIntervalMs = 100;
+    private final RawEegBuffer rawBuffer = new RawEegBuffer(RawEegBuffer.DEFAULT_CAPACITY);
+    private final Runnable rawFlushRunnable = this::flushRawSamples;
+    // 頻帶功率引擎（預設關閉）：直接使用 512 Hz 原始樣本，同樣需要以原始模式連線。
+    // 引擎只在擷取執行緒上使用，重新設定時整個替換
+    private volatile boolean spectralEnabled = false;
+    private SpectralEngine spectralEngine = new SpectralEngine(RawEegBuffer.SAMPLE_RATE, 512, 128,
+            SpectralEngine.DEFAULT_BAND_EDGES);
+    private String[] spectralBandNames = SpectralEngine.DEFAULT_BAND_NAMES;
+    private double[][] spectralBandEdges = SpectralEngine.DEFAULT_BAND_EDGES;
+    // JS 設定的事件過濾管線（預設無），只影響送往 JS 的事件，紀錄與統計仍使用原始值。
+    // 管線只在擷取執行緒上使用與替換
+    private SignalPipeline attentionPipeline;
+    private SignalPipeline meditationPipeline;
+    private SignalPipeline poorSignalPipeline;
+    private SignalPipeline bandsPipeline;
+    private int lastPoorSignal = 0;
+    // 最新的單值樣本，供同步 getter 讓遊戲迴圈直接輪詢，不必在 JS 端以事件維護副本
+    private volatile int latestAttention = 0;
+    private volatile int latestMeditation = 0;
+    private volatile int latestPoorSignal = 200;
+    private volatile long latestSampleAt = 0;
+    private final double[] pipelineValue = new double[1];
+    private final double[] pipelineBands = new double[EegSessionStore.BAND_NAMES.length];
+    // 投擲與腦波狀態的對齊：ESP32Module 在投擲時呼叫 onThrow，對齊結果以 onThrowCorrelated 送出。
+    // 對齊器只在擷取執行緒上使用
+    private volatile boolean throwCorrelationEnabled = true;
+    private final ThrowCorrelator throwCorrelator = new ThrowCorrelator(ThrowCorrelator.DEFAULT_HISTORY);
+    private final Runnable throwCorrelationRunnable = this::resolveThrows;
 
     public NeuroSkyModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
         this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        this.handler = new Handler(Looper.getMainLooper(), handlerCallback);
+        this.acquisitionThread = new HandlerThread("NeuroSkyAcquisition", Process.THREAD_PRIORITY_MORE_FAVORABLE);
+        this.acquisitionThread.start();
+        this.handler = new Handler(acquisitionThread.getLooper(), handlerCallback);
+        this.retryHandler = new Handler(acquisitionThread.getLooper());
+        this.eventBatcher = new EventBatcher("onNeuroSkyBatch", handler, this::emitEvent, latencyTracker);
         instance = this;
 
         // 讀取保存的設備地址
@@ -70,18 +145,67 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
 
     @Override
     public String getName() {
-        return "NeuroSkyModule";
+        return NAME;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        handler.post(() -> {
+            cancelRetry();
+            if (tgDevice != null) {
+                tgDevice.close();
+                tgDevice = null;
+            }
+            isConnected = false;
+        });
+        AcquisitionService.release(reactContext, ACQUISITION_OWNER);
+        stopReplay();
+        acquisitionThread.quitSafely();
+        if (instance == this) {
+            instance = null;
+        }
     }
 
     private final Handler.Callback handlerCallback = new Handler.Callback() {
         @Override
         public boolean handleMessage(Message msg) {
+            long receivedNanos = SystemClock.elapsedRealtimeNanos();
+            // 重播的訊息不再寫回擷取檔，也不影響連線狀態
+            boolean replayed = msg.obj instanceof ReplayedMessage;
+            Object payload = replayed ? ((ReplayedMessage) msg.obj).payload : msg.obj;
+            TrafficRecorder recorder = TrafficRecorder.active();
+            if (recorder != null && !replayed) {
+                int[] power = null;
+                if (payload instanceof TGEegPower) {
+                    power = toPowerRow((TGEegPower) payload, captureRow);
+                }
+                recorder.recordMessage(receivedNanos, msg.what, msg.arg1, msg.arg2, power);
+            }
+
+            if (msg.what == TGDevice.MSG_RAW_DATA) {
+                // 512 Hz 的原始樣本只進緩衝區，不為每個樣本配置事件物件
+                if (rawEnabled) {
+                    rawBuffer.add(msg.arg1, receivedNanos);
+                }
+                if (spectralEnabled && spectralEngine.add(msg.arg1)) {
+                    sendSpectralBands(receivedNanos);
+                }
+                return true;
+            }
+
             WritableMap params = Arguments.createMap();
 
             switch (msg.what) {
                 case TGDevice.MSG_STATE_CHANGE:
+                    if (replayed) {
+                        sendReplayedState(msg.arg1, params, receivedNanos);
+                        break;
+                    }
                     switch (msg.arg1) {
                         case TGDevice.STATE_CONNECTED:
+                            retryHandler.removeCallbacks(attemptTimeoutRunnable);
+                            connectionState.onConnected(SystemClock.elapsedRealtime());
                             isConnected = true;
                             // 保存成功連接的設備地址
                             if (lastConnectedDevice != null) {
@@ -91,8 +215,11 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
                                 Log.i(TAG, "保存成功連接的設備地址: " + lastSuccessfulAddress);
                             }
                             Log.i(TAG, "設備已連接");
+                            // 連上後由前景服務維持擷取，切換畫面或進入背景時不中斷
+                            AcquisitionService.acquire(reactContext, ACQUISITION_OWNER);
+                            ensureAcquisitionSession();
                             params.putString("state", "CONNECTED");
-                            sendEvent("onStateChange", params);
+                            sendEvent("onStateChange", params, receivedNanos);
                             // 連接成功後自動開始監測
                             if (tgDevice != null) {
                                 Log.i(TAG, "自動開始監測數據");
@@ -103,29 +230,36 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
                             isConnected = false;
                             Log.i(TAG, "設備已斷開連接");
                             params.putString("state", "DISCONNECTED");
-                            sendEvent("onStateChange", params);
-                            // 設備斷開時嘗試重新連接
-                            if (tgDevice != null && !isRetrying) {
-                                Log.i(TAG, "設備斷開，開始重試連接");
-                                scheduleRetry();
+                            sendEvent("onStateChange", params, receivedNanos);
+                            // 設備斷開時嘗試重新連接；手動斷開後狀態機已回到 IDLE，不會重試。
+                            // 連線途中斷開視為嘗試失敗，與其他失敗一樣在達到上限時釋放前景服務
+                            if (tgDevice != null) {
+                                if (connectionState.getState() == ConnectionStateMachine.State.CONNECTING) {
+                                    onAttemptFailed();
+                                } else {
+                                    scheduleRetry(connectionState.onConnectionLost(SystemClock.elapsedRealtime()));
+                                }
                             }
                             break;
                         case TGDevice.STATE_CONNECTING:
                             Log.i(TAG, "正在連接設備...");
                             params.putString("state", "CONNECTING");
-                            sendEvent("onStateChange", params);
+                            sendEvent("onStateChange", params, receivedNanos);
                             break;
                         case TGDevice.STATE_NOT_FOUND:
                             Log.e(TAG, "錯誤：找不到設備");
                             params.putString("error", "找不到設備");
-                            sendEvent("onError", params);
-                            // 找不到設備時嘗試重新連接
-                            scheduleRetry();
+                            sendEvent("onError", params, receivedNanos);
+                            // 找不到設備時嘗試重新連接；與斷線事件重複時狀態機會忽略
+                            onAttemptFailed();
                             break;
                         case TGDevice.STATE_NOT_PAIRED:
                             Log.e(TAG, "錯誤：設備未配對");
                             params.putString("error", "設備未配對");
-                            sendEvent("onError", params);
+                            sendEvent("onError", params, receivedNanos);
+                            // 未配對重試也無法成功，停止重試
+                            cancelRetry();
+                            AcquisitionService.release(reactContext, ACQUISITION_OWNER);
                             break;
                         default:
                             break;
@@ -133,37 +267,90 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
                     break;
 
                 case TGDevice.MSG_POOR_SIGNAL:
-                    params.putString("signal", "POOR_SIGNAL");
-                    params.putInt("value", msg.arg1);
-                    sendEvent("onSignalChange", params);
+                    for (EegSessionStore session : sessions.values()) {
+                        session.appendPoorSignal(System.currentTimeMillis(), msg.arg1);
+                    }
+                    recordSample(SessionFileRecorder.TYPE_POOR_SIGNAL, msg.arg1);
+                    lastPoorSignal = msg.arg1;
+                    latestPoorSignal = msg.arg1;
+                    if (putPipelineValue(poorSignalPipeline, params, msg.arg1, receivedNanos)) {
+                        params.putString("signal", "POOR_SIGNAL");
+                        sendSampleEvent("onSignalChange", params, receivedNanos);
+                    }
                     break;
 
                 case TGDevice.MSG_ATTENTION:
                     //Log.d(TAG, "專注度: " + msg.arg1);
-                    params.putString("signal", "ATTENTION");
-                    params.putInt("value", msg.arg1);
-                    sendEvent("onSignalChange", params);
+                    for (EegSessionStore session : sessions.values()) {
+                        session.appendAttention(System.currentTimeMillis(), msg.arg1);
+                    }
+                    metricsEngine.addAttention(msg.arg1);
+                    latestAttention = msg.arg1;
+                    latestSampleAt = SystemClock.elapsedRealtime();
+                    throwCorrelator.addAttention(receivedNanos, msg.arg1);
+                    resolveThrows();
+                    recordSample(SessionFileRecorder.TYPE_ATTENTION, msg.arg1);
+                    if (putPipelineValue(attentionPipeline, params, msg.arg1, receivedNanos)) {
+                        params.putString("signal", "ATTENTION");
+                        sendSampleEvent("onSignalChange", params, receivedNanos);
+                    }
                     break;
 
                 case TGDevice.MSG_MEDITATION:
                     //Log.d(TAG, "冥想度: " + msg.arg1);
-                    params.putString("signal", "MEDITATION");
-                    params.putInt("value", msg.arg1);
-                    sendEvent("onSignalChange", params);
+                    for (EegSessionStore session : sessions.values()) {
+                        session.appendMeditation(System.currentTimeMillis(), msg.arg1);
+                    }
+                    metricsEngine.addMeditation(msg.arg1);
+                    latestMeditation = msg.arg1;
+                    latestSampleAt = SystemClock.elapsedRealtime();
+                    throwCorrelator.addMeditation(receivedNanos, msg.arg1);
+                    resolveThrows();
+                    recordSample(SessionFileRecorder.TYPE_MEDITATION, msg.arg1);
+                    if (putPipelineValue(meditationPipeline, params, msg.arg1, receivedNanos)) {
+                        params.putString("signal", "MEDITATION");
+                        sendSampleEvent("onSignalChange", params, receivedNanos);
+                    }
                     break;
 
                 case TGDevice.MSG_EEG_POWER:
-                    TGEegPower power = (TGEegPower)msg.obj;
+                    TGEegPower power = (TGEegPower) payload;
                     if (power != null) {
-                        WritableMap eegParams = Arguments.createMap();
-                        eegParams.putInt("delta", power.delta);
-                        eegParams.putInt("theta", power.theta);
-                        eegParams.putInt("lowAlpha", power.lowAlpha);
-                        eegParams.putInt("highAlpha", power.highAlpha);
-                        eegParams.putInt("lowBeta", power.lowBeta);
-                        eegParams.putInt("highBeta", power.highBeta);
-                        eegParams.putInt("lowGamma", power.lowGamma);
-                        eegParams.putInt("midGamma", power.midGamma);
+                        toPowerRow(power, bandRow);
+                        long now = System.currentTimeMillis();
+                        for (EegSessionStore session : sessions.values()) {
+                            session.appendBands(now, bandRow);
+                        }
+                        metricsEngine.addBands(bandRow);
+                        throwCorrelator.addBands(receivedNanos, bandRow);
+                        resolveThrows();
+                        SessionFileRecorder sessionRecorder = SessionFileRecorder.active();
+                        if (sessionRecorder != null) {
+                            sessionRecorder.append(SessionFileRecorder.TYPE_BANDS, bandRow);
+                        }
+                        WritableMap eegParams;
+                        if (bandsPipeline == null) {
+                            eegParams = Arguments.createMap();
+                            eegParams.putInt("delta", power.delta);
+                            eegParams.putInt("theta", power.theta);
+                            eegParams.putInt("lowAlpha", power.lowAlpha);
+                            eegParams.putInt("highAlpha", power.highAlpha);
+                            eegParams.putInt("lowBeta", power.lowBeta);
+                            eegParams.putInt("highBeta", power.highBeta);
+                            eegParams.putInt("lowGamma", power.lowGamma);
+                            eegParams.putInt("midGamma", power.midGamma);
+                        } else {
+                            for (int i = 0; i < bandRow.length; i++) {
+                                pipelineBands[i] = bandRow[i];
+                            }
+                            if (!bandsPipeline.process(receivedNanos / 1_000_000L, pipelineBands, lastPoorSignal)) {
+                                break;
+                            }
+                            eegParams = Arguments.createMap();
+                            for (int i = 0; i < pipelineBands.length; i++) {
+                                eegParams.putDouble(EegSessionStore.BAND_NAMES[i], pipelineBands[i]);
+                            }
+                        }
 
                         // 輸出所有 EEG 參數
                         // Log.d("NeuroSky", String.format(
@@ -173,7 +360,7 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
                         //     power.lowBeta, power.highBeta, power.lowGamma, power.midGamma
                         // ));
 
-                        sendEvent("onEegPower", eegParams);
+                        sendSampleEvent("onEegPower", eegParams, receivedNanos);
                     }
                     break;
 
@@ -184,47 +371,226 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
         }
     };
 
-    private void resetRetryParams() {
-        retryCount = 0;
-        currentRetryDelay = INITIAL_RETRY_DELAY_MS;
-        isRetrying = false;
-        if (retryRunnable != null) {
-            retryHandler.removeCallbacks(retryRunnable);
+    // 由 ESP32Module 在送出投擲事件時呼叫（任意執行緒），throwNanos 為通知在 GATT 回調收到的時間。
+    // 投擲先進入等待佇列，收到之後的腦波樣本或等待逾時時才送出 onThrowCorrelated
+    void onThrow(long throwNanos, boolean cast, boolean castBig, int sequence,
+                 @Nullable String stationId, int stationIndex) {
+        if (!throwCorrelationEnabled) {
+            // 對齊關閉時立即送出，各通道皆為 null
+            handler.post(() -> {
+                ThrowCorrelator.Correlation correlation = new ThrowCorrelator.Correlation();
+                correlation.throwNanos = throwNanos;
+                correlation.cast = cast;
+                correlation.castBig = castBig;
+                correlation.sequence = sequence;
+                correlation.stationId = stationId;
+                correlation.stationIndex = stationIndex;
+                correlationListener.onCorrelated(correlation);
+            });
+            return;
         }
+        handler.post(() -> {
+            throwCorrelator.addThrow(throwNanos, cast, castBig, sequence, stationId, stationIndex, correlationListener);
+            if (isHeadsetAbsent()) {
+                // 沒有頭戴裝置時不會有後續樣本，不必等待 maxWait
+                throwCorrelator.resolveAll(correlationListener);
+            } else {
+                resolveThrows();
+            }
+        });
+        handler.postDelayed(throwCorrelationRunnable, throwCorrelator.getMaxWaitNanos() / 1_000_000L + 1);
     }
 
-    private void scheduleRetry() {
-        if (retryCount >= MAX_RETRY_COUNT) {
-            Log.i(TAG, "已達到最大重試次數，停止重試");
-            resetRetryParams();
-            return;
+    // 既未連線也沒有在重播時，不會再收到腦波樣本
+    private boolean isHeadsetAbsent() {
+        TrafficReplayer current = replayer;
+        return !isConnected && (current == null || !current.isRunning());
+    }
+
+    private void resolveThrows() {
+        if (throwCorrelator.getPendingCount() > 0) {
+            throwCorrelator.resolveReady(SystemClock.elapsedRealtimeNanos(), correlationListener);
         }
+    }
 
-        if (isRetrying) {
-            return;  // 已經在重試中
+    // onThrowCorrelated：投擲資訊加上 attention、meditation、bands 三個通道的對齊結果，
+    // 每個通道包含 nearest（最接近的樣本）、interpolated（前後樣本內插）、offsetMs（nearest 相對投擲的時間）
+    // 與 bracketed（是否有投擲前後的樣本）；沒有腦波樣本的通道為 null
+    private final ThrowCorrelator.Listener correlationListener = correlation -> {
+        WritableMap params = Arguments.createMap();
+        params.putString("type", "throw");
+        params.putBoolean("cast", correlation.cast);
+        params.putBoolean("castbig", correlation.castBig);
+        params.putInt("sequence", correlation.sequence);
+        if (correlation.stationId != null) {
+            params.putString("stationId", correlation.stationId);
+            params.putInt("stationIndex", correlation.stationIndex);
         }
 
-        isRetrying = true;
-        retryCount++;
-        
-        // 使用指數退避策略增加重試間隔
-        currentRetryDelay = Math.min(currentRetryDelay * 2, MAX_RETRY_DELAY_MS);
-        
-        Log.i(TAG, "安排第 " + retryCount + " 次重試，延遲: " + currentRetryDelay + "ms");
-        
-        retryRunnable = new Runnable() {
-            @Override
-            public void run() {
-                isRetrying = false;
-                connect();  // 重試連接
+        if (correlation.available[ThrowCorrelator.CHANNEL_ATTENTION]) {
+            WritableMap attention = correlationChannel(correlation, ThrowCorrelator.CHANNEL_ATTENTION);
+            attention.putInt("nearest", correlation.attentionNearest);
+            attention.putDouble("interpolated", correlation.attentionInterpolated);
+            params.putMap("attention", attention);
+        } else {
+            params.putNull("attention");
+        }
+        if (correlation.available[ThrowCorrelator.CHANNEL_MEDITATION]) {
+            WritableMap meditation = correlationChannel(correlation, ThrowCorrelator.CHANNEL_MEDITATION);
+            meditation.putInt("nearest", correlation.meditationNearest);
+            meditation.putDouble("interpolated", correlation.meditationInterpolated);
+            params.putMap("meditation", meditation);
+        } else {
+            params.putNull("meditation");
+        }
+        if (correlation.available[ThrowCorrelator.CHANNEL_BANDS]) {
+            WritableMap bands = correlationChannel(correlation, ThrowCorrelator.CHANNEL_BANDS);
+            WritableMap nearest = Arguments.createMap();
+            WritableMap interpolated = Arguments.createMap();
+            for (int i = 0; i < EegSessionStore.BAND_NAMES.length; i++) {
+                nearest.putInt(EegSessionStore.BAND_NAMES[i], correlation.bandsNearest[i]);
+                interpolated.putDouble(EegSessionStore.BAND_NAMES[i], correlation.bandsInterpolated[i]);
             }
-        };
-        
-        retryHandler.postDelayed(retryRunnable, currentRetryDelay);
+            bands.putMap("nearest", nearest);
+            bands.putMap("interpolated", interpolated);
+            params.putMap("bands", bands);
+        } else {
+            params.putNull("bands");
+        }
+        sendSampleEvent("onThrowCorrelated", params, correlation.throwNanos);
+    };
+
+    private static WritableMap correlationChannel(ThrowCorrelator.Correlation correlation, int channel) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("offsetMs", correlation.nearestOffsetMs[channel]);
+        map.putBoolean("bracketed", correlation.bracketed[channel]);
+        return map;
+    }
+
+    // 設定投擲對齊：enabled、maxWaitMs（等待投擲之後腦波樣本的最長時間，預設 1500）
+    @ReactMethod
+    public void configureThrowCorrelation(ReadableMap options) {
+        if (options.hasKey("enabled")) {
+            throwCorrelationEnabled = options.getBoolean("enabled");
+        }
+        if (options.hasKey("maxWaitMs")) {
+            long maxWaitNanos = (long) (options.getDouble("maxWaitMs") * 1_000_000L);
+            handler.post(() -> throwCorrelator.setMaxWaitNanos(maxWaitNanos));
+        }
+        Log.i(TAG, "投擲對齊: " + throwCorrelationEnabled);
+    }
+
+    @ReactMethod
+    public void getThrowCorrelationStats(Promise promise) {
+        handler.post(() -> {
+            WritableMap stats = Arguments.createMap();
+            stats.putBoolean("enabled", throwCorrelationEnabled);
+            stats.putDouble("maxWaitMs", throwCorrelator.getMaxWaitNanos() / 1_000_000.0);
+            stats.putInt("pending", throwCorrelator.getPendingCount());
+            stats.putDouble("correlated", throwCorrelator.getCorrelatedCount());
+            stats.putDouble("timedOut", throwCorrelator.getTimedOutCount());
+            stats.putDouble("overflow", throwCorrelator.getOverflowCount());
+            promise.resolve(stats);
+        });
+    }
+
+    // 單值通道套用過濾管線並放入 value；回傳 false 表示這個樣本被過濾，不送出事件。
+    // 沒有管線時維持原本的整數值
+    private boolean putPipelineValue(SignalPipeline pipeline, WritableMap params, int value, long receivedNanos) {
+        if (pipeline == null) {
+            params.putInt("value", value);
+            return true;
+        }
+        pipelineValue[0] = value;
+        if (!pipeline.process(receivedNanos / 1_000_000L, pipelineValue, lastPoorSignal)) {
+            return false;
+        }
+        params.putDouble("value", pipelineValue[0]);
+        return true;
+    }
+
+    // 啟用檔案紀錄時追加一筆單值樣本
+    private static void recordSample(int type, int value) {
+        SessionFileRecorder recorder = SessionFileRecorder.active();
+        if (recorder != null) {
+            recorder.append(type, value);
+        }
+    }
+
+    private static int[] toPowerRow(TGEegPower power, int[] row) {
+        row[0] = power.delta;
+        row[1] = power.theta;
+        row[2] = power.lowAlpha;
+        row[3] = power.highAlpha;
+        row[4] = power.lowBeta;
+        row[5] = power.highBeta;
+        row[6] = power.lowGamma;
+        row[7] = power.midGamma;
+        return row;
+    }
+
+    private void cancelRetry() {
+        connectionState.cancel();
+        retryHandler.removeCallbacks(retryRunnable);
+        retryHandler.removeCallbacks(attemptTimeoutRunnable);
+    }
+
+    private void onAttemptFailed() {
+        retryHandler.removeCallbacks(attemptTimeoutRunnable);
+        boolean wasConnecting = connectionState.getState() == ConnectionStateMachine.State.CONNECTING;
+        long delayMs = connectionState.onAttemptFailed(SystemClock.elapsedRealtime());
+        if (wasConnecting && delayMs < 0) {
+            Log.i(TAG, "已達到最大重試次數，停止重試");
+            AcquisitionService.release(reactContext, ACQUISITION_OWNER);
+        }
+        scheduleRetry(delayMs);
+    }
+
+    // 連線嘗試超過期限仍未連上（TGDevice 沒有回報任何結果）：關閉卡住的連線，交由狀態機排程重試
+    private void onAttemptTimeout() {
+        long now = SystemClock.elapsedRealtime();
+        if (!connectionState.isAttemptExpired(now)) {
+            return;
+        }
+        Log.w(TAG, "連線嘗試逾時（" + ConnectionStateMachine.ATTEMPT_TIMEOUT_MS + "ms），關閉後重試");
+        if (tgDevice != null) {
+            tgDevice.close();
+            tgDevice = null;
+        }
+        WritableMap params = Arguments.createMap();
+        params.putString("error", "連線逾時");
+        sendEvent("onError", params);
+        long delayMs = connectionState.onAttemptTimeout(now);
+        if (delayMs < 0) {
+            Log.i(TAG, "已達到最大重試次數，停止重試");
+            AcquisitionService.release(reactContext, ACQUISITION_OWNER);
+        }
+        scheduleRetry(delayMs);
+    }
+
+    // delayMs < 0 表示不需要重試（重複事件、已手動斷開或已達最大次數）
+    private void scheduleRetry(long delayMs) {
+        if (delayMs < 0) {
+            return;
+        }
+        retryHandler.removeCallbacks(retryRunnable);
+        Log.i(TAG, "安排第 " + (connectionState.getFailedInRow() + 1) + " 次重試，延遲: " + delayMs + "ms");
+        retryHandler.postDelayed(retryRunnable, delayMs);
     }
 
+    // 連線相關狀態都限定在擷取執行緒上存取
     @ReactMethod
     public void connect() {
+        handler.post(() -> connectInternal(true));
+    }
+
+    // 重試排程使用，不取代進行中的嘗試
+    private void connectInternal() {
+        connectInternal(false);
+    }
+
+    // userRequested 為 true 時，已逾期的嘗試會被取消並重新開始
+    private void connectInternal(boolean userRequested) {
         if (isConnected && tgDevice != null) {
             WritableMap params = Arguments.createMap();
             params.putString("state", "CONNECTED");
@@ -232,9 +598,17 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
             return;
         }
 
+        // 同一時間只允許一次嘗試，避免在連線途中重建 TGDevice
+        retryHandler.removeCallbacks(retryRunnable);
+        if (!connectionState.beginAttempt(SystemClock.elapsedRealtime(), userRequested)) {
+            Log.i(TAG, "連線嘗試進行中，忽略重複的連接請求");
+            return;
+        }
+
         // 檢查藍牙權限
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
             if (!checkBluetoothPermissions()) {
+                connectionState.cancel();
                 requestBluetoothPermissions();
                 return;
             }
@@ -249,6 +623,7 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
                 WritableMap params = Arguments.createMap();
                 params.putString("error", "藍牙未啟用");
                 sendEvent("onError", params);
+                connectionState.cancel();
                 return;
             }
 
@@ -294,7 +669,7 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
                 WritableMap params = Arguments.createMap();
                 params.putString("error", "找不到 Alchemy 設備，請確保已配對");
                 sendEvent("onError", params);
-                scheduleRetry();
+                onAttemptFailed();
                 return;
             }
 
@@ -305,15 +680,12 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
             WritableMap params = Arguments.createMap();
             params.putString("error", "連接時發生錯誤: " + e.getMessage());
             sendEvent("onError", params);
-            scheduleRetry();
+            onAttemptFailed();
         }
     }
 
     private void connectToDevice(BluetoothDevice device) {
         try {
-            // 重置重試參數
-            resetRetryParams();
-
             // 如果已有設備實例，先關閉
             if (tgDevice != null) {
                 tgDevice.close();
@@ -325,7 +697,10 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
             
             // 創建新的 TGDevice 並連接
             tgDevice = new TGDevice(bluetoothAdapter, handler);
-            tgDevice.connect(false);
+            tgDevice.connect(isRawStreamRequired());  // 原始模式需要在連線時開啟
+            // 期限內沒有連上或回報失敗時由 onAttemptTimeout 處理
+            retryHandler.removeCallbacks(attemptTimeoutRunnable);
+            retryHandler.postDelayed(attemptTimeoutRunnable, ConnectionStateMachine.ATTEMPT_TIMEOUT_MS);
 
             WritableMap params = Arguments.createMap();
             params.putString("state", "CONNECTING");
@@ -338,18 +713,23 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
             WritableMap params = Arguments.createMap();
             params.putString("error", "連接設備失敗: " + e.getMessage());
             sendEvent("onError", params);
-            scheduleRetry();
+            onAttemptFailed();
         }
     }
 
     @ReactMethod
     public void disconnect() {
-        resetRetryParams();  // 手動斷開時重置重試參數
+        handler.post(this::disconnectInternal);
+    }
+
+    private void disconnectInternal() {
+        cancelRetry();  // 手動斷開時取消重試
         if (tgDevice != null) {
             tgDevice.close();
             tgDevice = null;
         }
         isConnected = false;
+        AcquisitionService.release(reactContext, ACQUISITION_OWNER);
         WritableMap params = Arguments.createMap();
         params.putString("state", "DISCONNECTED");
         sendEvent("onStateChange", params);
@@ -358,16 +738,807 @@ public class NeuroSkyModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getConnectionStatus(Promise promise) {
         try {
-            WritableMap status = Arguments.createMap();
-            status.putBoolean("isConnected", isConnected);
-            status.putBoolean("hasDevice", tgDevice != null);
-            promise.resolve(status);
+            promise.resolve(buildConnectionStatus());
         } catch (Exception e) {
             promise.reject("ERROR", e.getMessage());
         }
     }
 
+    // 同步版本：直接讀取 volatile 欄位，不經過 Promise 往返
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getConnectionStatusSync() {
+        return buildConnectionStatus();
+    }
+
+    private WritableMap buildConnectionStatus() {
+        WritableMap status = Arguments.createMap();
+        status.putBoolean("isConnected", isConnected);
+        status.putBoolean("hasDevice", tgDevice != null);
+        status.putString("state", connectionState.getState().name());
+        status.putBoolean("acquisitionService", AcquisitionService.isRunning());
+        return status;
+    }
+
+    // 同步回傳最新的專注度、冥想度與訊號品質；ageMs 為距離最近一個樣本的時間（尚無樣本時為 -1）
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getLatestValues() {
+        long sampleAt = latestSampleAt;
+        WritableMap values = Arguments.createMap();
+        values.putInt("attention", latestAttention);
+        values.putInt("meditation", latestMeditation);
+        values.putInt("poorSignal", latestPoorSignal);
+        values.putDouble("ageMs", sampleAt == 0 ? -1 : SystemClock.elapsedRealtime() - sampleAt);
+        values.putBoolean("isConnected", isConnected);
+        return values;
+    }
+
+    // 重新連線統計：嘗試次數與斷線到重新連上所需的時間
+    @ReactMethod
+    public void getReconnectStats(Promise promise) {
+        try {
+            WritableMap stats = Arguments.createMap();
+            stats.putString("state", connectionState.getState().name());
+            stats.putInt("failedInRow", connectionState.getFailedInRow());
+            stats.putDouble("attempts", connectionState.getTotalAttempts());
+            stats.putDouble("failedAttempts", connectionState.getFailedAttempts());
+            stats.putDouble("givenUp", connectionState.getGivenUp());
+            stats.putDouble("timedOut", connectionState.getTimedOut());
+            stats.putDouble("connects", connectionState.getConnects());
+            stats.putDouble("reconnects", connectionState.getReconnects());
+            stats.putDouble("lastConnectMs", connectionState.getLastConnectMs());
+            stats.putDouble("lastReconnectMs", connectionState.getLastReconnectMs());
+            stats.putInt("lastReconnectAttempts", connectionState.getLastReconnectAttempts());
+            stats.putDouble("maxReconnectMs", connectionState.getMaxReconnectMs());
+            stats.putDouble("p50ReconnectMs", connectionState.getReconnectPercentileMs(50));
+            stats.putDouble("p95ReconnectMs", connectionState.getReconnectPercentileMs(95));
+            promise.resolve(stats);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // 開啟一個新的原生樣本儲存，回傳 session handle。
+    // capacity <= 0 時使用預設容量，超過 EegSessionStore.MAX_CAPACITY 時限制在上限；
+    // 已開啟 MAX_OPEN_SESSIONS 個 session 時拒絕
+    @ReactMethod
+    public void openSession(int capacity, Promise promise) {
+        try {
+            int actualCapacity = capacity > 0
+                    ? Math.min(capacity, EegSessionStore.MAX_CAPACITY) : EegSessionStore.DEFAULT_CAPACITY;
+            if (actualCapacity < capacity) {
+                Log.w(TAG, "session 容量 " + capacity + " 超過上限，改為 " + actualCapacity);
+            }
+            int handle;
+            synchronized (sessions) {
+                int openByJs = sessions.size() - (sessions.containsKey(acquisitionSessionHandle) ? 1 : 0);
+                if (openByJs >= MAX_OPEN_SESSIONS) {
+                    promise.reject("TOO_MANY_SESSIONS", "已開啟 " + sessions.size() + " 個 session，請先 closeSession");
+                    return;
+                }
+                handle = nextSessionHandle.getAndIncrement();
+                sessions.put(handle, new EegSessionStore(handle, actualCapacity, System.currentTimeMillis()));
+            }
+            Log.i(TAG, "開啟樣本儲存 session: " + handle + "，容量: " + actualCapacity);
+            promise.resolve(handle);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    private void ensureAcquisitionSession() {
+        synchronized (sessions) {
+            if (sessions.containsKey(acquisitionSessionHandle)) {
+                return;
+            }
+            int handle = nextSessionHandle.getAndIncrement();
+            sessions.put(handle, new EegSessionStore(handle, EegSessionStore.DEFAULT_CAPACITY, System.currentTimeMillis()));
+            acquisitionSessionHandle = handle;
+            Log.i(TAG, "開啟擷取 session: " + handle);
+        }
+    }
+
+    // 回傳自動開啟的擷取 session handle，尚未連上過頭戴裝置時為 -1；
+    // JS 離開畫面時記下各通道的 next，回到畫面後以 getSessionSlice 補讀期間的樣本
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getAcquisitionSession() {
+        int handle = acquisitionSessionHandle;
+        return sessions.containsKey(handle) ? handle : -1;
+    }
+
+    @ReactMethod
+    public void closeSession(int handle) {
+        if (sessions.remove(handle) != null) {
+            Log.i(TAG, "關閉樣本儲存 session: " + handle);
+        }
+    }
+
+    @ReactMethod
+    public void getSessionInfo(int handle, Promise promise) {
+        EegSessionStore session = sessions.get(handle);
+        if (session == null) {
+            promise.reject("NO_SESSION", "找不到 session: " + handle);
+            return;
+        }
+        WritableMap info = Arguments.createMap();
+        info.putInt("handle", handle);
+        info.putDouble("startedAt", session.getStartedAt());
+        for (int channel = 0; channel < EegSessionStore.CHANNEL_NAMES.length; channel++) {
+            SampleRingBuffer buffer = session.getChannel(channel);
+            WritableMap channelInfo = Arguments.createMap();
+            channelInfo.putInt("capacity", buffer.getCapacity());
+            channelInfo.putInt("size", buffer.size());
+            channelInfo.putDouble("oldest", buffer.getOldestSequence());
+            channelInfo.putDouble("next", buffer.getWriteSequence());
+            info.putMap(EegSessionStore.CHANNEL_NAMES[channel], channelInfo);
+        }
+        promise.resolve(info);
+    }
+
+    // 讀取 fromSequence 之後的一段樣本；回傳的 next 可作為下一次讀取的游標
+    @ReactMethod
+    public void getSessionSlice(int handle, String channelName, double fromSequence, int maxCount, Promise promise) {
+        EegSessionStore session = sessions.get(handle);
+        if (session == null) {
+            promise.reject("NO_SESSION", "找不到 session: " + handle);
+            return;
+        }
+        int channel = EegSessionStore.channelFromName(channelName);
+        if (channel < 0) {
+            promise.reject("INVALID_CHANNEL", "未知的通道: " + channelName);
+            return;
+        }
+        SampleRingBuffer buffer = session.getChannel(channel);
+        int limit = Math.max(0, Math.min(maxCount, MAX_SLICE_COUNT));
+        long[] timestamps = new long[limit];
+        int[][] values = new int[buffer.getColumns()][limit];
+        long start;
+        int count;
+        synchronized (buffer) {
+            start = buffer.resolveStart((long) fromSequence);
+            count = buffer.read(start, limit, timestamps, values);
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putString("channel", channelName);
+        result.putDouble("from", start);
+        result.putDouble("next", start + count);
+        result.putInt("count", count);
+        WritableArray timestampArray = Arguments.createArray();
+        for (int i = 0; i < count; i++) {
+            timestampArray.pushDouble(timestamps[i]);
+        }
+        result.putArray("timestamps", timestampArray);
+        if (channel == EegSessionStore.CHANNEL_BANDS) {
+            for (int c = 0; c < EegSessionStore.BAND_NAMES.length; c++) {
+                result.putArray(EegSessionStore.BAND_NAMES[c], toArray(values[c], count));
+            }
+        } else {
+            result.putArray("values", toArray(values[0], count));
+        }
+        promise.resolve(result);
+    }
+
+    // 圖表用的降採樣序列（LTTB），series 為 attention、meditation、poorSignal 或頻帶名稱（delta ~ midGamma），
+    // width 為圖表的像素寬度，也就是輸出點數的上限；回傳 {series, total, count, timestamps, values}
+    @ReactMethod
+    public void getSessionSeries(int handle, String series, int width, Promise promise) {
+        EegSessionStore session = sessions.get(handle);
+        if (session == null) {
+            promise.reject("NO_SESSION", "找不到 session: " + handle);
+            return;
+        }
+        int[] source = seriesSource(series);
+        if (source == null) {
+            promise.reject("INVALID_SERIES", "未知的序列: " + series);
+            return;
+        }
+        SampleRingBuffer buffer = session.getChannel(source[0]);
+        long[] timestamps;
+        int[][] values;
+        int count;
+        // 依實際保留的樣本數配置，避免每次都配置整個容量大小的陣列
+        synchronized (buffer) {
+            int stored = buffer.size();
+            timestamps = new long[stored];
+            values = new int[buffer.getColumns()][stored];
+            count = buffer.read(buffer.getOldestSequence(), stored, timestamps, values);
+        }
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = timestamps[i];
+            y[i] = values[source[1]][i];
+        }
+        promise.resolve(downsampledSeries(series, x, y, count, width));
+    }
+
+    // 與 getSessionSeries 相同，但來源為紀錄檔中 [fromMs, toMs) 的樣本
+    @ReactMethod
+    public void readRecordingSeries(String path, String series, double fromMs, double toMs, int width, Promise promise) {
+        int[] source = seriesSource(series);
+        if (source == null) {
+            promise.reject("INVALID_SERIES", "未知的序列: " + series);
+            return;
+        }
+        int type = RECORDING_TYPES[source[0]];
+        try (SessionFileReader reader = new SessionFileReader(new File(path))) {
+            long to = (long) toMs;
+            double[] x = new double[256];
+            double[] y = new double[256];
+            int count = 0;
+            for (long index = reader.lowerBound((long) fromMs); index < reader.getCount(); index++) {
+                long timestamp = reader.getTimestamp(index);
+                if (timestamp >= to) {
+                    break;
+                }
+                if (reader.getType(index) != type) {
+                    continue;
+                }
+                if (count == x.length) {
+                    x = Arrays.copyOf(x, count * 2);
+                    y = Arrays.copyOf(y, count * 2);
+                }
+                x[count] = timestamp;
+                y[count] = reader.getValue(index, source[1]);
+                count++;
+            }
+            promise.resolve(downsampledSeries(series, x, y, count, width));
+        } catch (Exception e) {
+            promise.reject("RECORDING_ERROR", e.getMessage());
+        }
+    }
+
+    // 序列名稱對應的 {通道, 欄位}；未知名稱回傳 null
+    @Nullable
+    private static int[] seriesSource(String series) {
+        int channel = EegSessionStore.channelFromName(series);
+        if (channel >= 0 && channel != EegSessionStore.CHANNEL_BANDS) {
+            return new int[]{channel, 0};
+        }
+        for (int b = 0; b < EegSessionStore.BAND_NAMES.length; b++) {
+            if (EegSessionStore.BAND_NAMES[b].equals(series)) {
+                return new int[]{EegSessionStore.CHANNEL_BANDS, b};
+            }
+        }
+        return null;
+    }
+
+    private static WritableMap downsampledSeries(String series, double[] x, double[] y, int count, int width) {
+        // 至少保留首尾兩點
+        int threshold = Math.max(2, width);
+        int[] indices = new int[Math.min(count, threshold)];
+        int selected = LttbDownsampler.downsample(x, y, count, threshold, indices);
+        WritableArray timestamps = Arguments.createArray();
+        WritableArray values = Arguments.createArray();
+        for (int i = 0; i < selected; i++) {
+            timestamps.pushDouble(x[indices[i]]);
+            values.pushDouble(y[indices[i]]);
+        }
+        WritableMap result = Arguments.createMap();
+        result.putString("series", series);
+        result.putInt("total", count);
+        result.putInt("count", selected);
+        result.putArray("timestamps", timestamps);
+        result.putArray("values", values);
+        return result;
+    }
+
+    private static WritableArray toArray(int[] values, int count) {
+        WritableArray array = Arguments.createArray();
+        for (int i = 0; i < count; i++) {
+            array.pushInt(values[i]);
+        }
+        return array;
+    }
+
+    // 回傳目前累計的量測分數，計算成本與量測時間長短無關
+    @ReactMethod
+    public void getSessionMetrics(Promise promise) {
+        try {
+            promise.resolve(buildSessionMetrics());
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // 同步版本：指標以累加方式維護，讀取成本固定，可以每幀呼叫
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getSessionMetricsSync() {
+        return buildSessionMetrics();
+    }
+
+    private WritableMap buildSessionMetrics() {
+        WritableMap metrics = Arguments.createMap();
+        metrics.putInt("endurance", metricsEngine.getEndurance());
+        metrics.putInt("stability", metricsEngine.getStability());
+        metrics.putInt("coordination", metricsEngine.getCoordination());
+        metrics.putInt("brainActivity", metricsEngine.getBrainActivity());
+        metrics.putDouble("attentionMean", metricsEngine.getAttentionMean());
+        metrics.putDouble("meditationMean", metricsEngine.getMeditationMean());
+        metrics.putDouble("attentionCount", metricsEngine.getAttentionCount());
+        metrics.putDouble("meditationCount", metricsEngine.getMeditationCount());
+        metrics.putDouble("bandSampleCount", metricsEngine.getBandSampleCount());
+        WritableMap bandAverages = Arguments.createMap();
+        for (int i = 0; i < EegSessionStore.BAND_NAMES.length; i++) {
+            bandAverages.putDouble(EegSessionStore.BAND_NAMES[i], metricsEngine.getBandAverage(i));
+        }
+        metrics.putMap("bandAverages", bandAverages);
+        return metrics;
+    }
+
+    // 開始新的一局時清除累計指標
+    @ReactMethod
+    public void resetSessionMetrics() {
+        metricsEngine.reset();
+    }
+
+    // 開始把每個樣本追加到記憶體映射的紀錄檔，回傳檔案路徑
+    @ReactMethod
+    public void startSessionRecording(String name, Promise promise) {
+        try {
+            File dir = new File(reactContext.getFilesDir(), RECORDING_DIR);
+            if (!dir.exists() && !dir.mkdirs()) {
+                promise.reject("RECORDING_ERROR", "無法建立紀錄目錄");
+                return;
+            }
+            long now = System.currentTimeMillis();
+            String fileName = (name != null && !name.isEmpty() ? name : "session_" + now)
+                    + SessionFileRecorder.FILE_EXTENSION;
+            SessionFileRecorder recorder = SessionFileRecorder.start(new File(dir, fileName), now, SystemClock::elapsedRealtime);
+            Log.i(TAG, "開始紀錄量測: " + recorder.getFile().getAbsolutePath());
+            promise.resolve(recorder.getFile().getAbsolutePath());
+        } catch (Exception e) {
+            promise.reject("RECORDING_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void stopSessionRecording(Promise promise) {
+        try {
+            SessionFileRecorder recorder = SessionFileRecorder.stop();
+            if (recorder == null) {
+                promise.resolve(null);
+                return;
+            }
+            WritableMap result = Arguments.createMap();
+            result.putString("path", recorder.getFile().getAbsolutePath());
+            result.putDouble("count", recorder.getCount());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("RECORDING_ERROR", e.getMessage());
+        }
+    }
+
+    // 依時間範圍 [fromMs, toMs) 讀取紀錄檔；values 為每筆 stride 個值的扁平陣列，
+    // 回傳的 next 為下一段讀取的起始時間（沒有更多資料時為 null）
+    @ReactMethod
+    public void readSessionRecording(String path, double fromMs, double toMs, int maxCount, Promise promise) {
+        try (SessionFileReader reader = new SessionFileReader(new File(path))) {
+            long to = (long) toMs;
+            long index = reader.lowerBound((long) fromMs);
+            int limit = Math.max(0, Math.min(maxCount, MAX_SLICE_COUNT));
+            WritableArray timestamps = Arguments.createArray();
+            WritableArray types = Arguments.createArray();
+            WritableArray values = Arguments.createArray();
+            int read = 0;
+            while (index < reader.getCount() && read < limit) {
+                long timestamp = reader.getTimestamp(index);
+                if (timestamp >= to) {
+                    break;
+                }
+                timestamps.pushDouble(timestamp);
+                types.pushInt(reader.getType(index));
+                for (int v = 0; v < SessionFileRecorder.VALUE_COUNT; v++) {
+                    values.pushInt(reader.getValue(index, v));
+                }
+                index++;
+                read++;
+            }
+            WritableMap result = Arguments.createMap();
+            result.putDouble("startedAt", reader.getStartedAt());
+            result.putDouble("total", reader.getCount());
+            result.putInt("count", read);
+            result.putInt("stride", SessionFileRecorder.VALUE_COUNT);
+            result.putArray("timestamps", timestamps);
+            result.putArray("types", types);
+            result.putArray("values", values);
+            if (index < reader.getCount() && reader.getTimestamp(index) < to) {
+                result.putDouble("next", reader.getTimestamp(index));
+            } else {
+                result.putNull("next");
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("RECORDING_ERROR", e.getMessage());
+        }
+    }
+
+    // 開始擷取原始設備流量（TGDevice 訊息與 ESP32 通知），回傳檔案路徑
+    @ReactMethod
+    public void startCapture(String name, Promise promise) {
+        try {
+            File dir = new File(reactContext.getFilesDir(), CAPTURE_DIR);
+            if (!dir.exists() && !dir.mkdirs()) {
+                promise.reject("CAPTURE_ERROR", "無法建立擷取目錄");
+                return;
+            }
+            String fileName = (name != null && !name.isEmpty() ? name : "capture_" + System.currentTimeMillis())
+                    + TrafficRecorder.FILE_EXTENSION;
+            TrafficRecorder recorder = TrafficRecorder.start(new File(dir, fileName));
+            Log.i(TAG, "開始擷取設備流量: " + recorder.getFile().getAbsolutePath());
+            promise.resolve(recorder.getFile().getAbsolutePath());
+        } catch (Exception e) {
+            promise.reject("CAPTURE_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void stopCapture(Promise promise) {
+        try {
+            TrafficRecorder recorder = TrafficRecorder.stop();
+            if (recorder == null) {
+                promise.resolve(null);
+                return;
+            }
+            WritableMap result = Arguments.createMap();
+            result.putString("path", recorder.getFile().getAbsolutePath());
+            result.putDouble("messages", recorder.getMessageCount());
+            result.putDouble("notifications", recorder.getNotificationCount());
+            Log.i(TAG, "停止擷取設備流量: " + recorder.getFile().getAbsolutePath());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("CAPTURE_ERROR", e.getMessage());
+        }
+    }
+
+    // 重播送入 handler 的訊息以此包裝，與實際設備的訊息區分
+    private static final class ReplayedMessage {
+        final Object payload;
+
+        ReplayedMessage(Object payload) {
+            this.payload = payload;
+        }
+    }
+
+    // 重播的狀態變化只轉送給 JS（附上 replay: true），不更動連線狀態機、TGDevice 與前景服務
+    private void sendReplayedState(int state, WritableMap params, long receivedNanos) {
+        params.putBoolean("replay", true);
+        switch (state) {
+            case TGDevice.STATE_CONNECTED:
+                params.putString("state", "CONNECTED");
+                break;
+            case TGDevice.STATE_DISCONNECTED:
+                params.putString("state", "DISCONNECTED");
+                break;
+            case TGDevice.STATE_CONNECTING:
+                params.putString("state", "CONNECTING");
+                break;
+            case TGDevice.STATE_NOT_FOUND:
+                params.putString("error", "找不到設備");
+                sendEvent("onError", params, receivedNanos);
+                return;
+            case TGDevice.STATE_NOT_PAIRED:
+                params.putString("error", "設備未配對");
+                sendEvent("onError", params, receivedNanos);
+                return;
+            default:
+                return;
+        }
+        sendEvent("onStateChange", params, receivedNanos);
+    }
+
+    // 重播擷取檔案：TGDevice 訊息送入本模組的 handler，GATT 通知送入 ESP32Module；
+    // speed 為 1 代表原速，大於 1 加速，0 代表不等待
+    @ReactMethod
+    public void startReplay(String path, double speed, Promise promise) {
+        File file = new File(path);
+        if (!file.exists()) {
+            promise.reject("REPLAY_ERROR", "找不到擷取檔案: " + path);
+            return;
+        }
+        synchronized (this) {
+            if (replayer != null && replayer.isRunning()) {
+                promise.reject("REPLAY_ERROR", "重播已在進行中");
+                return;
+            }
+            replayer = new TrafficReplayer(file, speed, replayListener);
+            replayer.start();
+        }
+        Log.i(TAG, "開始重播: " + path + "，速度: " + speed);
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public synchronized void stopReplay() {
+        if (replayer != null) {
+            replayer.stop();
+        }
+    }
+
+    private final TrafficReplayer.Listener replayListener = new TrafficReplayer.Listener() {
+        @Override
+        public void onMessage(int what, int arg1, int arg2, int[] power) {
+            Object obj = null;
+            if (power != null && power.length >= EegSessionStore.BAND_NAMES.length) {
+                obj = new TGEegPower(power[0], power[1], power[2], power[3],
+                        power[4], power[5], power[6], power[7]);
+            }
+            handler.sendMessage(handler.obtainMessage(what, arg1, arg2, new ReplayedMessage(obj)));
+        }
+
+        @Override
+        public void onNotification(byte[] data) {
+            ESP32Module esp32 = ESP32Module.getInstance();
+            if (esp32 != null) {
+                esp32.injectNotification(data);
+            }
+        }
+
+        @Override
+        public void onFinished(long messages, long notifications, Exception error) {
+            WritableMap params = Arguments.createMap();
+            params.putDouble("messages", messages);
+            params.putDouble("notifications", notifications);
+            if (error != null) {
+                Log.e(TAG, "重播失敗: " + error.getMessage());
+                params.putString("error", error.getMessage());
+            }
+            long finishedNanos = SystemClock.elapsedRealtimeNanos();
+            handler.post(() -> sendEvent("onReplayFinished", params, finishedNanos));
+        }
+    };
+
+    // 開啟或關閉樣本事件的批次模式；批次事件名稱為 onNeuroSkyBatch
+    @ReactMethod
+    public void setEventBatching(boolean enabled, int intervalMs, int maxBatchSize, int queueCapacity) {
+        eventBatcher.configure(enabled, intervalMs, maxBatchSize, queueCapacity);
+    }
+
+    @ReactMethod
+    public void getEventBatchingStats(Promise promise) {
+        promise.resolve(eventBatcher.getStats());
+    }
+
+    // 原生端自行產生的事件（錯誤、連線流程、重播結束），以送出時間作為 tNanos
     private void sendEvent(String eventName, @Nullable WritableMap params) {
+        sendEvent(eventName, params, SystemClock.elapsedRealtimeNanos());
+    }
+
+    // 狀態事件同樣附上單調時鐘的收到時間；已帶有 tNanos 的事件（如 onRawEeg）保留原值
+    private void sendEvent(String eventName, @Nullable WritableMap params, long receivedNanos) {
+        if (params != null && !params.hasKey("tNanos")) {
+            params.putDouble("tNanos", receivedNanos);
+        }
+        // 狀態事件一律即時送出，送出前先清空批次佇列以維持順序
+        eventBatcher.flush();
+        emitEvent(eventName, params);
+    }
+
+    // 高頻率的樣本事件，批次模式開啟時先進入佇列
+    private void sendSampleEvent(String eventName, WritableMap params, long receivedNanos) {
+        // 附上單調時鐘的收到時間，JS 可以搭配 getMonotonicNanos 計算端到端延遲
+        params.putDouble("tNanos", receivedNanos);
+        if (eventBatcher.isEnabled()) {
+            eventBatcher.enqueue(eventName, params, receivedNanos);
+        } else {
+            emitEvent(eventName, params);
+            latencyTracker.record(eventName, SystemClock.elapsedRealtimeNanos() - receivedNanos);
+        }
+    }
+
+    // 開啟或關閉原始腦波串流。options.decimation 為降頻倍數（預設 4，即 128 Hz），
+    // options.batchIntervalMs 為送出間隔（預設 100ms）。
+    // 原始模式要在連線時設定，已連線時會自動重新連線
+    @ReactMethod
+    public void setRawMode(boolean enabled, @Nullable ReadableMap options) {
+        int decimation = options != null && options.hasKey("decimation")
+                ? options.getInt("decimation") : DEFAULT_RAW_DECIMATION;
+        int intervalMs = options != null && options.hasKey("batchIntervalMs")
+                ? options.getInt("batchIntervalMs") : 100;
+        handler.post(() -> {
+            rawBuffer.setDecimation(decimation);
+            rawBatchIntervalMs = Math.max(10, intervalMs);
+            if (enabled == rawEnabled) {
+                return;
+            }
+            boolean wasRequired = isRawStreamRequired();
+            rawEnabled = enabled;
+            rawBuffer.clear();
+            handler.removeCallbacks(rawFlushRunnable);
+            if (enabled) {
+                handler.postDelayed(rawFlushRunnable, rawBatchIntervalMs);
+            }
+            Log.i(TAG, "原始腦波串流: " + enabled + "，降頻: " + rawBuffer.getDecimation()
+                    + "，送出間隔: " + rawBatchIntervalMs + "ms");
+            reconnectIfRawModeChanged(wasRequired);
+        });
+    }
+
+    private boolean isRawStreamRequired() {
+        return rawEnabled || spectralEnabled;
+    }
+
+    // 原始模式只能在連線時設定，需求改變且已連線時重新連線
+    private void reconnectIfRawModeChanged(boolean wasRequired) {
+        if (isRawStreamRequired() == wasRequired || tgDevice == null) {
+            return;
+        }
+        Log.i(TAG, "切換原始模式，重新連線");
+        cancelRetry();
+        tgDevice.close();
+        tgDevice = null;
+        isConnected = false;
+        connectInternal();
+    }
+
+    // 設定頻帶功率引擎：enabled、fftSize（2 的次方，預設 512 即 1 秒視窗）、
+    // updateHz（每秒更新次數，預設 4，視窗重疊 75%）、
+    // bands（[{name, low, high}]，單位 Hz，預設為 ThinkGear 的八個頻帶）。
+    // resolve 實際採用的設定
+    @ReactMethod
+    public void configureSpectral(ReadableMap options, Promise promise) {
+        handler.post(() -> {
+            try {
+                int fftSize = options.hasKey("fftSize") ? options.getInt("fftSize") : spectralEngine.getFftSize();
+                if (fftSize < 2 || fftSize > SpectralEngine.MAX_FFT_SIZE || Integer.bitCount(fftSize) != 1) {
+                    promise.reject("INVALID_FFT_SIZE", "fftSize 必須為 2 到 " + SpectralEngine.MAX_FFT_SIZE
+                            + " 之間的 2 的次方: " + fftSize);
+                    return;
+                }
+                double updateHz = options.hasKey("updateHz") ? options.getDouble("updateHz") : spectralEngine.getUpdateRateHz();
+                String[] names = spectralBandNames;
+                double[][] edges = null;
+                if (options.hasKey("bands")) {
+                    ReadableArray bands = options.getArray("bands");
+                    names = new String[bands.size()];
+                    edges = new double[bands.size()][];
+                    for (int i = 0; i < bands.size(); i++) {
+                        ReadableMap band = bands.getMap(i);
+                        names[i] = band.getString("name");
+                        edges[i] = new double[]{band.getDouble("low"), band.getDouble("high")};
+                    }
+                }
+                if (edges == null) {
+                    edges = spectralBandEdges;
+                }
+                int hopSize = (int) Math.max(1, Math.round(RawEegBuffer.SAMPLE_RATE / Math.max(0.1, updateHz)));
+                spectralEngine = new SpectralEngine(RawEegBuffer.SAMPLE_RATE, fftSize, hopSize, edges);
+                spectralBandNames = names;
+                spectralBandEdges = edges;
+
+                boolean wasRequired = isRawStreamRequired();
+                if (options.hasKey("enabled")) {
+                    spectralEnabled = options.getBoolean("enabled");
+                }
+                Log.i(TAG, "頻帶功率引擎: " + spectralEnabled + "，FFT: " + fftSize + "，更新頻率: "
+                        + spectralEngine.getUpdateRateHz() + "Hz，頻帶數: " + names.length);
+                reconnectIfRawModeChanged(wasRequired);
+
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("enabled", spectralEnabled);
+                result.putInt("fftSize", spectralEngine.getFftSize());
+                result.putInt("hopSize", spectralEngine.getHopSize());
+                result.putDouble("updateHz", spectralEngine.getUpdateRateHz());
+                result.putDouble("resolutionHz", spectralEngine.getSampleRate() / spectralEngine.getFftSize());
+                promise.resolve(result);
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // 每個新視窗送出一次 onSpectralBands：bands 為各頻帶功率（原始值平方），
+    // relative 為佔 0.5 Hz 以上總功率的比例
+    private void sendSpectralBands(long receivedNanos) {
+        WritableMap bands = Arguments.createMap();
+        WritableMap relative = Arguments.createMap();
+        for (int b = 0; b < spectralEngine.getBandCount(); b++) {
+            bands.putDouble(spectralBandNames[b], spectralEngine.getBandPower(b));
+            relative.putDouble(spectralBandNames[b], spectralEngine.getRelativeBandPower(b));
+        }
+        WritableMap params = Arguments.createMap();
+        params.putMap("bands", bands);
+        params.putMap("relative", relative);
+        params.putDouble("totalPower", spectralEngine.getTotalPower());
+        sendSampleEvent("onSpectralBands", params, receivedNanos);
+    }
+
+    // 把緩衝區內的樣本打包成一個 onRawEeg 事件：
+    // samples 為 base64 編碼的 little-endian int16，tNanos 為這批第一個樣本收到的時間
+    private void flushRawSamples() {
+        if (!rawEnabled) {
+            return;
+        }
+        long firstNanos = rawBuffer.getFirstSampleNanos();
+        byte[] packed = rawBuffer.drain();
+        if (packed != null) {
+            WritableMap params = Arguments.createMap();
+            params.putString("samples", Base64.encodeToString(packed, Base64.NO_WRAP));
+            params.putInt("count", packed.length / 2);
+            params.putDouble("sampleRate", (double) RawEegBuffer.SAMPLE_RATE / rawBuffer.getDecimation());
+            params.putDouble("tNanos", firstNanos);
+            sendEvent("onRawEeg", params);
+            latencyTracker.record("onRawEeg", SystemClock.elapsedRealtimeNanos() - firstNanos);
+        }
+        handler.postDelayed(rawFlushRunnable, rawBatchIntervalMs);
+    }
+
+    // 設定某個通道的事件過濾管線：channel 為 attention、meditation、poorSignal 或 bands，
+    // stages 為依序套用的階段（格式見 SignalPipeline），空陣列或 null 表示移除管線。
+    // 被過濾的樣本在原生端丟棄，不會經過 bridge；紀錄與統計不受影響
+    @ReactMethod
+    public void configurePipeline(String channel, @Nullable ReadableArray stages, Promise promise) {
+        handler.post(() -> {
+            try {
+                SignalPipeline pipeline = stages == null || stages.size() == 0
+                        ? null : SignalPipeline.fromConfig(stages);
+                if ("attention".equals(channel)) {
+                    attentionPipeline = pipeline;
+                } else if ("meditation".equals(channel)) {
+                    meditationPipeline = pipeline;
+                } else if ("poorSignal".equals(channel)) {
+                    poorSignalPipeline = pipeline;
+                } else if ("bands".equals(channel)) {
+                    bandsPipeline = pipeline;
+                } else {
+                    promise.reject("INVALID_CHANNEL", "未知的通道: " + channel);
+                    return;
+                }
+                Log.i(TAG, "事件過濾管線 " + channel + ": " + (pipeline == null ? "無" : stages.size() + " 個階段"));
+                promise.resolve(true);
+            } catch (Exception e) {
+                promise.reject("INVALID_PIPELINE", e.getMessage());
+            }
+        });
+    }
+
+    // 回傳各通道管線的輸入、輸出與各階段丟棄數量
+    @ReactMethod
+    public void getPipelineStats(Promise promise) {
+        handler.post(() -> {
+            WritableMap stats = Arguments.createMap();
+            putPipelineStats(stats, "attention", attentionPipeline);
+            putPipelineStats(stats, "meditation", meditationPipeline);
+            putPipelineStats(stats, "poorSignal", poorSignalPipeline);
+            putPipelineStats(stats, "bands", bandsPipeline);
+            promise.resolve(stats);
+        });
+    }
+
+    private static void putPipelineStats(WritableMap stats, String channel, SignalPipeline pipeline) {
+        if (pipeline == null) {
+            stats.putNull(channel);
+        } else {
+            stats.putMap(channel, pipeline.getStats());
+        }
+    }
+
+    @ReactMethod
+    public void getRawStreamStats(Promise promise) {
+        WritableMap stats = Arguments.createMap();
+        stats.putBoolean("enabled", rawEnabled);
+        stats.putInt("decimation", rawBuffer.getDecimation());
+        stats.putDouble("sampleRate", (double) RawEegBuffer.SAMPLE_RATE / rawBuffer.getDecimation());
+        stats.putInt("batchIntervalMs", rawBatchIntervalMs);
+        stats.putInt("buffered", rawBuffer.size());
+        stats.putDouble("received", rawBuffer.getReceivedCount());
+        stats.putDouble("dropped", rawBuffer.getDroppedCount());
+        promise.resolve(stats);
+    }
+
+    // 回傳各事件類型從藍牙回調到 emit 的延遲統計（微秒）並重置
+    @ReactMethod
+    public void getLatencyStats(Promise promise) {
+        promise.resolve(latencyTracker.snapshotAndReset());
+    }
+
+    // 同步回傳 elapsedRealtimeNanos，讓 JS 對齊事件上的 tNanos
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getMonotonicNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    private void emitEvent(String eventName, @Nullable Object params) {
         reactContext
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
                 .emit(eventName, params);
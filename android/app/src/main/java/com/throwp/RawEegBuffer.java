@@ -0,0 +1,91 @@
+package com.throwp;
+
+// 原始腦波（512 Hz）的降頻緩衝區
+// 每 decimation 個樣本取平均（同時作為簡單的低通濾波）後存成 16 位元整數，
+// 由定時器整批取出打包，JS 端一次收到一段波形，而不是每個樣本一次 bridge 事件。
+// 容量固定，取出不及時丟棄新的樣本並計數
+public class RawEegBuffer {
+    public static final int SAMPLE_RATE = 512;
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final short[] samples;
+    private int count = 0;
+    private int decimation = 1;
+    private long accumulator = 0;
+    private int accumulated = 0;
+    // 這一批第一個樣本收到的時間（elapsedRealtimeNanos）
+    private long firstSampleNanos = 0;
+
+    private long receivedCount = 0;
+    private long droppedCount = 0;
+
+    public RawEegBuffer(int capacity) {
+        samples = new short[capacity];
+    }
+
+    public synchronized void setDecimation(int decimation) {
+        this.decimation = Math.max(1, decimation);
+        accumulator = 0;
+        accumulated = 0;
+    }
+
+    public synchronized int getDecimation() {
+        return decimation;
+    }
+
+    public synchronized void add(int raw, long receivedNanos) {
+        receivedCount++;
+        accumulator += raw;
+        accumulated++;
+        if (accumulated < decimation) {
+            return;
+        }
+        int value = (int) (accumulator / accumulated);
+        accumulator = 0;
+        accumulated = 0;
+        if (count == samples.length) {
+            droppedCount++;
+            return;
+        }
+        if (count == 0) {
+            firstSampleNanos = receivedNanos;
+        }
+        samples[count++] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long getFirstSampleNanos() {
+        return firstSampleNanos;
+    }
+
+    // 取出目前所有樣本，以 little-endian int16 打包；沒有樣本時回傳 null
+    public synchronized byte[] drain() {
+        if (count == 0) {
+            return null;
+        }
+        byte[] packed = new byte[count * 2];
+        for (int i = 0; i < count; i++) {
+            packed[i * 2] = (byte) samples[i];
+            packed[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        count = 0;
+        return packed;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        accumulator = 0;
+        accumulated = 0;
+    }
+
+    public synchronized long getReceivedCount() {
+        return receivedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,172 @@
+package com.throwp;
+
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+
+// 原生 PDF 報告匯出
+// 報告內容由 JS 組好（評估文字來自 reportUtils），在背景執行緒上以 ReportPdfRenderer
+// 直接畫到 PdfDocument，完成後以 Promise 回傳檔案路徑，不經過 WebView 排版
+public class ReportPdfModule extends ReactContextBaseJavaModule {
+    private static final String TAG = "ReportPdfModule";
+    public static final String NAME = "ReportPdfModule";
+    private static final String REPORT_DIR = "Documents";
+
+    private final ReactApplicationContext reactContext;
+    // 報告依序在同一條背景執行緒上繪製，不佔用 UI 與 JS 執行緒
+    private final HandlerThread renderThread;
+    private final Handler handler;
+
+    public ReportPdfModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+        this.renderThread = new HandlerThread("ReportRenderer", Process.THREAD_PRIORITY_BACKGROUND);
+        this.renderThread.start();
+        this.handler = new Handler(renderThread.getLooper());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        renderThread.quitSafely();
+    }
+
+    // 繪製報告並回傳 {filePath, pages, renderMs}。report 格式：
+    //   fileName                      檔名（不含副檔名）
+    //   title                         報告標題
+    //   info: [{label, value}]        基本資料
+    //   ability: {title, labels, values}          能力雷達圖，values 為 0 ~ 100
+    //   brainwave: {title, series: [{name, color, values}]}  腦波折線圖，color 為 #RRGGBB
+    //   sections: [{heading, level, description, featuresTitle, features, suggestionsTitle, suggestions}]
+    //   closing: [段落]
+    @ReactMethod
+    public void renderReport(ReadableMap options, Promise promise) {
+        handler.post(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            try {
+                ReportPdfRenderer.Report report = parseReport(options);
+                String fileName = options.hasKey("fileName") ? options.getString("fileName")
+                        : "report_" + System.currentTimeMillis();
+                File dir = reactContext.getExternalFilesDir(REPORT_DIR);
+                if (dir == null) {
+                    dir = new File(reactContext.getFilesDir(), REPORT_DIR);
+                }
+                if (!dir.exists() && !dir.mkdirs()) {
+                    throw new IllegalStateException("無法建立報告目錄: " + dir);
+                }
+                File file = new File(dir, fileName + ".pdf");
+                int pages = new ReportPdfRenderer().render(report, file);
+                long renderMs = SystemClock.elapsedRealtime() - startedAt;
+                Log.i(TAG, "報告已產生: " + file.getAbsolutePath() + "，頁數: " + pages + "，耗時: " + renderMs + "ms");
+
+                WritableMap result = Arguments.createMap();
+                result.putString("filePath", file.getAbsolutePath());
+                result.putInt("pages", pages);
+                result.putDouble("renderMs", renderMs);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "產生報告失敗: " + e.getMessage());
+                promise.reject("REPORT_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    private static ReportPdfRenderer.Report parseReport(ReadableMap options) {
+        ReportPdfRenderer.Report report = new ReportPdfRenderer.Report();
+        report.title = optString(options, "title", "");
+        if (options.hasKey("info")) {
+            ReadableArray info = options.getArray("info");
+            report.infoLabels = new String[info.size()];
+            report.infoValues = new String[info.size()];
+            for (int i = 0; i < info.size(); i++) {
+                ReadableMap item = info.getMap(i);
+                report.infoLabels[i] = optString(item, "label", "");
+                report.infoValues[i] = optString(item, "value", "");
+            }
+        }
+        if (options.hasKey("ability")) {
+            ReadableMap ability = options.getMap("ability");
+            report.abilityTitle = optString(ability, "title", null);
+            report.abilityLabels = toStrings(ability, "labels");
+            report.abilityValues = toDoubles(ability, "values");
+        }
+        if (options.hasKey("brainwave")) {
+            ReadableMap brainwave = options.getMap("brainwave");
+            report.brainwaveTitle = optString(brainwave, "title", null);
+            ReadableArray series = brainwave.getArray("series");
+            report.series = new ReportPdfRenderer.Series[series.size()];
+            for (int i = 0; i < series.size(); i++) {
+                ReadableMap item = series.getMap(i);
+                ReportPdfRenderer.Series s = new ReportPdfRenderer.Series();
+                s.name = optString(item, "name", "");
+                s.color = Color.parseColor(optString(item, "color", "#000000"));
+                s.values = toDoubles(item, "values");
+                report.series[i] = s;
+            }
+        }
+        if (options.hasKey("sections")) {
+            ReadableArray sections = options.getArray("sections");
+            report.sections = new ReportPdfRenderer.Section[sections.size()];
+            for (int i = 0; i < sections.size(); i++) {
+                ReadableMap item = sections.getMap(i);
+                ReportPdfRenderer.Section section = new ReportPdfRenderer.Section();
+                section.heading = optString(item, "heading", "");
+                section.level = optString(item, "level", null);
+                section.description = optString(item, "description", null);
+                section.featuresTitle = optString(item, "featuresTitle", null);
+                section.features = toStrings(item, "features");
+                section.suggestionsTitle = optString(item, "suggestionsTitle", null);
+                section.suggestions = toStrings(item, "suggestions");
+                report.sections[i] = section;
+            }
+        }
+        report.closingParagraphs = toStrings(options, "closing");
+        return report;
+    }
+
+    private static String optString(ReadableMap map, String key, String defaultValue) {
+        return map.hasKey(key) && !map.isNull(key) ? map.getString(key) : defaultValue;
+    }
+
+    private static String[] toStrings(ReadableMap map, String key) {
+        if (!map.hasKey(key) || map.isNull(key)) {
+            return new String[0];
+        }
+        ReadableArray array = map.getArray(key);
+        String[] result = new String[array.size()];
+        for (int i = 0; i < array.size(); i++) {
+            result[i] = array.getString(i);
+        }
+        return result;
+    }
+
+    private static double[] toDoubles(ReadableMap map, String key) {
+        if (!map.hasKey(key) || map.isNull(key)) {
+            return new double[0];
+        }
+        ReadableArray array = map.getArray(key);
+        double[] result = new double[array.size()];
+        for (int i = 0; i < array.size(); i++) {
+            result[i] = array.isNull(i) ? 0 : array.getDouble(i);
+        }
+        return result;
+    }
+}
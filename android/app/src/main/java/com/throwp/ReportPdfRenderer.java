@@ -0,0 +1,384 @@
+package com.throwp;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.pdf.PdfDocument;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// 腦波報告的 PDF 繪製
+// 直接以 Canvas 畫在 PdfDocument 上（A4 橫向），不經過 WebView 排版：
+// 第一頁為標題、基本資料、能力雷達圖與腦波折線圖，之後依序排入各項評估文字，超出頁面時自動換頁。
+// 文字內容（評估說明、翻譯後的標籤）由 JS 端的 reportUtils 提供，這裡只負責排版。
+// 不依賴 React Native，可在任何背景執行緒上呼叫
+public class ReportPdfRenderer {
+    // A4 橫向，單位為 PostScript 點（1/72 吋）
+    public static final int PAGE_WIDTH = 842;
+    public static final int PAGE_HEIGHT = 595;
+    private static final float MARGIN = 40;
+    private static final float CONTENT_WIDTH = PAGE_WIDTH - MARGIN * 2;
+    private static final float CHART_HEIGHT = 300;
+
+    private static final int COLOR_TITLE = Color.rgb(0x4C, 0xAF, 0x50);
+    private static final int COLOR_HEADING = Color.rgb(0x21, 0x96, 0xF3);
+    private static final int COLOR_LEVEL = Color.rgb(0xFF, 0x57, 0x22);
+    private static final int COLOR_INFO_BACKGROUND = Color.rgb(0xF5, 0xF5, 0xF5);
+    private static final int COLOR_GRID = Color.rgb(0xCC, 0xCC, 0xCC);
+    private static final int COLOR_AREA = Color.argb(0x4D, 0xF8, 0x59, 0x59);
+    private static final int COLOR_AREA_STROKE = Color.rgb(0xF8, 0x59, 0x59);
+
+    // 一項能力評估：標題列（例如「★ 協調力：2級 - 基礎協調性」）、說明、表現特徵與建議
+    public static class Section {
+        public String heading;
+        public String level;
+        public String description;
+        public String featuresTitle;
+        public String[] features = new String[0];
+        public String suggestionsTitle;
+        public String[] suggestions = new String[0];
+    }
+
+    // 腦波折線圖的一條曲線，color 為 ARGB
+    public static class Series {
+        public String name;
+        public int color;
+        public double[] values = new double[0];
+    }
+
+    public static class Report {
+        public String title = "";
+        public String[] infoLabels = new String[0];
+        public String[] infoValues = new String[0];
+        public String abilityTitle;
+        public String[] abilityLabels = new String[0];
+        // 0 ~ 100
+        public double[] abilityValues = new double[0];
+        public String brainwaveTitle;
+        public Series[] series = new Series[0];
+        public Section[] sections = new Section[0];
+        // 評估之後的總結段落
+        public String[] closingParagraphs = new String[0];
+    }
+
+    private final TextPaint titlePaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint headingPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint levelPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint bodyPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint boldPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint smallPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+
+    // 目前頁面與繪製位置
+    private PdfDocument document;
+    private PdfDocument.Page page;
+    private Canvas canvas;
+    private int pageCount;
+    private float y;
+
+    public ReportPdfRenderer() {
+        titlePaint.setTextSize(24);
+        titlePaint.setColor(COLOR_TITLE);
+        titlePaint.setFakeBoldText(true);
+        headingPaint.setTextSize(15);
+        headingPaint.setColor(COLOR_HEADING);
+        headingPaint.setFakeBoldText(true);
+        levelPaint.setTextSize(15);
+        levelPaint.setColor(COLOR_LEVEL);
+        levelPaint.setFakeBoldText(true);
+        bodyPaint.setTextSize(11);
+        bodyPaint.setColor(Color.BLACK);
+        boldPaint.setTextSize(11);
+        boldPaint.setColor(Color.BLACK);
+        boldPaint.setFakeBoldText(true);
+        smallPaint.setTextSize(9);
+        smallPaint.setColor(Color.DKGRAY);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        fillPaint.setStyle(Paint.Style.FILL);
+    }
+
+    // 繪製整份報告並寫入 output，回傳頁數
+    public int render(Report report, File output) throws IOException {
+        document = new PdfDocument();
+        pageCount = 0;
+        try {
+            startPage();
+            drawHeader(report);
+            drawCharts(report);
+            for (Section section : report.sections) {
+                drawSection(section);
+            }
+            for (String paragraph : report.closingParagraphs) {
+                drawParagraph(paragraph, bodyPaint, 0, 8);
+            }
+            document.finishPage(page);
+            try (OutputStream out = new FileOutputStream(output)) {
+                document.writeTo(out);
+            }
+            return pageCount;
+        } finally {
+            document.close();
+            document = null;
+            page = null;
+            canvas = null;
+        }
+    }
+
+    private void startPage() {
+        if (page != null) {
+            document.finishPage(page);
+        }
+        pageCount++;
+        page = document.startPage(new PdfDocument.PageInfo.Builder(PAGE_WIDTH, PAGE_HEIGHT, pageCount).create());
+        canvas = page.getCanvas();
+        y = MARGIN;
+    }
+
+    // 剩餘空間不足 height 時換頁
+    private void ensureSpace(float height) {
+        if (y + height > PAGE_HEIGHT - MARGIN && y > MARGIN) {
+            startPage();
+        }
+    }
+
+    private void drawHeader(Report report) {
+        titlePaint.setTextAlign(Paint.Align.CENTER);
+        canvas.drawText(report.title, PAGE_WIDTH / 2f, y + 24, titlePaint);
+        titlePaint.setTextAlign(Paint.Align.LEFT);
+        y += 40;
+
+        // 基本資料以兩欄排列在灰色底框中
+        int rows = (report.infoLabels.length + 1) / 2;
+        float rowHeight = 18;
+        float boxHeight = rows * rowHeight + 12;
+        fillPaint.setColor(COLOR_INFO_BACKGROUND);
+        canvas.drawRoundRect(new RectF(MARGIN, y, PAGE_WIDTH - MARGIN, y + boxHeight), 5, 5, fillPaint);
+        for (int i = 0; i < report.infoLabels.length; i++) {
+            float x = MARGIN + 10 + (i % 2) * (CONTENT_WIDTH / 2);
+            float baseline = y + 6 + (i / 2) * rowHeight + 13;
+            String label = report.infoLabels[i] + "：";
+            canvas.drawText(label, x, baseline, boldPaint);
+            String value = i < report.infoValues.length ? report.infoValues[i] : "";
+            canvas.drawText(value, x + boldPaint.measureText(label), baseline, bodyPaint);
+        }
+        y += boxHeight + 16;
+    }
+
+    private void drawCharts(Report report) {
+        boolean hasAbility = report.abilityLabels.length >= 3;
+        boolean hasBrainwave = report.series.length > 0;
+        if (!hasAbility && !hasBrainwave) {
+            return;
+        }
+        ensureSpace(CHART_HEIGHT);
+        float half = CONTENT_WIDTH / 2;
+        if (hasAbility) {
+            drawAbilityChart(report, MARGIN, y, hasBrainwave ? half - 10 : CONTENT_WIDTH);
+        }
+        if (hasBrainwave) {
+            float left = hasAbility ? MARGIN + half + 10 : MARGIN;
+            drawBrainwaveChart(report, left, y, hasAbility ? half - 10 : CONTENT_WIDTH);
+        }
+        y += CHART_HEIGHT + 16;
+    }
+
+    // 能力雷達圖：同心圓刻度 0 ~ 100，每項能力一條軸
+    private void drawAbilityChart(Report report, float left, float top, float width) {
+        float titleHeight = drawChartTitle(report.abilityTitle, left, top);
+        float labelSpace = 24;
+        float radius = Math.min(width / 2, (CHART_HEIGHT - titleHeight) / 2) - labelSpace;
+        float cx = left + width / 2;
+        float cy = top + titleHeight + labelSpace + radius;
+        int axes = report.abilityLabels.length;
+
+        linePaint.setColor(COLOR_GRID);
+        linePaint.setStrokeWidth(0.8f);
+        for (int ring = 1; ring <= 5; ring++) {
+            canvas.drawCircle(cx, cy, radius * ring / 5, linePaint);
+            canvas.drawText(String.valueOf(ring * 20), cx + 2, cy - radius * ring / 5 - 2, smallPaint);
+        }
+        bodyPaint.setTextAlign(Paint.Align.CENTER);
+        for (int i = 0; i < axes; i++) {
+            double angle = axisAngle(i, axes);
+            float ex = cx + (float) Math.cos(angle) * radius;
+            float ey = cy + (float) Math.sin(angle) * radius;
+            canvas.drawLine(cx, cy, ex, ey, linePaint);
+            float lx = cx + (float) Math.cos(angle) * (radius + 14);
+            float ly = cy + (float) Math.sin(angle) * (radius + 14) + 4;
+            canvas.drawText(report.abilityLabels[i], lx, ly, bodyPaint);
+        }
+
+        path.reset();
+        for (int i = 0; i < axes; i++) {
+            float[] point = abilityPoint(report, i, axes, cx, cy, radius);
+            if (i == 0) {
+                path.moveTo(point[0], point[1]);
+            } else {
+                path.lineTo(point[0], point[1]);
+            }
+        }
+        path.close();
+        fillPaint.setColor(COLOR_AREA);
+        canvas.drawPath(path, fillPaint);
+        linePaint.setColor(COLOR_AREA_STROKE);
+        linePaint.setStrokeWidth(1.5f);
+        canvas.drawPath(path, linePaint);
+
+        fillPaint.setColor(Color.BLACK);
+        for (int i = 0; i < axes; i++) {
+            float[] point = abilityPoint(report, i, axes, cx, cy, radius);
+            canvas.drawCircle(point[0], point[1], 3, fillPaint);
+            double value = i < report.abilityValues.length ? report.abilityValues[i] : 0;
+            canvas.drawText(String.valueOf(Math.round(value)), point[0], point[1] - 6, bodyPaint);
+        }
+        bodyPaint.setTextAlign(Paint.Align.LEFT);
+    }
+
+    private static double axisAngle(int index, int axes) {
+        return index * 2 * Math.PI / axes - Math.PI / 2;
+    }
+
+    private static float[] abilityPoint(Report report, int index, int axes, float cx, float cy, float radius) {
+        double value = index < report.abilityValues.length ? report.abilityValues[index] : 0;
+        double distance = Math.max(0, Math.min(100, value)) / 100 * radius;
+        double angle = axisAngle(index, axes);
+        return new float[]{cx + (float) (Math.cos(angle) * distance), cy + (float) (Math.sin(angle) * distance)};
+    }
+
+    // 腦波折線圖：所有曲線共用 0 ~ max 的縱軸，每條曲線最多畫與圖寬相同的點數
+    private void drawBrainwaveChart(Report report, float left, float top, float width) {
+        float titleHeight = drawChartTitle(report.brainwaveTitle, left, top);
+        float legendHeight = 18;
+        float axisWidth = 24;
+        float plotLeft = left + axisWidth;
+        float plotTop = top + titleHeight + 6;
+        float plotWidth = width - axisWidth;
+        float plotHeight = CHART_HEIGHT - titleHeight - legendHeight - 12;
+
+        double max = 100;
+        for (Series series : report.series) {
+            for (double value : series.values) {
+                max = Math.max(max, value);
+            }
+        }
+        max = Math.ceil(max / 20) * 20;
+
+        linePaint.setColor(COLOR_GRID);
+        linePaint.setStrokeWidth(0.6f);
+        smallPaint.setTextAlign(Paint.Align.RIGHT);
+        for (int i = 0; i <= 5; i++) {
+            float gy = plotTop + plotHeight - plotHeight * i / 5;
+            canvas.drawLine(plotLeft, gy, plotLeft + plotWidth, gy, linePaint);
+            canvas.drawText(String.valueOf(Math.round(max * i / 5)), plotLeft - 4, gy + 3, smallPaint);
+        }
+        smallPaint.setTextAlign(Paint.Align.LEFT);
+
+        // 點數超過圖寬時以 LTTB 降採樣，保留峰值與轉折
+        int maxPoints = Math.max(2, (int) plotWidth);
+        linePaint.setStrokeWidth(1.2f);
+        for (Series series : report.series) {
+            double[] values = series.values;
+            if (values.length == 0) {
+                continue;
+            }
+            double[] xs = new double[values.length];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = i;
+            }
+            int[] indices = new int[Math.min(values.length, maxPoints)];
+            int points = LttbDownsampler.downsample(xs, values, values.length, maxPoints, indices);
+            linePaint.setColor(series.color);
+            path.reset();
+            float xScale = values.length > 1 ? plotWidth / (values.length - 1) : 0;
+            for (int p = 0; p < points; p++) {
+                int index = indices[p];
+                float x = plotLeft + index * xScale;
+                float py = plotTop + plotHeight - (float) (Math.max(0, values[index]) / max) * plotHeight;
+                if (p == 0) {
+                    path.moveTo(x, py);
+                } else {
+                    path.lineTo(x, py);
+                }
+            }
+            canvas.drawPath(path, linePaint);
+        }
+
+        // 圖例
+        float lx = plotLeft;
+        float ly = plotTop + plotHeight + 14;
+        for (Series series : report.series) {
+            fillPaint.setColor(series.color);
+            canvas.drawRect(lx, ly - 7, lx + 10, ly + 1, fillPaint);
+            String name = series.name != null ? series.name : "";
+            canvas.drawText(name, lx + 14, ly, smallPaint);
+            lx += 14 + smallPaint.measureText(name) + 16;
+        }
+    }
+
+    private float drawChartTitle(String title, float left, float top) {
+        if (title == null || title.isEmpty()) {
+            return 0;
+        }
+        canvas.drawText(title, left, top + 12, boldPaint);
+        return 18;
+    }
+
+    private void drawSection(Section section) {
+        // 標題列與說明的第一行需在同一頁
+        ensureSpace(50);
+        y += 6;
+        String heading = section.heading != null ? section.heading : "";
+        canvas.drawText(heading, MARGIN, y + 15, headingPaint);
+        if (section.level != null) {
+            canvas.drawText(section.level, MARGIN + headingPaint.measureText(heading), y + 15, levelPaint);
+        }
+        y += 24;
+        drawParagraph(section.description, bodyPaint, 0, 6);
+        drawList(section.featuresTitle, section.features);
+        drawList(section.suggestionsTitle, section.suggestions);
+    }
+
+    private void drawList(String title, String[] items) {
+        if (items.length == 0) {
+            return;
+        }
+        if (title != null) {
+            drawParagraph(title + "：", boldPaint, 0, 3);
+        }
+        for (String item : items) {
+            drawParagraph("• " + item, bodyPaint, 20, 2);
+        }
+        y += 4;
+    }
+
+    // 自動換行的段落；段落本身超過剩餘空間時先換頁
+    private void drawParagraph(String text, TextPaint paint, float indent, float spacingAfter) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        int width = (int) (CONTENT_WIDTH - indent);
+        StaticLayout layout = StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                .setAlignment(Layout.Alignment.ALIGN_NORMAL)
+                .setLineSpacing(2, 1)
+                .setIncludePad(false)
+                .build();
+        ensureSpace(layout.getHeight());
+        canvas.save();
+        canvas.translate(MARGIN + indent, y);
+        layout.draw(canvas);
+        canvas.restore();
+        y += layout.getHeight() + spacingAfter;
+    }
+}
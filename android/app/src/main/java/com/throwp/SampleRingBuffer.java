@@ -0,0 +1,130 @@
+package com.throwp;
+
+// 固定容量的原始型別環形緩衝區
+// 每一行包含一個時間戳和 columns 個 int 欄位，寫滿後覆蓋最舊的資料，
+// 寫入時不配置任何物件，讀取時以序號（sequence）作為游標
+public class SampleRingBuffer {
+    private final int columns;
+    private final int capacity;
+    private final int[][] values;
+    private final long[] timestamps;
+    // 已寫入的總行數，同時也是下一行的序號
+    private long writeSequence = 0;
+
+    public SampleRingBuffer(int columns, int capacity) {
+        if (columns <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("columns 與 capacity 必須大於 0");
+        }
+        this.columns = columns;
+        this.capacity = capacity;
+        this.values = new int[columns][capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 單欄位寫入（專注度、冥想度、訊號品質）
+    public synchronized void append(long timestamp, int value) {
+        int slot = (int) (writeSequence % capacity);
+        timestamps[slot] = timestamp;
+        values[0][slot] = value;
+        writeSequence++;
+    }
+
+    // 多欄位寫入，row 長度必須等於 columns
+    public synchronized void append(long timestamp, int[] row) {
+        int slot = (int) (writeSequence % capacity);
+        timestamps[slot] = timestamp;
+        for (int c = 0; c < columns; c++) {
+            values[c][slot] = row[c];
+        }
+        writeSequence++;
+    }
+
+    public synchronized long getWriteSequence() {
+        return writeSequence;
+    }
+
+    // 目前仍保留在緩衝區中的最舊序號
+    public synchronized long getOldestSequence() {
+        return Math.max(0, writeSequence - capacity);
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(writeSequence, capacity);
+    }
+
+    public synchronized void clear() {
+        writeSequence = 0;
+    }
+
+    // 從 fromSequence 開始最多複製 maxCount 行到呼叫者提供的陣列
+    // 若 fromSequence 已被覆蓋，則從最舊的序號開始；回傳實際複製的行數
+    // outValues 需為 [columns][>= maxCount]，outTimestamps 長度需 >= maxCount
+    public synchronized int read(long fromSequence, int maxCount, long[] outTimestamps, int[][] outValues) {
+        long start = Math.max(fromSequence, getOldestSequence());
+        int count = (int) Math.max(0, Math.min(maxCount, writeSequence - start));
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((start + i) % capacity);
+            outTimestamps[i] = timestamps[slot];
+            for (int c = 0; c < columns; c++) {
+                outValues[c][i] = values[c][slot];
+            }
+        }
+        return count;
+    }
+
+    // 實際讀取起點（考慮覆蓋後的序號），供呼叫者回傳下一個游標
+    public synchronized long resolveStart(long fromSequence) {
+        return Math.min(Math.max(fromSequence, getOldestSequence()), writeSequence);
+    }
+
+    // 最新一行的指定欄位；緩衝區為空時回傳 defaultValue
+    public synchronized int latest(int column, int defaultValue) {
+        if (writeSequence == 0) {
+            return defaultValue;
+        }
+        int slot = (int) ((writeSequence - 1) % capacity);
+        return values[column][slot];
+    }
+
+    // 時間戳不晚於 timestamp 的最新樣本序號（時間戳需遞增）；
+    // 所有保留的樣本都晚於 timestamp 或緩衝區為空時回傳 -1
+    public synchronized long floorSequence(long timestamp) {
+        long low = getOldestSequence();
+        long high = writeSequence - 1;
+        long result = -1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            if (timestamps[(int) (mid % capacity)] <= timestamp) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    // 指定序號的時間戳與欄位值，序號需仍保留在緩衝區中
+    public synchronized long timestampAt(long sequence) {
+        return timestamps[(int) (sequence % capacity)];
+    }
+
+    public synchronized int valueAt(long sequence, int column) {
+        return values[column][(int) (sequence % capacity)];
+    }
+
+    public synchronized long latestTimestamp() {
+        if (writeSequence == 0) {
+            return 0;
+        }
+        return timestamps[(int) ((writeSequence - 1) % capacity)];
+    }
+}
@@ -0,0 +1,242 @@
+package com.throwp;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 量測封存模組
+// 將 sessions 目錄中的紀錄檔批次匯出成單一欄式封存檔（SessionArchiveWriter），
+// 或把封存檔匯入還原成紀錄檔，方便在平板之間搬移或備份。
+// 匯出與匯入都是串流處理，在背景執行緒上執行，不佔用 JS 執行緒
+public class SessionArchiveModule extends ReactContextBaseJavaModule {
+    private static final String TAG = "SessionArchiveModule";
+    public static final String NAME = "SessionArchiveModule";
+    private static final String ARCHIVE_DIR = "archives";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final ReactApplicationContext reactContext;
+    private final HandlerThread archiveThread;
+    private final Handler handler;
+
+    public SessionArchiveModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+        this.archiveThread = new HandlerThread("SessionArchive", Process.THREAD_PRIORITY_BACKGROUND);
+        this.archiveThread.start();
+        this.handler = new Handler(archiveThread.getLooper());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        archiveThread.quitSafely();
+    }
+
+    // 匯出紀錄檔到封存檔，paths 為 null 時匯出 sessions 目錄中所有紀錄（進行中的紀錄除外）。
+    // 回傳 {path, sessions, records, sourceBytes, bytes, elapsedMs}
+    @ReactMethod
+    public void exportSessions(ReadableArray paths, String name, Promise promise) {
+        handler.post(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            File temp = null;
+            try {
+                List<File> sources = resolveSources(paths);
+                File dir = archiveDir();
+                String fileName = (name != null && !name.isEmpty() ? name : "sessions_" + System.currentTimeMillis())
+                        + SessionArchiveWriter.FILE_EXTENSION;
+                File file = new File(dir, fileName);
+                // 先寫到暫存檔，完成後再改名，中斷時不會留下不完整的封存檔
+                temp = new File(dir, fileName + TEMP_EXTENSION);
+
+                long records = 0;
+                long sourceBytes = 0;
+                int sessions;
+                try (SessionArchiveWriter writer = new SessionArchiveWriter(temp)) {
+                    for (File source : sources) {
+                        try (SessionFileReader reader = new SessionFileReader(source)) {
+                            records += writer.addSession(baseName(source), reader);
+                            sourceBytes += source.length();
+                        } catch (IOException e) {
+                            Log.w(TAG, "略過無法讀取的紀錄檔: " + source.getName() + "，" + e.getMessage());
+                        }
+                    }
+                    sessions = writer.getSessionCount();
+                }
+                if (!temp.renameTo(file)) {
+                    throw new IOException("無法建立封存檔: " + file);
+                }
+                temp = null;
+                long elapsedMs = SystemClock.elapsedRealtime() - startedAt;
+                Log.i(TAG, "已匯出封存檔: " + file.getAbsolutePath() + "，量測: " + sessions
+                        + "，大小: " + sourceBytes + " -> " + file.length() + "，耗時: " + elapsedMs + "ms");
+
+                WritableMap result = Arguments.createMap();
+                result.putString("path", file.getAbsolutePath());
+                result.putInt("sessions", sessions);
+                result.putDouble("records", records);
+                result.putDouble("sourceBytes", sourceBytes);
+                result.putDouble("bytes", file.length());
+                result.putDouble("elapsedMs", elapsedMs);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "匯出封存檔失敗: " + e.getMessage());
+                deleteQuietly(temp);
+                promise.reject("ARCHIVE_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // 只讀取封存檔的索引，回傳 {sessions: [{name, startedAt, records, channels: [{type, count, from, to}]}]}
+    @ReactMethod
+    public void readArchiveIndex(String path, Promise promise) {
+        handler.post(() -> {
+            try (SessionArchiveReader reader = new SessionArchiveReader(new File(path))) {
+                WritableArray sessions = Arguments.createArray();
+                for (SessionArchiveReader.Session session : reader.getSessions()) {
+                    WritableArray channels = Arguments.createArray();
+                    for (SessionArchiveReader.Channel channel : session.channels) {
+                        WritableMap item = Arguments.createMap();
+                        item.putInt("type", channel.type);
+                        item.putDouble("count", channel.count);
+                        item.putDouble("from", channel.firstTimestamp);
+                        item.putDouble("to", channel.lastTimestamp);
+                        channels.pushMap(item);
+                    }
+                    WritableMap item = Arguments.createMap();
+                    item.putString("name", session.name);
+                    item.putDouble("startedAt", session.startedAt);
+                    item.putDouble("records", session.recordCount);
+                    item.putArray("channels", channels);
+                    sessions.pushMap(item);
+                }
+                WritableMap result = Arguments.createMap();
+                result.putArray("sessions", sessions);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "讀取封存檔失敗: " + e.getMessage());
+                promise.reject("ARCHIVE_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // 將封存檔中的量測還原到 sessions 目錄，檔名重複時加上編號。
+    // 回傳 {paths, records, elapsedMs}，paths 可直接交給 readSessionRecording / readRecordingSeries
+    @ReactMethod
+    public void importSessions(String path, Promise promise) {
+        handler.post(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            File temp = null;
+            try (SessionArchiveReader reader = new SessionArchiveReader(new File(path))) {
+                File dir = new File(reactContext.getFilesDir(), NeuroSkyModule.RECORDING_DIR);
+                if (!dir.exists() && !dir.mkdirs()) {
+                    throw new IOException("無法建立紀錄目錄");
+                }
+                WritableArray paths = Arguments.createArray();
+                long records = 0;
+                for (SessionArchiveReader.Session session : reader.getSessions()) {
+                    File file = uniqueFile(dir, session.name);
+                    temp = new File(dir, file.getName() + TEMP_EXTENSION);
+                    records += reader.restore(session, temp);
+                    if (!temp.renameTo(file)) {
+                        throw new IOException("無法建立紀錄檔: " + file);
+                    }
+                    temp = null;
+                    paths.pushString(file.getAbsolutePath());
+                }
+                long elapsedMs = SystemClock.elapsedRealtime() - startedAt;
+                Log.i(TAG, "已匯入封存檔: " + path + "，量測: " + reader.getSessions().size()
+                        + "，筆數: " + records + "，耗時: " + elapsedMs + "ms");
+
+                WritableMap result = Arguments.createMap();
+                result.putArray("paths", paths);
+                result.putDouble("records", records);
+                result.putDouble("elapsedMs", elapsedMs);
+                promise.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "匯入封存檔失敗: " + e.getMessage());
+                deleteQuietly(temp);
+                promise.reject("ARCHIVE_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    private List<File> resolveSources(ReadableArray paths) {
+        List<File> sources = new ArrayList<>();
+        if (paths != null) {
+            for (int i = 0; i < paths.size(); i++) {
+                sources.add(new File(paths.getString(i)));
+            }
+        } else {
+            File dir = new File(reactContext.getFilesDir(), NeuroSkyModule.RECORDING_DIR);
+            File[] files = dir.listFiles((parent, fileName) -> fileName.endsWith(SessionFileRecorder.FILE_EXTENSION));
+            if (files != null) {
+                Arrays.sort(files);
+                sources.addAll(Arrays.asList(files));
+            }
+        }
+        // 進行中的紀錄仍在寫入，不列入匯出
+        SessionFileRecorder active = SessionFileRecorder.active();
+        if (active != null) {
+            sources.remove(active.getFile());
+        }
+        return sources;
+    }
+
+    // 封存檔放在 App 外部檔案目錄，可透過 USB 或檔案管理程式複製到其他平板
+    private File archiveDir() throws IOException {
+        File dir = reactContext.getExternalFilesDir(ARCHIVE_DIR);
+        if (dir == null) {
+            dir = new File(reactContext.getFilesDir(), ARCHIVE_DIR);
+        }
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("無法建立封存目錄: " + dir);
+        }
+        return dir;
+    }
+
+    // 名稱來自封存檔，去掉路徑字元避免寫到 sessions 目錄之外
+    private static File uniqueFile(File dir, String archivedName) {
+        String name = archivedName.replaceAll("[/\\\\:]", "_");
+        if (name.isEmpty() || name.startsWith(".")) {
+            name = "session_" + name;
+        }
+        File file = new File(dir, name + SessionFileRecorder.FILE_EXTENSION);
+        for (int i = 1; file.exists(); i++) {
+            file = new File(dir, name + "_" + i + SessionFileRecorder.FILE_EXTENSION);
+        }
+        return file;
+    }
+
+    private static String baseName(File file) {
+        String name = file.getName();
+        return name.endsWith(SessionFileRecorder.FILE_EXTENSION)
+                ? name.substring(0, name.length() - SessionFileRecorder.FILE_EXTENSION.length()) : name;
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            Log.w(TAG, "無法刪除暫存檔: " + file);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.throwp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 讀取 SessionArchiveWriter 產生的封存檔
+// 開啟時只讀取結尾與索引；各欄位以各自的小緩衝區依位置串流解碼，
+// 還原量測時將各通道依原紀錄檔中的位置合併，直接寫回 SessionFileRecorder 的紀錄檔格式
+public class SessionArchiveReader implements Closeable {
+    private static final int COLUMN_BUFFER_SIZE = 8 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final List<Session> sessions;
+
+    public static class Session {
+        public String name;
+        public long startedAt;
+        public long recordCount;
+        public Channel[] channels;
+    }
+
+    public static class Channel {
+        public int type;
+        public long count;
+        public long firstTimestamp;
+        public long lastTimestamp;
+        long[] offsets;
+        long[] lengths;
+
+        // 數值欄數，不含時間戳欄與位置欄
+        public int getWidth() {
+            return offsets.length - SessionArchiveWriter.VALUE_COLUMN_OFFSET;
+        }
+    }
+
+    // 依序解碼單一通道的紀錄
+    public class ChannelCursor {
+        private final Channel source;
+        private final ColumnInput timestamps;
+        private final ColumnInput positions;
+        private final ColumnInput[] values;
+        private final int[] current;
+        private long read = 0;
+        private long timestamp = 0;
+        private long delta = 0;
+        private long position = -1;
+
+        ChannelCursor(Channel source) {
+            this.source = source;
+            this.timestamps = openColumn(source, SessionArchiveWriter.COLUMN_TIMESTAMP);
+            this.positions = openColumn(source, SessionArchiveWriter.COLUMN_POSITION);
+            this.values = new ColumnInput[source.getWidth()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = openColumn(source, SessionArchiveWriter.VALUE_COLUMN_OFFSET + i);
+            }
+            this.current = new int[values.length];
+        }
+
+        public boolean next() throws IOException {
+            if (read >= source.count) {
+                return false;
+            }
+            delta += unzigzag(timestamps.readVarLong());
+            timestamp += delta;
+            position += positions.readVarLong();
+            for (int i = 0; i < values.length; i++) {
+                current[i] += (int) unzigzag(values[i].readVarLong());
+            }
+            read++;
+            return true;
+        }
+
+        public int getType() {
+            return source.type;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        // 在原紀錄檔中的位置
+        public long getPosition() {
+            return position;
+        }
+
+        public int getValue(int index) {
+            return current[index];
+        }
+    }
+
+    public SessionArchiveReader(File file) throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "r");
+        channel = randomAccessFile.getChannel();
+        try {
+            sessions = readIndex(file.getName());
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("封存檔索引損毀: " + file.getName(), e);
+        }
+    }
+
+    public List<Session> getSessions() {
+        return sessions;
+    }
+
+    public ChannelCursor openChannel(Channel source) {
+        return new ChannelCursor(source);
+    }
+
+    // 將一段量測還原為紀錄檔，回傳寫入的紀錄筆數；還原後與原紀錄檔逐筆相同
+    public long restore(Session session, File output) throws IOException {
+        List<ChannelCursor> cursors = new ArrayList<>();
+        for (Channel source : session.channels) {
+            ChannelCursor cursor = openChannel(source);
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long written = 0;
+        try (FileOutputStream outputStream = new FileOutputStream(output)) {
+            FileChannel out = outputStream.getChannel();
+            buffer.putInt(SessionFileRecorder.MAGIC);
+            buffer.putInt(SessionFileRecorder.VERSION);
+            buffer.putInt(SessionFileRecorder.RECORD_SIZE);
+            buffer.putLong(session.recordCount);
+            buffer.putLong(session.startedAt);
+            buffer.position(SessionFileRecorder.HEADER_SIZE);
+
+            while (!cursors.isEmpty()) {
+                int earliest = 0;
+                for (int i = 1; i < cursors.size(); i++) {
+                    if (cursors.get(i).getPosition() < cursors.get(earliest).getPosition()) {
+                        earliest = i;
+                    }
+                }
+                ChannelCursor cursor = cursors.get(earliest);
+                if (buffer.remaining() < SessionFileRecorder.RECORD_SIZE) {
+                    drain(buffer, out);
+                }
+                buffer.putLong(cursor.getTimestamp());
+                buffer.putInt(cursor.getType());
+                int width = cursor.values.length;
+                for (int v = 0; v < SessionFileRecorder.VALUE_COUNT; v++) {
+                    buffer.putInt(v < width ? cursor.getValue(v) : 0);
+                }
+                written++;
+                if (!cursor.next()) {
+                    cursors.remove(earliest);
+                }
+            }
+            drain(buffer, out);
+            out.force(true);
+        }
+        if (written != session.recordCount) {
+            throw new IOException("還原筆數不符: " + written + " / " + session.recordCount);
+        }
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private List<Session> readIndex(String fileName) throws IOException {
+        long size = channel.size();
+        if (size < SessionArchiveWriter.HEADER_SIZE + SessionArchiveWriter.TRAILER_SIZE) {
+            throw new IOException("封存檔太小: " + fileName);
+        }
+        ByteBuffer header = readAt(0, SessionArchiveWriter.HEADER_SIZE);
+        if (header.getInt() != SessionArchiveWriter.MAGIC || header.getInt() > SessionArchiveWriter.VERSION) {
+            throw new IOException("不是有效的封存檔: " + fileName);
+        }
+        ByteBuffer trailer = readAt(size - SessionArchiveWriter.TRAILER_SIZE, SessionArchiveWriter.TRAILER_SIZE);
+        long indexOffset = trailer.getLong();
+        int indexLength = trailer.getInt();
+        // 沒有結尾代表寫入中途中斷
+        if (trailer.getInt() != SessionArchiveWriter.TRAILER_MAGIC
+                || indexOffset < SessionArchiveWriter.HEADER_SIZE
+                || indexOffset + indexLength != size - SessionArchiveWriter.TRAILER_SIZE) {
+            throw new IOException("封存檔不完整: " + fileName);
+        }
+
+        ByteBuffer index = readAt(indexOffset, indexLength);
+        int sessionCount = index.getInt();
+        List<Session> result = new ArrayList<>(sessionCount);
+        for (int s = 0; s < sessionCount; s++) {
+            Session session = new Session();
+            byte[] name = new byte[index.getInt()];
+            index.get(name);
+            session.name = new String(name, StandardCharsets.UTF_8);
+            session.startedAt = index.getLong();
+            session.recordCount = index.getLong();
+            session.channels = new Channel[index.getInt()];
+            for (int c = 0; c < session.channels.length; c++) {
+                Channel source = new Channel();
+                source.type = index.getInt();
+                source.count = index.getLong();
+                source.firstTimestamp = index.getLong();
+                source.lastTimestamp = index.getLong();
+                int columns = index.getInt();
+                if (columns < SessionArchiveWriter.VALUE_COLUMN_OFFSET) {
+                    throw new IOException("封存檔欄位數錯誤: " + fileName);
+                }
+                source.offsets = new long[columns];
+                source.lengths = new long[columns];
+                for (int i = 0; i < columns; i++) {
+                    source.offsets[i] = index.getLong();
+                    source.lengths[i] = index.getLong();
+                    if (source.offsets[i] < SessionArchiveWriter.HEADER_SIZE
+                            || source.offsets[i] + source.lengths[i] > indexOffset) {
+                        throw new IOException("封存檔欄位超出範圍: " + fileName);
+                    }
+                }
+                session.channels[c] = source;
+            }
+            result.add(session);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("封存檔提前結束");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private ColumnInput openColumn(Channel source, int column) {
+        return new ColumnInput(source.offsets[column], source.lengths[column]);
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // 單一欄位的依位置讀取，多個欄位可同時在同一個 FileChannel 上讀取
+    private class ColumnInput {
+        private final ByteBuffer buffer;
+        private long position;
+        private final long end;
+
+        ColumnInput(long offset, long length) {
+            this.position = offset;
+            this.end = offset + length;
+            this.buffer = ByteBuffer.allocate((int) Math.min(COLUMN_BUFFER_SIZE, Math.max(1, length)));
+            this.buffer.limit(0);
+        }
+
+        long readVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("varint 格式錯誤");
+        }
+
+        private byte readByte() throws IOException {
+            if (!buffer.hasRemaining()) {
+                if (position >= end) {
+                    throw new IOException("封存檔欄位提前結束");
+                }
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position + buffer.position());
+                    if (read < 0) {
+                        throw new IOException("封存檔提前結束");
+                    }
+                }
+                position += buffer.position();
+                buffer.flip();
+            }
+            return buffer.get();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.throwp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// 多段量測的欄式封存檔寫入器（串流寫入）
+// 每段量測依通道（專注度、冥想度、訊號品質、八個頻段、投擲）拆成欄位：
+// 時間戳以 delta-of-delta、數值以 delta 編碼，再以 zigzag + varint 寫出；
+// 另有一欄記錄每筆在原紀錄檔中的位置（delta），還原時各通道依此交錯，與原檔逐筆相同。
+// eSense 約 1 Hz，時間戳的 delta-of-delta 幾乎都是 0，每筆只需 1 位元組；
+// 來源紀錄檔以記憶體映射逐欄讀取，輸出經固定大小的緩衝區寫入，不會把整段資料載入記憶體
+//
+// 檔案格式（little-endian）：
+//   標頭 HEADER_SIZE 位元組：MAGIC(int) VERSION(int)
+//   欄位資料：依序為每段量測、每個通道的時間戳欄、位置欄與數值欄
+//   索引：sessionCount(int)，每段量測 nameLength(int) name(UTF-8) startedAt(long) recordCount(long)
+//         channelCount(int)，每個通道 type(int) count(long) firstTimestamp(long) lastTimestamp(long)
+//         columnCount(int)，每個欄位 offset(long) length(long)
+//   結尾 TRAILER_SIZE 位元組：indexOffset(long) indexLength(int) TRAILER_MAGIC(int)
+public class SessionArchiveWriter implements Closeable {
+    public static final int MAGIC = 0x41535054;  // "TPSA"
+    public static final int TRAILER_MAGIC = 0x58535054;  // "TPSX"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    public static final int TRAILER_SIZE = 16;
+    public static final String FILE_EXTENSION = ".tparc";
+
+    // 封存的通道與每個通道實際使用的數值欄數，其餘欄位在紀錄檔中固定為 0
+    static final int[] CHANNEL_TYPES = {
+            SessionFileRecorder.TYPE_ATTENTION, SessionFileRecorder.TYPE_MEDITATION,
+            SessionFileRecorder.TYPE_POOR_SIGNAL, SessionFileRecorder.TYPE_BANDS,
+            SessionFileRecorder.TYPE_THROW
+    };
+    static final int[] CHANNEL_WIDTHS = {1, 1, 1, EegSessionStore.BAND_NAMES.length, 4};
+    // 每個通道在數值欄之前的欄位：時間戳、位置
+    static final int COLUMN_TIMESTAMP = 0;
+    static final int COLUMN_POSITION = 1;
+    static final int VALUE_COLUMN_OFFSET = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileOutputStream outputStream;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    // 已寫入檔案的位元組數
+    private long flushed = 0;
+    private final List<SessionIndex> index = new ArrayList<>();
+    private boolean closed = false;
+
+    private static class SessionIndex {
+        String name;
+        long startedAt;
+        long recordCount;
+        final List<ChannelIndex> channels = new ArrayList<>();
+    }
+
+    private static class ChannelIndex {
+        int type;
+        long count;
+        long firstTimestamp;
+        long lastTimestamp;
+        long[] offsets;
+        long[] lengths;
+    }
+
+    public SessionArchiveWriter(File file) throws IOException {
+        outputStream = new FileOutputStream(file);
+        channel = outputStream.getChannel();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+    }
+
+    // 目前已寫出的大小（含緩衝區中尚未寫入檔案的部分）
+    public long getSize() {
+        return flushed + buffer.position();
+    }
+
+    public int getSessionCount() {
+        return index.size();
+    }
+
+    // 封存一段量測，回傳寫入的紀錄筆數
+    public long addSession(String name, SessionFileReader reader) throws IOException {
+        SessionIndex session = new SessionIndex();
+        session.name = name;
+        session.startedAt = reader.getStartedAt();
+        long total = reader.getCount();
+        for (int c = 0; c < CHANNEL_TYPES.length; c++) {
+            int type = CHANNEL_TYPES[c];
+            int width = CHANNEL_WIDTHS[c];
+            ChannelIndex channelIndex = new ChannelIndex();
+            channelIndex.type = type;
+            channelIndex.offsets = new long[VALUE_COLUMN_OFFSET + width];
+            channelIndex.lengths = new long[VALUE_COLUMN_OFFSET + width];
+
+            // 時間戳欄，同時統計筆數與範圍
+            channelIndex.offsets[COLUMN_TIMESTAMP] = getSize();
+            long previous = 0;
+            long previousDelta = 0;
+            long count = 0;
+            for (long i = 0; i < total; i++) {
+                if (reader.getType(i) != type) {
+                    continue;
+                }
+                long timestamp = reader.getTimestamp(i);
+                if (count == 0) {
+                    channelIndex.firstTimestamp = timestamp;
+                }
+                channelIndex.lastTimestamp = timestamp;
+                long delta = timestamp - previous;
+                writeVarLong(zigzag(delta - previousDelta));
+                previous = timestamp;
+                previousDelta = delta;
+                count++;
+            }
+            channelIndex.lengths[COLUMN_TIMESTAMP] = getSize() - channelIndex.offsets[COLUMN_TIMESTAMP];
+            channelIndex.count = count;
+            session.recordCount += count;
+
+            // 位置欄：與同通道上一筆的位置差，只會是正數
+            channelIndex.offsets[COLUMN_POSITION] = getSize();
+            long previousPosition = -1;
+            if (count > 0) {
+                for (long i = 0; i < total; i++) {
+                    if (reader.getType(i) == type) {
+                        writeVarLong(i - previousPosition);
+                        previousPosition = i;
+                    }
+                }
+            }
+            channelIndex.lengths[COLUMN_POSITION] = getSize() - channelIndex.offsets[COLUMN_POSITION];
+
+            // 數值欄：每欄各掃描一次映射檔，輸出保持連續
+            for (int v = 0; v < width; v++) {
+                int column = VALUE_COLUMN_OFFSET + v;
+                channelIndex.offsets[column] = getSize();
+                long previousValue = 0;
+                if (count > 0) {
+                    for (long i = 0; i < total; i++) {
+                        if (reader.getType(i) != type) {
+                            continue;
+                        }
+                        int value = reader.getValue(i, v);
+                        writeVarLong(zigzag(value - previousValue));
+                        previousValue = value;
+                    }
+                }
+                channelIndex.lengths[column] = getSize() - channelIndex.offsets[column];
+            }
+            session.channels.add(channelIndex);
+        }
+        index.add(session);
+        return session.recordCount;
+    }
+
+    // 寫出索引與結尾後關閉；未呼叫 close 的封存檔沒有索引，讀取時視為無效
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long indexOffset = getSize();
+            ensureCapacity(4);
+            buffer.putInt(index.size());
+            for (SessionIndex session : index) {
+                byte[] name = session.name.getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(4 + name.length + 8 + 8 + 4);
+                buffer.putInt(name.length);
+                buffer.put(name);
+                buffer.putLong(session.startedAt);
+                buffer.putLong(session.recordCount);
+                buffer.putInt(session.channels.size());
+                for (ChannelIndex channelIndex : session.channels) {
+                    int columns = channelIndex.offsets.length;
+                    ensureCapacity(4 + 8 * 3 + 4 + columns * 16);
+                    buffer.putInt(channelIndex.type);
+                    buffer.putLong(channelIndex.count);
+                    buffer.putLong(channelIndex.firstTimestamp);
+                    buffer.putLong(channelIndex.lastTimestamp);
+                    buffer.putInt(columns);
+                    for (int i = 0; i < columns; i++) {
+                        buffer.putLong(channelIndex.offsets[i]);
+                        buffer.putLong(channelIndex.lengths[i]);
+                    }
+                }
+            }
+            long indexLength = getSize() - indexOffset;
+            ensureCapacity(TRAILER_SIZE);
+            buffer.putLong(indexOffset);
+            buffer.putInt((int) indexLength);
+            buffer.putInt(TRAILER_MAGIC);
+            flush();
+            channel.force(true);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+        if (buffer.remaining() < bytes) {
+            throw new IOException("索引項目過大: " + bytes);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushed += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
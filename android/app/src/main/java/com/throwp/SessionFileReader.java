@@ -0,0 +1,85 @@
+package com.throwp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// 讀取 SessionFileRecorder 產生的紀錄檔
+// 整個檔案以唯讀方式映射，依時間戳二分搜尋後直接讀取固定寬度的紀錄，
+// 不需要把整段量測載入 JS heap
+public class SessionFileReader implements Closeable {
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private final long count;
+    private final long startedAt;
+
+    public SessionFileReader(File file) throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "r");
+        FileChannel channel = randomAccessFile.getChannel();
+        long size = channel.size();
+        if (size < SessionFileRecorder.HEADER_SIZE) {
+            randomAccessFile.close();
+            throw new IOException("紀錄檔太小: " + file.getName());
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != SessionFileRecorder.MAGIC
+                || buffer.getInt(8) != SessionFileRecorder.RECORD_SIZE) {
+            randomAccessFile.close();
+            throw new IOException("不是有效的紀錄檔: " + file.getName());
+        }
+        // 紀錄中途異常結束時，以標頭與檔案大小較小者為準
+        long headerCount = buffer.getLong(12);
+        long sizeCount = (size - SessionFileRecorder.HEADER_SIZE) / SessionFileRecorder.RECORD_SIZE;
+        count = Math.min(headerCount, sizeCount);
+        startedAt = buffer.getLong(20);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getTimestamp(long index) {
+        return buffer.getLong(offsetOf(index));
+    }
+
+    public int getType(long index) {
+        return buffer.getInt(offsetOf(index) + 8);
+    }
+
+    public int getValue(long index, int valueIndex) {
+        return buffer.getInt(offsetOf(index) + 12 + valueIndex * 4);
+    }
+
+    // 第一筆時間戳 >= timestamp 的紀錄索引
+    public long lowerBound(long timestamp) {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (getTimestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    private int offsetOf(long index) {
+        return (int) (SessionFileRecorder.HEADER_SIZE + index * SessionFileRecorder.RECORD_SIZE);
+    }
+}
@@ -0,0 +1,195 @@
+package com.throwp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.LongSupplier;
+
+// 以記憶體映射檔案實作的原始樣本紀錄器（只追加）
+// 每筆樣本使用固定寬度的紀錄，檔案依區塊映射擴充，並定期 fsync；
+// 時間戳由紀錄器在 append 的鎖內依單調時鐘取得（startedAt 加上開始後經過的毫秒數），
+// 不受呼叫端執行緒或系統時間調整影響，必定單調遞增，因此可用二分搜尋做時間範圍的索引讀取
+//
+// 檔案格式（little-endian）：
+//   標頭 HEADER_SIZE 位元組：MAGIC(int) VERSION(int) RECORD_SIZE(int) count(long) startedAt(long)
+//   紀錄 RECORD_SIZE 位元組：timestamp(long) type(int) values(int x VALUE_COUNT)
+//   startedAt 為開始時的系統時間（epoch 毫秒），只寫一次，供顯示用
+public class SessionFileRecorder {
+    public static final int MAGIC = 0x54505352;  // "TPSR"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int VALUE_COUNT = 9;
+    public static final int RECORD_SIZE = 8 + 4 + VALUE_COUNT * 4;
+    public static final String FILE_EXTENSION = ".tpses";
+
+    public static final int TYPE_ATTENTION = 1;
+    public static final int TYPE_MEDITATION = 2;
+    public static final int TYPE_POOR_SIGNAL = 3;
+    public static final int TYPE_BANDS = 4;
+    public static final int TYPE_THROW = 5;
+
+    private static final int HEADER_COUNT_OFFSET = 12;
+    private static final int HEADER_STARTED_AT_OFFSET = 20;
+    // 每次映射 16384 筆紀錄（768 KiB）
+    private static final int RECORDS_PER_CHUNK = 16384;
+    private static final long SYNC_INTERVAL_MS = 2000;
+
+    // 目前啟用中的紀錄，NeuroSkyModule 與 ESP32Module 共用同一個檔案
+    private static volatile SessionFileRecorder active;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    // 單調時鐘（毫秒），App 中為 SystemClock.elapsedRealtime
+    private final LongSupplier clock;
+    private final long startedAt;
+    private final long clockStartedAt;
+    private MappedByteBuffer chunk;
+    private long chunkStartRecord = 0;
+    private long count = 0;
+    private long lastSyncAt;
+    private boolean closed = false;
+
+    private SessionFileRecorder(File file, long startedAt, LongSupplier clock) throws IOException {
+        this.file = file;
+        this.clock = clock;
+        this.startedAt = startedAt;
+        this.clockStartedAt = clock.getAsLong();
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.channel = randomAccessFile.getChannel();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, RECORD_SIZE);
+        header.putLong(HEADER_COUNT_OFFSET, 0);
+        header.putLong(HEADER_STARTED_AT_OFFSET, startedAt);
+        mapChunk(0);
+        this.lastSyncAt = startedAt;
+    }
+
+    // startedAt 為系統時間（epoch 毫秒），clock 為單調時鐘（毫秒）
+    public static synchronized SessionFileRecorder start(File file, long startedAt, LongSupplier clock) throws IOException {
+        if (active != null) {
+            throw new IOException("紀錄已在進行中: " + active.file.getAbsolutePath());
+        }
+        active = new SessionFileRecorder(file, startedAt, clock);
+        return active;
+    }
+
+    public static SessionFileRecorder active() {
+        return active;
+    }
+
+    public static synchronized SessionFileRecorder stop() throws IOException {
+        SessionFileRecorder recorder = active;
+        active = null;
+        if (recorder != null) {
+            recorder.close();
+        }
+        return recorder;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized void append(int type, int value) {
+        long timestamp = now();
+        if (!beginRecord(timestamp, type)) {
+            return;
+        }
+        chunk.putInt(value);
+        for (int i = 1; i < VALUE_COUNT; i++) {
+            chunk.putInt(0);
+        }
+        endRecord(timestamp);
+    }
+
+    // values 不足 VALUE_COUNT 的部分補 0
+    public synchronized void append(int type, int[] values) {
+        long timestamp = now();
+        if (!beginRecord(timestamp, type)) {
+            return;
+        }
+        int length = Math.min(values.length, VALUE_COUNT);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            chunk.putInt(i < length ? values[i] : 0);
+        }
+        endRecord(timestamp);
+    }
+
+    public synchronized void sync() {
+        if (closed) {
+            return;
+        }
+        chunk.force();
+        header.putLong(HEADER_COUNT_OFFSET, count);
+        header.force();
+    }
+
+    // 在鎖內取時間，兩條執行緒交錯寫入時時間戳仍與寫入順序一致
+    private long now() {
+        return startedAt + (clock.getAsLong() - clockStartedAt);
+    }
+
+    private boolean beginRecord(long timestamp, int type) {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (count - chunkStartRecord >= RECORDS_PER_CHUNK) {
+                chunk.force();
+                mapChunk(count);
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            return false;
+        }
+        chunk.putLong(timestamp);
+        chunk.putInt(type);
+        return true;
+    }
+
+    private void endRecord(long timestamp) {
+        count++;
+        if (timestamp - lastSyncAt >= SYNC_INTERVAL_MS) {
+            lastSyncAt = timestamp;
+            sync();
+        }
+    }
+
+    private void mapChunk(long firstRecord) throws IOException {
+        chunkStartRecord = firstRecord;
+        long position = HEADER_SIZE + firstRecord * RECORD_SIZE;
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) RECORDS_PER_CHUNK * RECORD_SIZE);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        sync();
+        closed = true;
+        // 截掉最後一個區塊未使用的部分
+        channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+        channel.close();
+        randomAccessFile.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.throwp;
+
+// 增量式的量測指標引擎
+// 每個樣本只做 O(1) 的更新（滑動視窗的和與平方和、門檻計數、頻段累加），
+// 計算分數的成本與量測時間長短無關。取樣範圍與 Evaluate.js 的 reducer 相同：
+// 專注度與冥想度只看最近 WINDOW_SIZE 筆（calculateEndurance / calculateStability），
+// 頻段則累計整局、且略過值為 0 的樣本（calculateCoordinationAbility / calculateBrainActivity）。
+// 不會自動歸零，每局開始時由 JS 呼叫 resetSessionMetrics
+public class SessionMetricsEngine {
+    // 沒有資料時 Evaluate.js 回傳的預設分數
+    public static final int DEFAULT_SCORE = 10;
+    public static final int LOW_THRESHOLD = 40;
+    // 與 Evaluate.js UPDATE_ATTENTION / UPDATE_MEDITATION 保留的筆數相同
+    public static final int WINDOW_SIZE = 30;
+    private static final double ATTENTION_WEIGHT = 0.6;
+    private static final double MEDITATION_WEIGHT = 0.4;
+
+    public static final int BAND_COUNT = 8;
+    // 與 EegSessionStore.BAND_NAMES 相同的順序
+    private static final int LOW_BETA = 4;
+    private static final int HIGH_BETA = 5;
+    private static final int LOW_GAMMA = 6;
+    private static final int MID_GAMMA = 7;
+
+    private final WindowStats attention = new WindowStats(WINDOW_SIZE);
+    private final WindowStats meditation = new WindowStats(WINDOW_SIZE);
+
+    private final double[] bandSums = new double[BAND_COUNT];
+    private final long[] bandCounts = new long[BAND_COUNT];
+
+    // 計算分數時重複使用的暫存陣列
+    private final double[] scratch = new double[BAND_COUNT];
+
+    // 最近 N 筆整數樣本的環形緩衝區，維護和、平方和與低於門檻的筆數
+    public static class WindowStats {
+        private final int[] values;
+        private int start = 0;
+        private int count = 0;
+        private long sum = 0;
+        private long sumSquares = 0;
+        private int lowCount = 0;
+
+        public WindowStats(int size) {
+            this.values = new int[size];
+        }
+
+        public void add(int value) {
+            if (count == values.length) {
+                int evicted = values[start];
+                sum -= evicted;
+                sumSquares -= (long) evicted * evicted;
+                if (evicted < LOW_THRESHOLD) {
+                    lowCount--;
+                }
+                values[start] = value;
+                start = (start + 1) % values.length;
+            } else {
+                values[(start + count) % values.length] = value;
+                count++;
+            }
+            sum += value;
+            sumSquares += (long) value * value;
+            if (value < LOW_THRESHOLD) {
+                lowCount++;
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getLowCount() {
+            return lowCount;
+        }
+
+        public double getMean() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        // 母體變異數，與 Evaluate.js 除以 length 的寫法一致；和與平方和都是整數，不會累積誤差
+        public double getVariance() {
+            if (count == 0) {
+                return 0;
+            }
+            double mean = (double) sum / count;
+            return Math.max(0, (double) sumSquares / count - mean * mean);
+        }
+
+        public double getStdDev() {
+            return Math.sqrt(getVariance());
+        }
+
+        public void reset() {
+            start = 0;
+            count = 0;
+            sum = 0;
+            sumSquares = 0;
+            lowCount = 0;
+        }
+    }
+
+    public synchronized void addAttention(int value) {
+        attention.add(value);
+    }
+
+    public synchronized void addMeditation(int value) {
+        meditation.add(value);
+    }
+
+    // row 依 EegSessionStore.BAND_NAMES 的順序排列；
+    // Evaluate.js 的 UPDATE_EEG_POWER 不收值為 0 的頻段，這裡同樣略過
+    public synchronized void addBands(int[] row) {
+        for (int i = 0; i < BAND_COUNT; i++) {
+            if (row[i] == 0) {
+                continue;
+            }
+            bandSums[i] += row[i];
+            bandCounts[i]++;
+        }
+    }
+
+    public synchronized void reset() {
+        attention.reset();
+        meditation.reset();
+        for (int i = 0; i < BAND_COUNT; i++) {
+            bandSums[i] = 0;
+            bandCounts[i] = 0;
+        }
+    }
+
+    public synchronized long getAttentionCount() {
+        return attention.getCount();
+    }
+
+    public synchronized long getMeditationCount() {
+        return meditation.getCount();
+    }
+
+    // 收到最多樣本的頻段筆數
+    public synchronized long getBandSampleCount() {
+        long max = 0;
+        for (int i = 0; i < BAND_COUNT; i++) {
+            max = Math.max(max, bandCounts[i]);
+        }
+        return max;
+    }
+
+    public synchronized double getAttentionMean() {
+        return attention.getMean();
+    }
+
+    public synchronized double getMeditationMean() {
+        return meditation.getMean();
+    }
+
+    public synchronized double getBandAverage(int band) {
+        return bandCounts[band] > 0 ? bandSums[band] / bandCounts[band] : 0;
+    }
+
+    // 維持值：專注與冥想標準差越小分數越高
+    public synchronized int getEndurance() {
+        if (attention.getCount() == 0 || meditation.getCount() == 0) {
+            return DEFAULT_SCORE;
+        }
+        double combinedStdDev = (attention.getStdDev() + meditation.getStdDev()) / 2;
+        return (int) Math.round(100 - Math.min(100, combinedStdDev));
+    }
+
+    // 穩定度：低於門檻的加權比例越低分數越高
+    public synchronized int getStability() {
+        if (attention.getCount() == 0 || meditation.getCount() == 0) {
+            return DEFAULT_SCORE;
+        }
+        double lowAttentionRatio = (double) attention.getLowCount() / attention.getCount();
+        double lowMeditationRatio = (double) meditation.getLowCount() / meditation.getCount();
+        double weightedLowRatio = lowAttentionRatio * ATTENTION_WEIGHT + lowMeditationRatio * MEDITATION_WEIGHT;
+        double score = (1 - weightedLowRatio) * 100;
+        return (int) Math.round(Math.max(1, Math.min(100, score)));
+    }
+
+    // 協調力：各頻段平均值標準化後的標準差越小分數越高；與 Evaluate.js 相同，沒有 theta 時回傳預設分數
+    public synchronized int getCoordination() {
+        if (bandCounts[1] == 0) {
+            return DEFAULT_SCORE;
+        }
+        int n = 0;
+        for (int i = 0; i < BAND_COUNT; i++) {
+            if (bandCounts[i] > 0) {
+                scratch[n++] = bandSums[i] / bandCounts[i];
+            }
+        }
+        if (n < 2) {
+            return DEFAULT_SCORE;
+        }
+        normalize(scratch, n);
+        double mean = 0;
+        for (int i = 0; i < n; i++) {
+            mean += scratch[i];
+        }
+        mean /= n;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            variance += (scratch[i] - mean) * (scratch[i] - mean);
+        }
+        variance /= n;
+        double score = 100 - Math.sqrt(variance) * 50;
+        return (int) Math.max(0, Math.min(100, Math.round(score)));
+    }
+
+    // 腦活力：beta / gamma 頻段平均值標準化後的平均
+    public synchronized int getBrainActivity() {
+        if (bandCounts[LOW_BETA] == 0 && bandCounts[HIGH_BETA] == 0
+                && bandCounts[LOW_GAMMA] == 0 && bandCounts[MID_GAMMA] == 0) {
+            return DEFAULT_SCORE;
+        }
+        int n = 0;
+        for (int band = LOW_BETA; band <= MID_GAMMA; band++) {
+            double avg = getBandAverage(band);
+            if (avg > 0) {
+                scratch[n++] = avg;
+            }
+        }
+        if (n == 0) {
+            return DEFAULT_SCORE;
+        }
+        normalize(scratch, n);
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += scratch[i];
+        }
+        double score = sum / n * 100;
+        return (int) Math.max(0, Math.min(100, Math.round(score)));
+    }
+
+    // 與 Evaluate.js normalizeEegValues 相同的 min-max 標準化，原地修改
+    private static void normalize(double[] values, int n) {
+        double max = values[0];
+        double min = values[0];
+        for (int i = 1; i < n; i++) {
+            if (values[i] > max) max = values[i];
+            if (values[i] < min) min = values[i];
+        }
+        for (int i = 0; i < n; i++) {
+            values[i] = max == min ? 0.5 : (values[i] - min) / (max - min);
+        }
+    }
+}
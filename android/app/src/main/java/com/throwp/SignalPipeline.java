@@ -0,0 +1,260 @@
+package com.throwp;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+// 可組合的樣本過濾管線
+// 每個樣本依序通過各階段，任一階段回傳 false 就不送出事件，過濾掉的樣本不會經過 bridge。
+// 樣本以 double[] 表示，單值通道長度為 1，頻帶功率長度為 8；各階段在原地修改數值。
+// 只在擷取執行緒上呼叫 process；狀態陣列在第一個樣本時配置一次
+//
+// JS 設定格式（依序套用）：
+//   {type: "poorSignalGate", threshold: 50}   POOR_SIGNAL 大於 threshold 時丟棄
+//   {type: "ema", alpha: 0.3}                 指數移動平均
+//   {type: "decimate", factor: 4}             每 factor 個樣本送出一個
+//   {type: "changeOnly", minDelta: 1}         與上次送出的值相差至少 minDelta 才送出
+//   {type: "minInterval", ms: 200}            與上次送出至少間隔 ms 毫秒
+public class SignalPipeline {
+    public static final String POOR_SIGNAL_GATE = "poorSignalGate";
+    public static final String EMA = "ema";
+    public static final String DECIMATE = "decimate";
+    public static final String CHANGE_ONLY = "changeOnly";
+    public static final String MIN_INTERVAL = "minInterval";
+
+    private interface Stage {
+        boolean accept(long timestampMs, double[] values, int poorSignal);
+
+        void reset();
+    }
+
+    private final String[] types;
+    private final double[] params;
+    private final Stage[] stages;
+    private final long[] dropped;
+    private long inputCount = 0;
+    private long outputCount = 0;
+
+    public SignalPipeline(String[] types, double[] params) {
+        this.types = types.clone();
+        this.params = params.clone();
+        stages = new Stage[types.length];
+        dropped = new long[types.length];
+        for (int i = 0; i < types.length; i++) {
+            stages[i] = createStage(types[i], params[i]);
+        }
+    }
+
+    // 解析 JS 傳入的階段陣列；格式錯誤時丟出 IllegalArgumentException
+    public static SignalPipeline fromConfig(ReadableArray config) {
+        String[] types = new String[config.size()];
+        double[] params = new double[config.size()];
+        for (int i = 0; i < config.size(); i++) {
+            ReadableMap stage = config.getMap(i);
+            String type = stage.getString("type");
+            String key = paramKey(type);
+            if (!stage.hasKey(key)) {
+                throw new IllegalArgumentException(type + " 缺少參數 " + key);
+            }
+            types[i] = type;
+            params[i] = stage.getDouble(key);
+        }
+        return new SignalPipeline(types, params);
+    }
+
+    // 建立狀態獨立、設定相同的管線（例如每個投擲站各一條）
+    public SignalPipeline copy() {
+        return new SignalPipeline(types, params);
+    }
+
+    public boolean process(long timestampMs, double[] values, int poorSignal) {
+        inputCount++;
+        for (int i = 0; i < stages.length; i++) {
+            if (!stages[i].accept(timestampMs, values, poorSignal)) {
+                dropped[i]++;
+                return false;
+            }
+        }
+        outputCount++;
+        return true;
+    }
+
+    public void reset() {
+        for (Stage stage : stages) {
+            stage.reset();
+        }
+    }
+
+    public WritableMap getStats() {
+        WritableMap stats = Arguments.createMap();
+        WritableArray list = Arguments.createArray();
+        for (int i = 0; i < stages.length; i++) {
+            WritableMap stage = Arguments.createMap();
+            stage.putString("type", types[i]);
+            stage.putDouble(paramKey(types[i]), params[i]);
+            stage.putDouble("dropped", dropped[i]);
+            list.pushMap(stage);
+        }
+        stats.putArray("stages", list);
+        stats.putDouble("input", inputCount);
+        stats.putDouble("output", outputCount);
+        return stats;
+    }
+
+    private static String paramKey(String type) {
+        if (POOR_SIGNAL_GATE.equals(type)) {
+            return "threshold";
+        } else if (EMA.equals(type)) {
+            return "alpha";
+        } else if (DECIMATE.equals(type)) {
+            return "factor";
+        } else if (CHANGE_ONLY.equals(type)) {
+            return "minDelta";
+        } else if (MIN_INTERVAL.equals(type)) {
+            return "ms";
+        }
+        throw new IllegalArgumentException("未知的管線階段: " + type);
+    }
+
+    private static Stage createStage(String type, double param) {
+        paramKey(type);
+        if (POOR_SIGNAL_GATE.equals(type)) {
+            return new PoorSignalGate((int) param);
+        } else if (EMA.equals(type)) {
+            if (param <= 0 || param > 1) {
+                throw new IllegalArgumentException("ema alpha 必須介於 0 ~ 1: " + param);
+            }
+            return new Ema(param);
+        } else if (DECIMATE.equals(type)) {
+            return new Decimate(Math.max(1, (int) param));
+        } else if (CHANGE_ONLY.equals(type)) {
+            return new ChangeOnly(param);
+        }
+        return new MinInterval((long) param);
+    }
+
+    private static final class PoorSignalGate implements Stage {
+        private final int threshold;
+
+        PoorSignalGate(int threshold) {
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean accept(long timestampMs, double[] values, int poorSignal) {
+            return poorSignal <= threshold;
+        }
+
+        @Override
+        public void reset() {
+        }
+    }
+
+    private static final class Ema implements Stage {
+        private final double alpha;
+        private double[] state;
+        private boolean primed = false;
+
+        Ema(double alpha) {
+            this.alpha = alpha;
+        }
+
+        @Override
+        public boolean accept(long timestampMs, double[] values, int poorSignal) {
+            if (state == null || state.length != values.length) {
+                state = new double[values.length];
+                primed = false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                state[i] = primed ? state[i] + alpha * (values[i] - state[i]) : values[i];
+                values[i] = state[i];
+            }
+            primed = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            primed = false;
+        }
+    }
+
+    private static final class Decimate implements Stage {
+        private final int factor;
+        private int counter = 0;
+
+        Decimate(int factor) {
+            this.factor = factor;
+        }
+
+        @Override
+        public boolean accept(long timestampMs, double[] values, int poorSignal) {
+            boolean pass = counter == 0;
+            counter = (counter + 1) % factor;
+            return pass;
+        }
+
+        @Override
+        public void reset() {
+            counter = 0;
+        }
+    }
+
+    private static final class ChangeOnly implements Stage {
+        private final double minDelta;
+        private double[] last;
+        private boolean hasLast = false;
+
+        ChangeOnly(double minDelta) {
+            this.minDelta = minDelta;
+        }
+
+        @Override
+        public boolean accept(long timestampMs, double[] values, int poorSignal) {
+            if (last == null || last.length != values.length) {
+                last = new double[values.length];
+                hasLast = false;
+            }
+            boolean changed = !hasLast;
+            for (int i = 0; i < values.length && !changed; i++) {
+                changed = Math.abs(values[i] - last[i]) >= minDelta;
+            }
+            if (!changed) {
+                return false;
+            }
+            System.arraycopy(values, 0, last, 0, values.length);
+            hasLast = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            hasLast = false;
+        }
+    }
+
+    private static final class MinInterval implements Stage {
+        private final long intervalMs;
+        private long lastEmitted = Long.MIN_VALUE;
+
+        MinInterval(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        @Override
+        public boolean accept(long timestampMs, double[] values, int poorSignal) {
+            if (lastEmitted != Long.MIN_VALUE && timestampMs - lastEmitted < intervalMs) {
+                return false;
+            }
+            lastEmitted = timestampMs;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            lastEmitted = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.throwp;
+
+// 原始腦波的頻帶功率引擎
+// 以環形緩衝保存最近 fftSize 個樣本，每收到 hopSize 個新樣本就對重疊的視窗做一次
+// Hann 視窗 + radix-2 FFT，並把功率譜依頻帶邊界加總。
+// 視窗、三角函數表、位元反轉表與工作陣列都在建構時配置，每個視窗不配置任何物件
+public class SpectralEngine {
+    public static final String[] DEFAULT_BAND_NAMES = {
+            "delta", "theta", "lowAlpha", "highAlpha", "lowBeta", "highBeta", "lowGamma", "midGamma"
+    };
+    // 與 ThinkGear 文件的頻帶範圍一致（Hz），方便與 TGEegPower 對照
+    public static final double[][] DEFAULT_BAND_EDGES = {
+            {0.5, 2.75}, {3.5, 6.75}, {7.5, 9.25}, {10, 11.75},
+            {13, 16.75}, {18, 29.75}, {31, 39.75}, {41, 49.75}
+    };
+    // fftSize 上限：512 Hz 下約 8 秒視窗，已足夠頻率解析度，避免 JS 傳入過大值時配置巨大陣列
+    public static final int MAX_FFT_SIZE = 4096;
+
+    private final double sampleRate;
+    private final int fftSize;
+    private final int hopSize;
+    private final int[] bandStartBin;
+    private final int[] bandEndBin;  // 不含
+
+    private final double[] ring;
+    private int ringIndex = 0;
+    private int filled = 0;
+    private int sinceLastWindow = 0;
+
+    private final double[] window;
+    private final double windowPower;
+    private final double[] re;
+    private final double[] im;
+    private final double[] cosTable;
+    private final double[] sinTable;
+    private final int[] bitReverse;
+    private final double[] bandPower;
+    private double totalPower = 0;
+    private long windowCount = 0;
+
+    // fftSize 需為不超過 MAX_FFT_SIZE 的 2 的次方；hopSize 決定更新頻率（sampleRate / hopSize 次/秒）
+    public SpectralEngine(double sampleRate, int fftSize, int hopSize, double[][] bandEdges) {
+        if (fftSize < 2 || Integer.bitCount(fftSize) != 1) {
+            throw new IllegalArgumentException("fftSize 必須為 2 的次方: " + fftSize);
+        }
+        if (fftSize > MAX_FFT_SIZE) {
+            throw new IllegalArgumentException("fftSize 不可超過 " + MAX_FFT_SIZE + ": " + fftSize);
+        }
+        this.sampleRate = sampleRate;
+        this.fftSize = fftSize;
+        this.hopSize = Math.max(1, Math.min(hopSize, fftSize));
+
+        ring = new double[fftSize];
+        re = new double[fftSize];
+        im = new double[fftSize];
+
+        window = new double[fftSize];
+        double sum = 0;
+        for (int i = 0; i < fftSize; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / fftSize);
+            sum += window[i] * window[i];
+        }
+        windowPower = sum;
+
+        cosTable = new double[fftSize / 2];
+        sinTable = new double[fftSize / 2];
+        for (int i = 0; i < fftSize / 2; i++) {
+            cosTable[i] = Math.cos(2 * Math.PI * i / fftSize);
+            sinTable[i] = Math.sin(2 * Math.PI * i / fftSize);
+        }
+
+        int bits = Integer.numberOfTrailingZeros(fftSize);
+        bitReverse = new int[fftSize];
+        for (int i = 0; i < fftSize; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        // 頻帶邊界換算成 bin 範圍：包含 low <= f < high 的 bin
+        double binWidth = sampleRate / fftSize;
+        int nyquistBin = fftSize / 2;
+        bandStartBin = new int[bandEdges.length];
+        bandEndBin = new int[bandEdges.length];
+        for (int b = 0; b < bandEdges.length; b++) {
+            bandStartBin[b] = Math.min(nyquistBin + 1, (int) Math.ceil(bandEdges[b][0] / binWidth));
+            bandEndBin[b] = Math.min(nyquistBin + 1, (int) Math.ceil(bandEdges[b][1] / binWidth));
+        }
+        bandPower = new double[bandEdges.length];
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public double getUpdateRateHz() {
+        return sampleRate / hopSize;
+    }
+
+    public int getBandCount() {
+        return bandPower.length;
+    }
+
+    public long getWindowCount() {
+        return windowCount;
+    }
+
+    // 加入一個樣本；完成一個新視窗時回傳 true，可從 getBandPower 讀取結果
+    public boolean add(int sample) {
+        ring[ringIndex] = sample;
+        ringIndex = (ringIndex + 1) & (fftSize - 1);
+        if (filled < fftSize) {
+            filled++;
+        }
+        sinceLastWindow++;
+        if (filled < fftSize || sinceLastWindow < hopSize) {
+            return false;
+        }
+        sinceLastWindow = 0;
+        computeWindow();
+        return true;
+    }
+
+    // 頻帶功率（原始值平方，等於該頻帶成分的變異數）
+    public double getBandPower(int band) {
+        return bandPower[band];
+    }
+
+    // 頻帶功率佔 0.5 Hz 以上總功率的比例
+    public double getRelativeBandPower(int band) {
+        return totalPower > 0 ? bandPower[band] / totalPower : 0;
+    }
+
+    public double getTotalPower() {
+        return totalPower;
+    }
+
+    public void reset() {
+        ringIndex = 0;
+        filled = 0;
+        sinceLastWindow = 0;
+        totalPower = 0;
+        for (int b = 0; b < bandPower.length; b++) {
+            bandPower[b] = 0;
+        }
+    }
+
+    private void computeWindow() {
+        // 依時間順序取出視窗並去除直流成分
+        double mean = 0;
+        for (int i = 0; i < fftSize; i++) {
+            mean += ring[i];
+        }
+        mean /= fftSize;
+        for (int i = 0; i < fftSize; i++) {
+            double value = ring[(ringIndex + i) & (fftSize - 1)] - mean;
+            int j = bitReverse[i];
+            re[j] = value * window[i];
+            im[j] = 0;
+        }
+        fft();
+
+        // 單邊功率譜：除了 DC 與 Nyquist 外乘 2
+        double scale = 1.0 / (windowPower * fftSize);
+        for (int b = 0; b < bandPower.length; b++) {
+            bandPower[b] = 0;
+        }
+        int nyquistBin = fftSize / 2;
+        int minBin = (int) Math.ceil(0.5 * fftSize / sampleRate);
+        totalPower = 0;
+        for (int k = minBin; k <= nyquistBin; k++) {
+            double power = (re[k] * re[k] + im[k] * im[k]) * scale;
+            if (k != 0 && k != nyquistBin) {
+                power *= 2;
+            }
+            totalPower += power;
+        }
+        for (int b = 0; b < bandPower.length; b++) {
+            double sum = 0;
+            for (int k = bandStartBin[b]; k < bandEndBin[b]; k++) {
+                double power = (re[k] * re[k] + im[k] * im[k]) * scale;
+                if (k != 0 && k != nyquistBin) {
+                    power *= 2;
+                }
+                sum += power;
+            }
+            bandPower[b] = sum;
+        }
+        windowCount++;
+    }
+
+    // 原地 radix-2 迭代 FFT，輸入已依位元反轉順序排列
+    private void fft() {
+        for (int size = 2; size <= fftSize; size <<= 1) {
+            int half = size >>> 1;
+            int step = fftSize / size;
+            for (int start = 0; start < fftSize; start += size) {
+                for (int k = 0; k < half; k++) {
+                    double wr = cosTable[k * step];
+                    double wi = -sinTable[k * step];
+                    int even = start + k;
+                    int odd = even + half;
+                    double tr = wr * re[odd] - wi * im[odd];
+                    double ti = wr * im[odd] + wi * re[odd];
+                    re[odd] = re[even] - tr;
+                    im[odd] = im[even] - ti;
+                    re[even] += tr;
+                    im[even] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.throwp;
+
+// 投擲事件與腦波狀態的對齊
+// 腦波樣本與投擲通知都以 elapsedRealtimeNanos 在各自的藍牙回調中蓋時間戳，
+// 每次投擲取投擲時刻前後的樣本：nearest 為時間最接近的樣本，interpolated 為前後兩個樣本的線性內插。
+// 專注度約每秒一筆，投擲發生時通常還沒有之後的樣本，因此投擲先進入等待佇列，
+// 等所有通道都收到投擲之後的樣本，或等待超過 maxWaitNanos 時才完成（此時只有之前的樣本可用）。
+// 只在 NeuroSkyModule 的擷取執行緒上使用，不配置物件
+public class ThrowCorrelator {
+    public static final int DEFAULT_HISTORY = 64;
+    public static final int MAX_PENDING = 32;
+    public static final long DEFAULT_MAX_WAIT_NANOS = 1_500_000_000L;
+
+    // 通道：專注度、冥想度、頻帶功率
+    public static final int CHANNEL_ATTENTION = 0;
+    public static final int CHANNEL_MEDITATION = 1;
+    public static final int CHANNEL_BANDS = 2;
+
+    public interface Listener {
+        void onCorrelated(Correlation correlation);
+    }
+
+    // 一次投擲的對齊結果，由 resolveReady 重複使用，只在回調中有效
+    public static final class Correlation {
+        public long throwNanos;
+        public boolean cast;
+        public boolean castBig;
+        public int sequence;
+        public String stationId;
+        public int stationIndex;
+        // 各通道是否有可用的樣本
+        public final boolean[] available = new boolean[3];
+        // 各通道是否同時有投擲前後的樣本（否則 interpolated 等於 nearest）
+        public final boolean[] bracketed = new boolean[3];
+        // 最接近的樣本相對於投擲時刻的時間差（毫秒，負值表示在投擲之前）
+        public final double[] nearestOffsetMs = new double[3];
+        public int attentionNearest;
+        public double attentionInterpolated;
+        public int meditationNearest;
+        public double meditationInterpolated;
+        public final int[] bandsNearest = new int[EegSessionStore.BAND_NAMES.length];
+        public final double[] bandsInterpolated = new double[EegSessionStore.BAND_NAMES.length];
+    }
+
+    private final SampleRingBuffer attention;
+    private final SampleRingBuffer meditation;
+    private final SampleRingBuffer bands;
+    private long maxWaitNanos = DEFAULT_MAX_WAIT_NANOS;
+
+    // 等待中的投擲，以環形佇列保存，依投擲時間排序
+    private final long[] pendingNanos = new long[MAX_PENDING];
+    private final boolean[] pendingCast = new boolean[MAX_PENDING];
+    private final boolean[] pendingCastBig = new boolean[MAX_PENDING];
+    private final int[] pendingSequence = new int[MAX_PENDING];
+    private final String[] pendingStationId = new String[MAX_PENDING];
+    private final int[] pendingStationIndex = new int[MAX_PENDING];
+    private int pendingHead = 0;
+    private int pendingCount = 0;
+
+    private final Correlation correlation = new Correlation();
+    // correlateChannel 找到的投擲前後與最接近的樣本序號（-1 表示沒有），供 nearestValue/interpolatedValue 使用
+    private long before;
+    private long after;
+    private long nearest;
+    private long correlatedCount = 0;
+    private long timedOutCount = 0;
+    private long overflowCount = 0;
+
+    public ThrowCorrelator(int history) {
+        attention = new SampleRingBuffer(1, history);
+        meditation = new SampleRingBuffer(1, history);
+        bands = new SampleRingBuffer(EegSessionStore.BAND_NAMES.length, history);
+    }
+
+    public void setMaxWaitNanos(long maxWaitNanos) {
+        this.maxWaitNanos = Math.max(0, maxWaitNanos);
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public void addAttention(long nanos, int value) {
+        attention.append(nanos, value);
+    }
+
+    public void addMeditation(long nanos, int value) {
+        meditation.append(nanos, value);
+    }
+
+    public void addBands(long nanos, int[] row) {
+        bands.append(nanos, row);
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public long getCorrelatedCount() {
+        return correlatedCount;
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    public long getOverflowCount() {
+        return overflowCount;
+    }
+
+    // 加入一次投擲；佇列已滿時先以目前的樣本完成最舊的投擲
+    public void addThrow(long nanos, boolean cast, boolean castBig, int sequence,
+                         String stationId, int stationIndex, Listener listener) {
+        if (pendingCount == MAX_PENDING) {
+            overflowCount++;
+            completeHead(listener);
+        }
+        int slot = (pendingHead + pendingCount) % MAX_PENDING;
+        pendingNanos[slot] = nanos;
+        pendingCast[slot] = cast;
+        pendingCastBig[slot] = castBig;
+        pendingSequence[slot] = sequence;
+        pendingStationId[slot] = stationId;
+        pendingStationIndex[slot] = stationIndex;
+        pendingCount++;
+    }
+
+    // 完成所有已經有後續樣本或等待逾時的投擲，回傳完成的數量
+    public int resolveReady(long nowNanos, Listener listener) {
+        int resolved = 0;
+        while (pendingCount > 0) {
+            long throwNanos = pendingNanos[pendingHead];
+            boolean ready = hasLaterSample(attention, throwNanos)
+                    && hasLaterSample(meditation, throwNanos)
+                    && hasLaterSample(bands, throwNanos);
+            if (!ready) {
+                if (nowNanos - throwNanos < maxWaitNanos) {
+                    break;
+                }
+                timedOutCount++;
+            }
+            completeHead(listener);
+            resolved++;
+        }
+        return resolved;
+    }
+
+    // 不再等待後續樣本，以目前已有的樣本完成所有投擲（例如頭戴裝置未連線時），回傳完成的數量
+    public int resolveAll(Listener listener) {
+        int resolved = 0;
+        while (pendingCount > 0) {
+            completeHead(listener);
+            resolved++;
+        }
+        return resolved;
+    }
+
+    public void clear() {
+        attention.clear();
+        meditation.clear();
+        bands.clear();
+        for (int i = 0; i < MAX_PENDING; i++) {
+            pendingStationId[i] = null;
+        }
+        pendingHead = 0;
+        pendingCount = 0;
+    }
+
+    private static boolean hasLaterSample(SampleRingBuffer buffer, long nanos) {
+        return buffer.getWriteSequence() > 0 && buffer.latestTimestamp() >= nanos;
+    }
+
+    private void completeHead(Listener listener) {
+        int slot = pendingHead;
+        Correlation c = correlation;
+        c.throwNanos = pendingNanos[slot];
+        c.cast = pendingCast[slot];
+        c.castBig = pendingCastBig[slot];
+        c.sequence = pendingSequence[slot];
+        c.stationId = pendingStationId[slot];
+        c.stationIndex = pendingStationIndex[slot];
+        pendingStationId[slot] = null;
+        pendingHead = (pendingHead + 1) % MAX_PENDING;
+        pendingCount--;
+
+        c.attentionNearest = 0;
+        c.attentionInterpolated = 0;
+        c.meditationNearest = 0;
+        c.meditationInterpolated = 0;
+        for (int b = 0; b < c.bandsNearest.length; b++) {
+            c.bandsNearest[b] = 0;
+            c.bandsInterpolated[b] = 0;
+        }
+        if (correlateChannel(attention, CHANNEL_ATTENTION, c.throwNanos)) {
+            c.attentionNearest = nearestValue(attention, 0);
+            c.attentionInterpolated = interpolatedValue(attention, 0, c.throwNanos);
+        }
+        if (correlateChannel(meditation, CHANNEL_MEDITATION, c.throwNanos)) {
+            c.meditationNearest = nearestValue(meditation, 0);
+            c.meditationInterpolated = interpolatedValue(meditation, 0, c.throwNanos);
+        }
+        if (correlateChannel(bands, CHANNEL_BANDS, c.throwNanos)) {
+            for (int b = 0; b < c.bandsNearest.length; b++) {
+                c.bandsNearest[b] = nearestValue(bands, b);
+                c.bandsInterpolated[b] = interpolatedValue(bands, b, c.throwNanos);
+            }
+        }
+        correlatedCount++;
+        listener.onCorrelated(c);
+    }
+
+    // 找出投擲前後的樣本並填入 available/bracketed/nearestOffsetMs；通道沒有樣本時回傳 false
+    private boolean correlateChannel(SampleRingBuffer buffer, int channel, long throwNanos) {
+        Correlation c = correlation;
+        long write = buffer.getWriteSequence();
+        if (write == 0) {
+            c.available[channel] = false;
+            c.bracketed[channel] = false;
+            c.nearestOffsetMs[channel] = 0;
+            return false;
+        }
+        before = buffer.floorSequence(throwNanos);
+        after = before + 1 < write ? before + 1 : -1;
+        if (before < 0) {
+            after = buffer.getOldestSequence();
+        }
+        if (before < 0) {
+            nearest = after;
+        } else if (after < 0) {
+            nearest = before;
+        } else {
+            long beforeGap = throwNanos - buffer.timestampAt(before);
+            long afterGap = buffer.timestampAt(after) - throwNanos;
+            nearest = beforeGap <= afterGap ? before : after;
+        }
+        c.available[channel] = true;
+        c.bracketed[channel] = before >= 0 && after >= 0;
+        c.nearestOffsetMs[channel] = (buffer.timestampAt(nearest) - throwNanos) / 1_000_000.0;
+        return true;
+    }
+
+    private int nearestValue(SampleRingBuffer buffer, int column) {
+        return buffer.valueAt(nearest, column);
+    }
+
+    private double interpolatedValue(SampleRingBuffer buffer, int column, long throwNanos) {
+        if (before < 0 || after < 0) {
+            return buffer.valueAt(nearest, column);
+        }
+        long t0 = buffer.timestampAt(before);
+        long t1 = buffer.timestampAt(after);
+        double v0 = buffer.valueAt(before, column);
+        double v1 = buffer.valueAt(after, column);
+        if (t1 <= t0) {
+            return v0;
+        }
+        return v0 + (v1 - v0) * (double) (throwNanos - t0) / (t1 - t0);
+    }
+}
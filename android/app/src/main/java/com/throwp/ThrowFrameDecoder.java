@@ -0,0 +1,240 @@
+package com.throwp;
+
+// ESP32 通知資料解碼器
+// 同時支援精簡的二進位框架與舊版 JSON（{"cast":true} / {"castbig":true}），
+// 跨多個通知的資料會在可重複使用的緩衝區中重組，解碼過程不建立 String
+//
+// 二進位框架格式：
+//   [0xA5][type][len][payload x len][checksum]
+//   checksum 為 type、len 與 payload 所有位元組的 XOR
+//   TYPE_THROW 的 payload：[kind][sequence 低位元組][sequence 高位元組]
+//   kind：1 = cast，2 = castbig
+public class ThrowFrameDecoder {
+    public static final int FRAME_MAGIC = 0xA5;
+    public static final int TYPE_THROW = 0x01;
+    public static final int KIND_CAST = 1;
+    public static final int KIND_CAST_BIG = 2;
+
+    public static final int FORMAT_JSON = 0;
+    public static final int FORMAT_BINARY = 1;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_BINARY = 1;
+    private static final int STATE_JSON = 2;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int MAX_BUFFER_SIZE = 4096;
+
+    private static final byte[] KEY_CAST = {'"', 'c', 'a', 's', 't', '"'};
+    private static final byte[] KEY_CAST_BIG = {'"', 'c', 'a', 's', 't', 'b', 'i', 'g', '"'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    public interface Listener {
+        // 解出一次投擲事件；sequence 僅二進位框架提供，JSON 為 -1
+        void onThrow(int format, boolean cast, boolean castBig, int sequence);
+
+        // 非投擲的 JSON 或無法辨識的文字，交由呼叫者以舊方式轉送
+        void onMessage(byte[] buffer, int offset, int length);
+    }
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length = 0;
+    private int state = STATE_IDLE;
+    // JSON 重組狀態
+    private int depth = 0;
+    private boolean inString = false;
+    private boolean escaped = false;
+
+    private long framesDecoded = 0;
+    private long jsonDecoded = 0;
+    private long checksumErrors = 0;
+    private long overflows = 0;
+
+    public void feed(byte[] data, Listener listener) {
+        if (data != null) {
+            feed(data, 0, data.length, listener);
+        }
+    }
+
+    public void feed(byte[] data, int offset, int count, Listener listener) {
+        int end = offset + count;
+        int i = offset;
+        while (i < end) {
+            int b = data[i] & 0xFF;
+            switch (state) {
+                case STATE_IDLE:
+                    if (b == FRAME_MAGIC) {
+                        length = 0;
+                        state = STATE_BINARY;
+                        i++;
+                    } else if (b == '{') {
+                        length = 0;
+                        depth = 0;
+                        inString = false;
+                        escaped = false;
+                        state = STATE_JSON;
+                    } else if (b == ' ' || b == '\r' || b == '\n' || b == '\t' || b == 0) {
+                        i++;
+                    } else {
+                        // 無法辨識的資料，將本次通知剩餘部分原樣轉送
+                        listener.onMessage(data, i, end - i);
+                        return;
+                    }
+                    break;
+
+                case STATE_BINARY:
+                    if (!append((byte) b)) {
+                        state = STATE_IDLE;
+                        i++;
+                        break;
+                    }
+                    i++;
+                    // buffer: [type][len][payload...][checksum]
+                    if (length >= 2 && length == (buffer[1] & 0xFF) + 3) {
+                        finishBinaryFrame(listener);
+                        state = STATE_IDLE;
+                    }
+                    break;
+
+                case STATE_JSON:
+                    if (!append((byte) b)) {
+                        state = STATE_IDLE;
+                        i++;
+                        break;
+                    }
+                    i++;
+                    if (escaped) {
+                        escaped = false;
+                    } else if (inString) {
+                        if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = true;
+                    } else if (b == '{') {
+                        depth++;
+                    } else if (b == '}') {
+                        depth--;
+                        if (depth == 0) {
+                            finishJson(listener);
+                            state = STATE_IDLE;
+                        }
+                    }
+                    break;
+
+                default:
+                    state = STATE_IDLE;
+                    break;
+            }
+        }
+    }
+
+    // 重新同步，丟棄尚未完成的資料（例如斷線後）
+    public void reset() {
+        length = 0;
+        state = STATE_IDLE;
+        depth = 0;
+        inString = false;
+        escaped = false;
+    }
+
+    public long getFramesDecoded() {
+        return framesDecoded;
+    }
+
+    public long getJsonDecoded() {
+        return jsonDecoded;
+    }
+
+    public long getChecksumErrors() {
+        return checksumErrors;
+    }
+
+    public long getOverflows() {
+        return overflows;
+    }
+
+    private boolean append(byte b) {
+        if (length == buffer.length) {
+            if (buffer.length >= MAX_BUFFER_SIZE) {
+                overflows++;
+                length = 0;
+                return false;
+            }
+            byte[] grown = new byte[Math.min(buffer.length * 2, MAX_BUFFER_SIZE)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+        buffer[length++] = b;
+        return true;
+    }
+
+    private void finishBinaryFrame(Listener listener) {
+        int payloadLength = buffer[1] & 0xFF;
+        int checksum = 0;
+        for (int i = 0; i < payloadLength + 2; i++) {
+            checksum ^= buffer[i] & 0xFF;
+        }
+        if (checksum != (buffer[payloadLength + 2] & 0xFF)) {
+            checksumErrors++;
+            return;
+        }
+        framesDecoded++;
+        int type = buffer[0] & 0xFF;
+        if (type == TYPE_THROW && payloadLength >= 1) {
+            int kind = buffer[2] & 0xFF;
+            int sequence = payloadLength >= 3 ? (buffer[3] & 0xFF) | ((buffer[4] & 0xFF) << 8) : -1;
+            listener.onThrow(FORMAT_BINARY, kind == KIND_CAST, kind == KIND_CAST_BIG, sequence);
+        }
+    }
+
+    private void finishJson(Listener listener) {
+        jsonDecoded++;
+        boolean cast = isKeyTrue(KEY_CAST);
+        boolean castBig = isKeyTrue(KEY_CAST_BIG);
+        if (cast || castBig) {
+            listener.onThrow(FORMAT_JSON, cast, castBig, -1);
+        } else {
+            listener.onMessage(buffer, 0, length);
+        }
+    }
+
+    // 在目前的 JSON 內容中尋找 "key" : true
+    private boolean isKeyTrue(byte[] key) {
+        int limit = length - key.length;
+        for (int start = 0; start <= limit; start++) {
+            if (!regionMatches(start, key)) {
+                continue;
+            }
+            int p = skipWhitespace(start + key.length);
+            if (p < length && buffer[p] == ':') {
+                p = skipWhitespace(p + 1);
+                if (regionMatches(p, TRUE)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean regionMatches(int start, byte[] expected) {
+        if (start + expected.length > length) {
+            return false;
+        }
+        for (int k = 0; k < expected.length; k++) {
+            if (buffer[start + k] != expected[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipWhitespace(int p) {
+        while (p < length && (buffer[p] == ' ' || buffer[p] == '\t' || buffer[p] == '\r' || buffer[p] == '\n')) {
+            p++;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,124 @@
+package com.throwp;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+// 原始設備流量擷取
+// 把每個 TGDevice Message（what / arg1 / arg2 / TGEegPower）與每個 GATT 通知，
+// 連同奈秒時間戳寫入精簡的二進位檔案，供 TrafficReplayer 在沒有硬體時重播
+//
+// 檔案格式（big-endian）：
+//   標頭：MAGIC(int) VERSION(short)
+//   TGDevice 訊息：RECORD_MESSAGE(byte) nanos(long) what(int) arg1(int) arg2(int)
+//                 powerCount(byte) power(int x powerCount)
+//   GATT 通知：RECORD_NOTIFICATION(byte) nanos(long) length(short) data(byte x length)
+public class TrafficRecorder {
+    public static final int MAGIC = 0x54504341;  // "TPCA"
+    public static final short VERSION = 1;
+    public static final byte RECORD_MESSAGE = 1;
+    public static final byte RECORD_NOTIFICATION = 2;
+    public static final String FILE_EXTENSION = ".tpcap";
+
+    // 目前啟用中的擷取，NeuroSkyModule 與 ESP32Module 共用同一個檔案
+    private static volatile TrafficRecorder active;
+
+    private final File file;
+    private final DataOutputStream out;
+    private long messageCount = 0;
+    private long notificationCount = 0;
+    private boolean closed = false;
+
+    private TrafficRecorder(File file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    public static synchronized TrafficRecorder start(File file) throws IOException {
+        if (active != null) {
+            throw new IOException("擷取已在進行中: " + active.file.getAbsolutePath());
+        }
+        active = new TrafficRecorder(file);
+        return active;
+    }
+
+    public static TrafficRecorder active() {
+        return active;
+    }
+
+    public static synchronized TrafficRecorder stop() throws IOException {
+        TrafficRecorder recorder = active;
+        active = null;
+        if (recorder != null) {
+            recorder.close();
+        }
+        return recorder;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized long getMessageCount() {
+        return messageCount;
+    }
+
+    public synchronized long getNotificationCount() {
+        return notificationCount;
+    }
+
+    // power 為 null 表示訊息沒有附帶 TGEegPower
+    public synchronized void recordMessage(long nanos, int what, int arg1, int arg2, int[] power) {
+        if (closed) {
+            return;
+        }
+        try {
+            out.writeByte(RECORD_MESSAGE);
+            out.writeLong(nanos);
+            out.writeInt(what);
+            out.writeInt(arg1);
+            out.writeInt(arg2);
+            int count = power != null ? power.length : 0;
+            out.writeByte(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(power[i]);
+            }
+            messageCount++;
+        } catch (IOException e) {
+            closeQuietly();
+        }
+    }
+
+    public synchronized void recordNotification(long nanos, byte[] data) {
+        if (closed || data == null) {
+            return;
+        }
+        try {
+            out.writeByte(RECORD_NOTIFICATION);
+            out.writeLong(nanos);
+            out.writeShort(data.length);
+            out.write(data);
+            notificationCount++;
+        } catch (IOException e) {
+            closeQuietly();
+        }
+    }
+
+    private synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+        }
+    }
+}
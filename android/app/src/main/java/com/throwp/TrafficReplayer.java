@@ -0,0 +1,122 @@
+package com.throwp;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+// 重播 TrafficRecorder 擷取的檔案
+// 在自己的執行緒上依原始時間間隔（乘上 speed 倍率）送出資料；speed 為 0 時不等待，
+// 用於壓力測試
+public class TrafficReplayer {
+    public interface Listener {
+        void onMessage(int what, int arg1, int arg2, int[] power);
+
+        void onNotification(byte[] data);
+
+        void onFinished(long messages, long notifications, Exception error);
+    }
+
+    private final File file;
+    private final double speed;
+    private final Listener listener;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public TrafficReplayer(File file, double speed, Listener listener) {
+        this.file = file;
+        this.speed = speed;
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "TrafficReplay");
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        Thread current = thread;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long messages = 0;
+        long notifications = 0;
+        Exception error = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != TrafficRecorder.MAGIC) {
+                throw new IOException("不是有效的擷取檔案: " + file.getName());
+            }
+            short version = in.readShort();
+            if (version != TrafficRecorder.VERSION) {
+                throw new IOException("不支援的擷取檔案版本: " + version);
+            }
+
+            long firstRecordNanos = -1;
+            long startNanos = System.nanoTime();
+            while (running) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException eof) {
+                    break;
+                }
+                long nanos = in.readLong();
+                if (firstRecordNanos < 0) {
+                    firstRecordNanos = nanos;
+                }
+                if (speed > 0) {
+                    long dueNanos = startNanos + (long) ((nanos - firstRecordNanos) / speed);
+                    long waitNanos = dueNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+                    }
+                }
+
+                if (type == TrafficRecorder.RECORD_MESSAGE) {
+                    int what = in.readInt();
+                    int arg1 = in.readInt();
+                    int arg2 = in.readInt();
+                    int count = in.readUnsignedByte();
+                    int[] power = null;
+                    if (count > 0) {
+                        power = new int[count];
+                        for (int i = 0; i < count; i++) {
+                            power[i] = in.readInt();
+                        }
+                    }
+                    listener.onMessage(what, arg1, arg2, power);
+                    messages++;
+                } else if (type == TrafficRecorder.RECORD_NOTIFICATION) {
+                    int length = in.readUnsignedShort();
+                    byte[] data = new byte[length];
+                    in.readFully(data);
+                    listener.onNotification(data);
+                    notifications++;
+                } else {
+                    throw new IOException("未知的紀錄類型: " + type);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stop() 中斷等待
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            running = false;
+            listener.onFinished(messages, notifications, error);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.throwp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BoundedEventQueueTest {
+    @Test
+    public void dropsOldestWhenFull() {
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertFalse(queue.offer("onSignalChange", i, i));
+        }
+        assertEquals(0, queue.getDroppedCount());
+
+        // 超過容量 3 筆，最舊的 0、1、2 被丟棄
+        for (int i = 4; i < 7; i++) {
+            assertTrue(queue.offer("onSignalChange", i, i));
+        }
+        assertEquals(4, queue.size());
+        assertEquals(3, queue.getDroppedCount());
+
+        List<Integer> payloads = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        assertEquals(4, queue.drain(Integer.MAX_VALUE, (eventName, payload, receivedNanos) -> {
+            payloads.add(payload);
+            times.add(receivedNanos);
+        }));
+        assertEquals(List.of(3, 4, 5, 6), payloads);
+        assertEquals(List.of(3L, 4L, 5L, 6L), times);
+        assertEquals(0, queue.size());
+        assertEquals(3, queue.getDroppedCount());
+    }
+
+    @Test
+    public void drainRespectsBatchLimit() {
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer("onEegPower", i, i);
+        }
+        List<Integer> payloads = new ArrayList<>();
+        assertEquals(2, queue.drain(2, (eventName, payload, receivedNanos) -> payloads.add(payload)));
+        assertEquals(List.of(0, 1), payloads);
+        assertEquals(3, queue.size());
+
+        // 取出後騰出的空間可再加入，不會誤計為丟棄
+        for (int i = 5; i < 10; i++) {
+            queue.offer("onEegPower", i, i);
+        }
+        assertEquals(8, queue.size());
+        assertEquals(0, queue.getDroppedCount());
+
+        queue.offer("onEegPower", 10, 10);
+        assertEquals(1, queue.getDroppedCount());
+        payloads.clear();
+        queue.drain(Integer.MAX_VALUE, (eventName, payload, receivedNanos) -> payloads.add(payload));
+        assertEquals(List.of(3, 4, 5, 6, 7, 8, 9, 10), payloads);
+
+        queue.resetDroppedCount();
+        assertEquals(0, queue.getDroppedCount());
+    }
+}
@@ -0,0 +1,53 @@
+package com.throwp.benchmarks;
+
+import com.throwp.AdvertisementParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+
+// ESP32Module 掃描回調中的廣播資料比對
+@State(Scope.Thread)
+public class AdvertisementParserBenchmark {
+    private static final byte[] NAME = "Alchemy_TP".getBytes(StandardCharsets.UTF_8);
+
+    private byte[] target;
+    private byte[] unrelated;
+
+    @Setup
+    public void setup() {
+        // Flags + 16 位元服務 UUID FFE0 + 完整名稱
+        target = new byte[] {
+            0x02, 0x01, 0x06,
+            0x03, 0x03, (byte) 0xE0, (byte) 0xFF,
+            0x0B, 0x09, 'A', 'l', 'c', 'h', 'e', 'm', 'y', '_', 'T', 'P'
+        };
+        // 房間中常見的其他設備：Flags + 製造商資料 + 128 位元 UUID + 名稱
+        unrelated = new byte[] {
+            0x02, 0x01, 0x1A,
+            0x0B, (byte) 0xFF, 0x4C, 0x00, 0x10, 0x06, 0x31, 0x1D, 0x10, 0x22, 0x33, 0x44,
+            0x11, 0x07, 0x12, 0x34, 0x56, 0x78, (byte) 0x9A, (byte) 0xBC, (byte) 0xDE, (byte) 0xF0,
+            0x12, 0x34, 0x56, 0x78, (byte) 0x9A, (byte) 0xBC, (byte) 0xDE, (byte) 0xF0,
+            0x06, 0x09, 'W', 'a', 't', 'c', 'h'
+        };
+    }
+
+    @Benchmark
+    public boolean matchServiceUuid() {
+        return AdvertisementParser.hasServiceUuid16(target, 0xFFE0);
+    }
+
+    @Benchmark
+    public boolean rejectUnrelatedDevice() {
+        return AdvertisementParser.hasServiceUuid16(unrelated, 0xFFE0)
+                || AdvertisementParser.hasLocalName(unrelated, NAME);
+    }
+
+    @Benchmark
+    public boolean matchLocalName() {
+        return AdvertisementParser.hasLocalName(target, NAME);
+    }
+}
@@ -0,0 +1,35 @@
+package com.throwp.benchmarks;
+
+import com.throwp.EegSessionStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 每個 EEG 樣本建立事件 map 的成本
+// Arguments.createMap() 在 Android 以外無法使用，這裡以相同鍵值的 HashMap
+// （WritableNativeMap 在 Java 端的等價結構）估算 onEegPower / onSignalChange 的配置量
+@State(Scope.Thread)
+public class EventMapBenchmark {
+    private final int[] bandRow = {1200, 3400, 560, 780, 910, 1100, 130, 150};
+
+    @Benchmark
+    public Map<String, Object> eegPowerEvent() {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < EegSessionStore.BAND_NAMES.length; i++) {
+            params.put(EegSessionStore.BAND_NAMES[i], bandRow[i]);
+        }
+        return params;
+    }
+
+    @Benchmark
+    public Map<String, Object> signalChangeEvent() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("signal", "ATTENTION");
+        params.put("value", 57);
+        return params;
+    }
+}
@@ -0,0 +1,39 @@
+package com.throwp.benchmarks;
+
+import com.throwp.LttbDownsampler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// 一條序列降採樣到圖表寬度的成本；7200 點約為 EegSessionStore 預設容量（1 Hz 兩小時）
+@State(Scope.Thread)
+public class LttbDownsamplerBenchmark {
+    @Param({"7200", "100000"})
+    public int count;
+
+    @Param({"300", "1000"})
+    public int width;
+
+    private double[] x;
+    private double[] y;
+    private int[] indices;
+
+    @Setup
+    public void setup() {
+        x = new double[count];
+        y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i * 1000.0;
+            y[i] = 50 + 30 * Math.sin(i / 60.0) + (i * 7919 % 21) - 10;
+        }
+        indices = new int[width];
+    }
+
+    @Benchmark
+    public int downsample() {
+        return LttbDownsampler.downsample(x, y, count, width, indices);
+    }
+}
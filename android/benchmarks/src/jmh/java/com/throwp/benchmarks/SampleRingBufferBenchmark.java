@@ -0,0 +1,53 @@
+package com.throwp.benchmarks;
+
+import com.throwp.EegSessionStore;
+import com.throwp.SampleRingBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// NeuroSkyModule 原生樣本儲存的寫入與分段讀取
+@State(Scope.Thread)
+public class SampleRingBufferBenchmark {
+    @Param({"256", "4096"})
+    public int sliceSize;
+
+    private EegSessionStore session;
+    private final int[] bandRow = new int[EegSessionStore.BAND_NAMES.length];
+    private long[] timestamps;
+    private int[][] values;
+    private long now = 0;
+
+    @Setup
+    public void setup() {
+        session = new EegSessionStore(1, EegSessionStore.DEFAULT_CAPACITY, 0);
+        for (int i = 0; i < EegSessionStore.DEFAULT_CAPACITY; i++) {
+            for (int b = 0; b < bandRow.length; b++) {
+                bandRow[b] = (i * 31 + b * 17) & 0xFFFF;
+            }
+            session.appendBands(i, bandRow);
+            session.appendAttention(i, i % 100);
+        }
+        timestamps = new long[sliceSize];
+        values = new int[bandRow.length][sliceSize];
+    }
+
+    @Benchmark
+    public void appendAttention() {
+        session.appendAttention(now++, 42);
+    }
+
+    @Benchmark
+    public void appendBands() {
+        session.appendBands(now++, bandRow);
+    }
+
+    @Benchmark
+    public int readBandSlice() {
+        SampleRingBuffer bands = session.getChannel(EegSessionStore.CHANNEL_BANDS);
+        return bands.read(bands.getOldestSequence(), sliceSize, timestamps, values);
+    }
+}
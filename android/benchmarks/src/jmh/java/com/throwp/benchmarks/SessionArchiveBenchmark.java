@@ -0,0 +1,84 @@
+package com.throwp.benchmarks;
+
+import com.throwp.SessionArchiveReader;
+import com.throwp.SessionArchiveWriter;
+import com.throwp.SessionFileReader;
+import com.throwp.SessionFileRecorder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// 單段量測匯出成封存檔與從封存檔還原的成本；樣本為 1 Hz 的 eSense、頻段與約每 7 秒一次的投擲
+@State(Scope.Thread)
+public class SessionArchiveBenchmark {
+    @Param({"600", "7200"})
+    public int seconds;
+
+    private File source;
+    private File archive;
+    private File output;
+
+    @Setup
+    public void setup() throws IOException {
+        source = File.createTempFile("session", ".tpses");
+        archive = File.createTempFile("session", ".tparc");
+        output = File.createTempFile("restored", ".tpses");
+
+        Random random = new Random(42);
+        long startedAt = 1_700_000_000_000L;
+        int[] bands = new int[8];
+        int[] throwRow = new int[4];
+        // 模擬的單調時鐘（毫秒），由迴圈推進
+        long[] clock = {0};
+        SessionFileRecorder recorder = SessionFileRecorder.start(source, startedAt, () -> clock[0]);
+        for (int s = 0; s < seconds; s++) {
+            clock[0] = s * 1000L + random.nextInt(3);
+            recorder.append(SessionFileRecorder.TYPE_POOR_SIGNAL, random.nextInt(4) == 0 ? 26 : 0);
+            recorder.append(SessionFileRecorder.TYPE_ATTENTION, 40 + random.nextInt(30));
+            recorder.append(SessionFileRecorder.TYPE_MEDITATION, 40 + random.nextInt(30));
+            for (int i = 0; i < bands.length; i++) {
+                bands[i] = 20000 + random.nextInt(200000 >> i);
+            }
+            recorder.append(SessionFileRecorder.TYPE_BANDS, bands);
+            if (s % 7 == 0) {
+                throwRow[0] = 1;
+                throwRow[1] = random.nextInt(2);
+                throwRow[2] = s / 7;
+                clock[0] += 5;
+                recorder.append(SessionFileRecorder.TYPE_THROW, throwRow);
+            }
+        }
+        SessionFileRecorder.stop();
+        exportSession();
+    }
+
+    @TearDown
+    public void tearDown() {
+        source.delete();
+        archive.delete();
+        output.delete();
+    }
+
+    @Benchmark
+    public long exportSession() throws IOException {
+        try (SessionArchiveWriter writer = new SessionArchiveWriter(archive);
+             SessionFileReader reader = new SessionFileReader(source)) {
+            return writer.addSession("benchmark", reader);
+        }
+    }
+
+    @Benchmark
+    public long restoreSession() throws IOException {
+        try (SessionArchiveReader reader = new SessionArchiveReader(archive)) {
+            return reader.restore(reader.getSessions().get(0), output);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.throwp.benchmarks;
+
+import com.throwp.SessionMetricsEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// 每個 EEG 樣本的指標更新成本，以及取分數的成本（應與量測長度無關）
+@State(Scope.Thread)
+public class SessionMetricsEngineBenchmark {
+    @Param({"60", "3600"})
+    public int preloadedSamples;
+
+    private SessionMetricsEngine engine;
+    private final int[] bandRow = new int[SessionMetricsEngine.BAND_COUNT];
+    private int counter = 0;
+
+    @Setup
+    public void setup() {
+        engine = new SessionMetricsEngine();
+        for (int i = 0; i < preloadedSamples; i++) {
+            engine.addAttention(i % 100);
+            engine.addMeditation((i * 7) % 100);
+            for (int b = 0; b < bandRow.length; b++) {
+                bandRow[b] = (i * 131 + b * 977) % 50000;
+            }
+            engine.addBands(bandRow);
+        }
+    }
+
+    @Benchmark
+    public void addSample() {
+        int i = counter++;
+        engine.addAttention(i % 100);
+        engine.addMeditation((i * 7) % 100);
+        engine.addBands(bandRow);
+    }
+
+    @Benchmark
+    public void computeScores(Blackhole blackhole) {
+        blackhole.consume(engine.getEndurance());
+        blackhole.consume(engine.getStability());
+        blackhole.consume(engine.getCoordination());
+        blackhole.consume(engine.getBrainActivity());
+    }
+}
@@ -0,0 +1,45 @@
+package com.throwp.benchmarks;
+
+import com.throwp.SpectralEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// 每個原始樣本的平均成本（含每 hopSize 個樣本一次的 FFT），512 Hz 下預算約 1.9ms/樣本
+@State(Scope.Thread)
+public class SpectralEngineBenchmark {
+    private static final int SAMPLES_PER_INVOCATION = 512;
+
+    @Param({"256", "512", "1024"})
+    public int fftSize;
+
+    private SpectralEngine engine;
+    private final int[] samples = new int[SAMPLES_PER_INVOCATION];
+
+    @Setup
+    public void setup() {
+        engine = new SpectralEngine(512, fftSize, 128, SpectralEngine.DEFAULT_BAND_EDGES);
+        for (int i = 0; i < samples.length; i++) {
+            double t = i / 512.0;
+            samples[i] = (int) (100 * Math.sin(2 * Math.PI * 10 * t) + 40 * Math.sin(2 * Math.PI * 22 * t));
+        }
+        for (int i = 0; i < fftSize; i++) {
+            engine.add(samples[i % samples.length]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES_PER_INVOCATION)
+    public void addSecondOfSamples(Blackhole blackhole) {
+        for (int sample : samples) {
+            if (engine.add(sample)) {
+                blackhole.consume(engine.getBandPower(0));
+            }
+        }
+    }
+}
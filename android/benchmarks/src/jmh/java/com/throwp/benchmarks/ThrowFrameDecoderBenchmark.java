@@ -0,0 +1,67 @@
+package com.throwp.benchmarks;
+
+import com.throwp.ThrowFrameDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+
+// ESP32Module.onCharacteristicChanged 中的通知解碼
+@State(Scope.Thread)
+public class ThrowFrameDecoderBenchmark {
+    private final ThrowFrameDecoder decoder = new ThrowFrameDecoder();
+
+    private byte[] legacyJson;
+    private byte[] jsonHead;
+    private byte[] jsonTail;
+    private byte[] binaryFrame;
+    private Blackhole blackhole;
+
+    private final ThrowFrameDecoder.Listener listener = new ThrowFrameDecoder.Listener() {
+        @Override
+        public void onThrow(int format, boolean cast, boolean castBig, int sequence) {
+            blackhole.consume(sequence);
+        }
+
+        @Override
+        public void onMessage(byte[] buffer, int offset, int length) {
+            blackhole.consume(length);
+        }
+    };
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        legacyJson = "{\"cast\":true,\"castbig\":false}".getBytes(StandardCharsets.UTF_8);
+        jsonHead = "{\"cast\":fal".getBytes(StandardCharsets.UTF_8);
+        jsonTail = "se,\"castbig\":true}".getBytes(StandardCharsets.UTF_8);
+        binaryFrame = new byte[] {(byte) ThrowFrameDecoder.FRAME_MAGIC, 0x01, 0x03, 0x02, 0x34, 0x12, 0};
+        binaryFrame[6] = (byte) (0x01 ^ 0x03 ^ 0x02 ^ 0x34 ^ 0x12);
+    }
+
+    @Benchmark
+    public void decodeLegacyJson() {
+        decoder.feed(legacyJson, listener);
+    }
+
+    @Benchmark
+    public void decodeFragmentedJson() {
+        decoder.feed(jsonHead, listener);
+        decoder.feed(jsonTail, listener);
+    }
+
+    @Benchmark
+    public void decodeBinaryFrame() {
+        decoder.feed(binaryFrame, listener);
+    }
+
+    // 舊做法：每個通知建立 String 後交給 JS 解析，作為比較基準
+    @Benchmark
+    public String legacyStringConversion() {
+        return new String(legacyJson);
+    }
+}
@@ -55,6 +55,7 @@ const ACTION_TYPES = {
   UPDATE_MEDITATION: 'UPDATE_MEDITATION',
   UPDATE_SIGNAL: 'UPDATE_SIGNAL',
   UPDATE_THROW_DATA: 'UPDATE_THROW_DATA',
+  UPDATE_THROW_ATTENTION: 'UPDATE_THROW_ATTENTION',  // 原生端对齐后补上投掷当下的专注度
   UPDATE_RAW_DATA: 'UPDATE_RAW_DATA',
   UPDATE_ENDURANCE_DATA: 'UPDATE_ENDURANCE_DATA',
   UPDATE_EEG_POWER: 'UPDATE_EEG_POWER', // 新增 EEG 功率数据更新的 action type
@@ -66,9 +67,14 @@ const ACTION_TYPES = {
   UPDATE_HIGH_BETA: 'UPDATE_HIGH_BETA',  // 新增 highBeta 更新的 action type
   UPDATE_LOW_GAMMA: 'UPDATE_LOW_GAMMA',  // 新增 lowGamma 更新的 action type
   UPDATE_MID_GAMMA: 'UPDATE_MID_GAMMA',  // 新增 midGamma 更新的 action type
+  BACKFILL_SAMPLES: 'BACKFILL_SAMPLES',  // 回到页面后补上离开期间原生端保存的样本
   RESET_GAME: 'RESET_GAME'
 };
 
+// 原生采集 session 的频段名称，与 reducer 中的 `${name}Values` 对应
+const BAND_NAMES = ['delta', 'theta', 'lowAlpha', 'highAlpha', 'lowBeta', 'highBeta', 'lowGamma', 'midGamma'];
+const BACKFILL_SLICE_SIZE = 4096;
+
 // Reducer 函数
 function gameDataReducer(state, action) {
   switch (action.type) {
@@ -143,7 +149,7 @@ function gameDataReducer(state, action) {
     }
     
     case ACTION_TYPES.UPDATE_THROW_DATA: {
-      const { success, attention, timestamp, isBigThrow } = action.payload;
+      const { success, attention, timestamp, isBigThrow, sequence, stationId } = action.payload;
       const newThrowHistory = [...(state.throwHistory || [])];
       
       if (success) {
@@ -151,7 +157,10 @@ function gameDataReducer(state, action) {
           success,
           attention,
           timestamp,
-          isBigThrow
+          isBigThrow,
+          sequence,
+          stationId,
+          correlated: false
         });
       }
       
@@ -164,6 +173,28 @@ function gameDataReducer(state, action) {
       };
     }
     
+    case ACTION_TYPES.UPDATE_THROW_ATTENTION: {
+      const { sequence, stationId, attention } = action.payload;
+      const history = state.throwHistory || [];
+      // 对齐结果依投掷顺序送出，对应到最早一笔尚未对齐的同站同序号投掷
+      const index = history.findIndex(item =>
+        !item.correlated && item.sequence === sequence && item.stationId === stationId
+      );
+      if (index < 0) {
+        return state;
+      }
+      const newThrowHistory = [...history];
+      newThrowHistory[index] = {
+        ...history[index],
+        attention: attention !== undefined ? attention : history[index].attention,
+        correlated: true
+      };
+      return {
+        ...state,
+        throwHistory: newThrowHistory
+      };
+    }
+    
     case ACTION_TYPES.UPDATE_RAW_DATA: {
       const { dataType, value, timestamp } = action.payload;
       return {
@@ -219,6 +250,30 @@ function gameDataReducer(state, action) {
       return newState;
     }
     
+    case ACTION_TYPES.BACKFILL_SAMPLES: {
+      const { attention, meditation, bands } = action.payload;
+      const newState = {
+        ...state,
+        // 与 UPDATE_ATTENTION / UPDATE_MEDITATION 一样只保留最近 30 笔
+        attentionData: [...state.attentionData, ...attention.values].slice(-30),
+        meditationData: [...state.meditationData, ...meditation.values].slice(-30),
+        rawBrainwaveData: {
+          ...state.rawBrainwaveData,
+          meditation: [...state.rawBrainwaveData.meditation, ...meditation.values],
+          timestamps: [...(state.rawBrainwaveData.timestamps || []), ...meditation.timestamps]
+        }
+      };
+      // 与 UPDATE_EEG_POWER 一样略过值为 0 的频段
+      BAND_NAMES.forEach(name => {
+        const values = (bands[name] || []).filter(value => value);
+        if (values.length > 0) {
+          const key = `${name}Values`;
+          newState[key] = [...(newState[key] || []), ...values];
+        }
+      });
+      return newState;
+    }
+
     case ACTION_TYPES.RESET_GAME:
       return {
         ...initialState,
@@ -245,27 +300,61 @@ const Evaluate = forwardRef((props, ref) => {
   const [isProcessing, setIsProcessing] = useState(false); // 控制处理动画状态
   const [processingProgress, setProcessingProgress] = useState(0); // 处理进度
 
-  // 处理 ESP32 数据
+  // 最近一次收到的专注度，投掷事件以此作为初始值，不依赖 reducer 状态的闭包
+  const latestAttentionRef = useRef(0);
+
+  // 处理 ESP32 数据：投掷立即计分，不等待脑波对齐
   const handleESP32Data = useCallback((event) => {
     try {
       const data = typeof event.data === 'string' ? JSON.parse(event.data) : event.data;
       
       if (data && (data.cast === true || data.castbig === true)) {
-        const timestamp = Date.now();
+        // tNanos 为投掷通知收到的时间，以 ESP32 模块自己的单调时钟换算回投掷当下的墙钟时间，
+        // 不依赖 NeuroSky 模块是否载入
+        const esp32 = NativeModules.ESP32Module;
+        const ageMs = typeof event.tNanos === 'number' && esp32?.getMonotonicNanos
+          ? (esp32.getMonotonicNanos() - event.tNanos) / 1e6
+          : 0;
+        const timestamp = Math.round(Date.now() - Math.max(0, ageMs));
         dispatch({
           type: ACTION_TYPES.UPDATE_THROW_DATA,
           payload: {
             success: true,
-            attention: gameState.attentionData[gameState.attentionData.length - 1],
+            attention: latestAttentionRef.current,
             timestamp,
-            isBigThrow: data.castbig === true
+            isBigThrow: data.castbig === true,
+            sequence: event.sequence,
+            stationId: event.stationId
           }
         });
       }
     } catch (error) {
       console.error('Evaluate - 处理 ESP32 数据错误:', error);
     }
-  }, [gameState.attentionData, dispatch]);
+  }, [dispatch]);
+
+  // 处理原生端对齐后的投掷事件：投掷与脑波在原生端以同一个单调时钟对齐，
+  // 只用来把该次投掷的专注度换成投掷当下前后样本的内插值，计分仍以 onESP32Data 为准
+  const handleThrowCorrelated = useCallback((event) => {
+    try {
+      if (!event) return;
+      // 没有对齐到专注度时也要送出，把这次投掷标记为已对齐，
+      // 否则之后同站同序号的投掷会被对应到这笔旧的投掷
+      const attention = event.attention && typeof event.attention.interpolated === 'number'
+        ? Math.round(event.attention.interpolated)
+        : undefined;
+      dispatch({
+        type: ACTION_TYPES.UPDATE_THROW_ATTENTION,
+        payload: {
+          sequence: event.sequence,
+          stationId: event.stationId,
+          attention
+        }
+      });
+    } catch (error) {
+      console.error('Evaluate - 处理投掷对齐数据错误:', error);
+    }
+  }, [dispatch]);
 
   // 处理 EEG 功率数据
   const handleEEGPowerData = useCallback((eegPower) => {
@@ -302,6 +391,70 @@ const Evaluate = forwardRef((props, ref) => {
     });
   }, [dispatch]);
 
+  // 离开页面时各通道在原生采集 session 中的读取位置，回到页面后从这里补读
+  const backgroundCursorRef = useRef(null);
+
+  const rememberBackgroundCursor = useCallback(() => {
+    const neuroSky = NativeModules.NeuroSkyModule;
+    if (!neuroSky?.getAcquisitionSession) return;
+    const handle = neuroSky.getAcquisitionSession();
+    if (handle < 0) return;
+    neuroSky.getSessionInfo(handle)
+      .then(info => {
+        backgroundCursorRef.current = {
+          handle,
+          attention: info.attention.next,
+          meditation: info.meditation.next,
+          bands: info.bands.next
+        };
+      })
+      .catch(error => console.error('读取采集 session 失败:', error));
+  }, []);
+
+  // 读取某个通道从 from 开始的所有样本
+  const readSessionChannel = useCallback(async (handle, channel, from) => {
+    const neuroSky = NativeModules.NeuroSkyModule;
+    const result = { timestamps: [], values: [] };
+    BAND_NAMES.forEach(name => { result[name] = []; });
+    let next = from;
+    while (true) {
+      const slice = await neuroSky.getSessionSlice(handle, channel, next, BACKFILL_SLICE_SIZE);
+      result.timestamps.push(...slice.timestamps);
+      if (channel === 'bands') {
+        BAND_NAMES.forEach(name => result[name].push(...slice[name]));
+      } else {
+        result.values.push(...slice.values);
+      }
+      next = slice.next;
+      if (slice.count < BACKFILL_SLICE_SIZE) break;
+    }
+    return result;
+  }, []);
+
+  // 页面在背景时事件监听已移除，回到页面后一次补上原生端保存的样本
+  const backfillFromNative = useCallback(async () => {
+    const cursor = backgroundCursorRef.current;
+    backgroundCursorRef.current = null;
+    if (!cursor) return;
+    try {
+      const [attention, meditation, bands] = await Promise.all([
+        readSessionChannel(cursor.handle, 'attention', cursor.attention),
+        readSessionChannel(cursor.handle, 'meditation', cursor.meditation),
+        readSessionChannel(cursor.handle, 'bands', cursor.bands)
+      ]);
+      if (attention.values.length > 0) {
+        latestAttentionRef.current = attention.values[attention.values.length - 1];
+      }
+      dispatch({
+        type: ACTION_TYPES.BACKFILL_SAMPLES,
+        payload: { attention, meditation, bands }
+      });
+      console.log(`补读背景样本: 专注度 ${attention.values.length} 笔，频段 ${bands.timestamps.length} 笔`);
+    } catch (error) {
+      console.error('补读背景样本失败:', error);
+    }
+  }, [dispatch, readSessionChannel]);
+
   // 设置事件监听器 - 根据拼图状态控制
   const subscriptionsRef = useRef([]);
   useEffect(() => {
@@ -309,6 +462,7 @@ const Evaluate = forwardRef((props, ref) => {
       // 只有在页面有焦点且拼图不活动时才处理脑电波数据
       console.log('Evaluate 页面获得焦点且拼图未激活，开始数据处理');
       setupEventListeners();
+      backfillFromNative();
     } else {
       console.log('Evaluate 页面失去焦点或拼图激活，暂停数据处理');
       // 清理事件监听器
@@ -316,8 +470,15 @@ const Evaluate = forwardRef((props, ref) => {
         subscriptionsRef.current.forEach(subscription => subscription.remove());
         subscriptionsRef.current = [];
       }
+      if (!isFocused && !isPuzzleActive) {
+        // 离开页面：原生端持续保存样本，记下读取位置
+        rememberBackgroundCursor();
+      } else {
+        // 拼图期间本来就暂停数据处理，不补读
+        backgroundCursorRef.current = null;
+      }
     }
-  }, [isFocused, isPuzzleActive, setupEventListeners]);
+  }, [isFocused, isPuzzleActive, setupEventListeners, backfillFromNative, rememberBackgroundCursor]);
 
   // 设置事件监听器
   const setupEventListeners = useCallback(() => {
@@ -332,6 +493,7 @@ const Evaluate = forwardRef((props, ref) => {
           neuroSkyEmitter.addListener('onSignalChange', (event) => {
             const timestamp = Date.now();
             if (event.signal === 'ATTENTION') {
+              latestAttentionRef.current = event.value;
               dispatch({
                 type: ACTION_TYPES.UPDATE_ATTENTION,
                 payload: event.value
@@ -351,7 +513,8 @@ const Evaluate = forwardRef((props, ref) => {
           neuroSkyEmitter.addListener('onStateChange', (state) => {
             console.log('状态变化:', state);
           }),
-          esp32Emitter.addListener('onESP32Data', handleESP32Data)
+          esp32Emitter.addListener('onESP32Data', handleESP32Data),
+          neuroSkyEmitter.addListener('onThrowCorrelated', handleThrowCorrelated)
         ];
 
         console.log('成功设置所有事件监听器');
@@ -359,7 +522,7 @@ const Evaluate = forwardRef((props, ref) => {
     } catch (error) {
       console.error('设置事件监听器时发生错误:', error);
     }
-  }, [handleEEGPowerData, handleESP32Data]);
+  }, [handleEEGPowerData, handleESP32Data, handleThrowCorrelated]);
 
   // 计算维持值
   const calculateEndurance = useCallback(() => {
@@ -424,10 +587,25 @@ const Evaluate = forwardRef((props, ref) => {
     return Math.round(stabilityScore);
   }, [gameState.attentionData, gameState.meditationData]);
 
+  // 清除原生端累计的指标，使其与 reducer 一样从本局开始计算
+  const resetNativeMetrics = useCallback(() => {
+    try {
+      NativeModules.NeuroSkyModule?.resetSessionMetrics?.();
+    } catch (error) {
+      console.error('重置原生指标失败:', error);
+    }
+  }, []);
+
   // 重置游戏数据
   const resetData = useCallback(() => {
     dispatch({ type: ACTION_TYPES.RESET_GAME });
-  }, [dispatch]);
+    resetNativeMetrics();
+  }, [dispatch, resetNativeMetrics]);
+
+  // 进入页面即开始新的一局
+  useEffect(() => {
+    resetNativeMetrics();
+  }, [resetNativeMetrics]);
 
   let gameData = {
   };
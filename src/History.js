@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   StyleSheet,
   Text,
@@ -9,55 +9,80 @@ import {
   Alert,
 } from 'react-native';
 import { useNavigation } from '@react-navigation/native';
-import Database from './utils/database';
+import Database, { HISTORY_PAGE_SIZE } from './utils/database';
 import { useLanguage } from './i18n/LanguageContext';
 
 const History = () => {
   const navigation = useNavigation();
   const { t } = useLanguage(); // 使用語言上下文
   const [records, setRecords] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [totalCount, setTotalCount] = useState(0);
+  const loadingMoreRef = useRef(false);
 
   // 加载游戏记录
   useEffect(() => {
     loadGameRecords();
   }, []);
 
+  // 只加载第一页与总数，其余页在滚动到底部时再加载
   const loadGameRecords = async () => {
     try {
       console.log('开始加载游戏记录...');
       await Database.initDB(); // 确保数据库已初始化
-      const loadedRecords = await Database.getAllGameRecords();
-      console.log('加载到的记录数量:', loadedRecords.length);
+      const [page, summary] = await Promise.all([
+        Database.getGameRecordsPage(null, HISTORY_PAGE_SIZE),
+        Database.getHistorySummary(),
+      ]);
+      console.log('加载到的记录数量:', page.records.length, '/', summary.recordCount);
       
-      if (loadedRecords.length > 0) {
-        console.log('第一条记录示例:', JSON.stringify(loadedRecords[0]));
+      if (page.records.length > 0) {
+        console.log('第一条记录示例:', JSON.stringify(page.records[0]));
       } else {
         console.log('没有找到游戏记录');
       }
       
-      setRecords(loadedRecords);
+      setRecords(page.records);
+      setNextCursor(page.nextCursor);
+      setTotalCount(summary.recordCount);
     } catch (error) {
       console.error('加载记录时发生错误:', error);
     }
   };
 
+  // 加载下一页
+  const loadMoreRecords = async () => {
+    if (!nextCursor || loadingMoreRef.current) {
+      return;
+    }
+    loadingMoreRef.current = true;
+    try {
+      const page = await Database.getGameRecordsPage(nextCursor, HISTORY_PAGE_SIZE);
+      setRecords(prevRecords => [...prevRecords, ...page.records]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error('加载更多记录时发生错误:', error);
+    } finally {
+      loadingMoreRef.current = false;
+    }
+  };
+
   const goBack = () => {
     navigation.navigate('Evaluate');
   };
 
   // 删除记录
-  const deleteRecord = async (timestamp) => {
+  const deleteRecord = async (record) => {
     try {
-      console.log('尝试删除记录:', timestamp);
+      console.log('尝试删除记录:', record.id, record.timestamp);
       await Database.initDB(); // 确保数据库已初始化
-      const success = await Database.deleteGameRecord(timestamp);
+      const success = await Database.deleteGameRecord(record);
       
       if (success) {
         console.log('删除成功，更新记录列表');
-        // 直接从当前状态中移除该记录，而不是重新加载
-        setRecords(prevRecords => prevRecords.filter(record => record.timestamp !== timestamp));
-        // 同时也重新加载数据库中的记录，确保数据同步
-        loadGameRecords();
+        // 直接从当前状态中移除该记录，不重新加载已显示的页面
+        setRecords(prevRecords => prevRecords.filter(item => item.id !== record.id));
+        setTotalCount(prevCount => Math.max(0, prevCount - 1));
         Alert.alert(t('success'), t('recordDeleted'));
       } else {
         console.error('删除记录失败');
@@ -119,11 +144,13 @@ const History = () => {
           <Text style={styles.tableHeaderText}>{t('timer')}</Text>
         </View>
         {/* 添加调试信息显示记录数量 */}
-        <Text style={styles.subtitle}>{t('recordCount').replace('{count}', records.length)}</Text>
+        <Text style={styles.subtitle}>{t('recordCount').replace('{count}', totalCount)}</Text>
         
         <FlatList
           data={records}
-          keyExtractor={(item, index) => `${item.timestamp || 'null'}-${index}`}
+          keyExtractor={(item, index) => `${item.id ?? item.timestamp}-${index}`}
+          onEndReached={loadMoreRecords}
+          onEndReachedThreshold={0.5}
           ListEmptyComponent={<Text style={styles.emptyText}>{t('noRecords')}</Text>}
           contentContainerStyle={styles.flatListContent}
           renderItem={({ item }) => (
@@ -148,7 +175,7 @@ const History = () => {
                         },
                         {
                           text: t('confirm'),
-                          onPress: () => deleteRecord(item.timestamp)
+                          onPress: () => deleteRecord(item)
                         }
                       ]
                     );
@@ -9,6 +9,9 @@ import {
   ImageBackground,
   ToastAndroid,
   ScrollView,
+  Platform,
+  Alert,
+  NativeModules,
 } from 'react-native';
 import { LineChart } from 'react-native-chart-kit';
 import { useNavigation, useRoute } from '@react-navigation/native';
@@ -159,9 +162,67 @@ const NewReport = () => {
       </html>
     `;
 
+    // 原生报告内容：文字与 HTML 版本相同，由 ReportPdfModule 在背景线程直接绘制成 PDF
+    const buildNativeReport = (fileName) => {
+      const toSection = (heading, level, assessment) => ({
+        heading: `★ ${heading}：`,
+        level: `${t('level').replace('{level}', level)} - ${assessment.title}`,
+        description: assessment.description,
+        featuresTitle: t('performanceCharacteristics'),
+        features: assessment.features,
+        suggestionsTitle: t('suggestions'),
+        suggestions: assessment.suggestions,
+      });
+      const toValues = (data) => (Array.isArray(data) ? data.map(v => Number(v) || 0) : []);
+      return {
+        fileName,
+        title: t('brainwaveIndexReport'),
+        info: [
+          { label: t('userName'), value: String(userName) },
+          { label: t('completionTime'), value: `${reportData?.completionTime} ${t('seconds')}` },
+          { label: t('reportGenerationTime'), value: new Date().toLocaleString() },
+        ],
+        ability: {
+          labels: [t('coordination'), t('brainActivity'), t('focusAbility'), t('perception')],
+          values: [
+            reportData?.brainPower ?? 0,
+            reportData?.superPower ?? 0,
+            reportData?.stability ?? 0,
+            reportData?.endurance ?? 0,
+          ],
+        },
+        brainwave: {
+          series: [
+            { name: '专注度', color: '#FF0000', values: toValues(reportData?.attentionData) },
+            { name: '放松度', color: '#00C000', values: toValues(reportData?.meditationData) },
+            { name: '信号强度', color: '#0000FF', values: toValues(reportData?.signalData) },
+          ],
+        },
+        sections: [
+          toSection(t('coordination'), coordinationLevel, coordinationAssessment),
+          toSection(t('brainActivity'), brainActivityLevel, brainActivityAssessment),
+          toSection(t('focusAbility'), focusLevel, focusAssessment),
+          toSection(t('perception'), perceptionLevel, perceptionAssessment),
+        ],
+      };
+    };
+
     const goDownload = async () => {
-      // 使用 handleDownload 函数生成 PDF
       const fileName = `脑电波报告_${userName}_${new Date().getTime()}`;
+      // 优先使用原生绘制，失败时再使用 HTML 转 PDF
+      if (NativeModules.ReportPdfModule) {
+        try {
+          const result = await NativeModules.ReportPdfModule.renderReport(buildNativeReport(fileName));
+          console.log('原生报告路径:', result.filePath, '耗时:', result.renderMs, 'ms');
+          navigation.navigate('PDFView', { pdfPath: result.filePath });
+          if (Platform.OS === 'android') {
+            ToastAndroid.show('报告生成成功', ToastAndroid.SHORT);
+          }
+          return;
+        } catch (error) {
+          console.log('原生报告生成失败，改用 HTML 转 PDF...', error);
+        }
+      }
       await handleDownload(htmlContent, fileName);
     }
     // 生成 PDF 并打开查看
@@ -0,0 +1,46 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+// ESP32Module 的 codegen 規格，說明見 NativeNeuroSkyModule.ts。
+
+export type StationStatus = {
+  stationId: string;
+  stationIndex: number;
+  isConnected: boolean;
+};
+
+export type ConnectionStatus = {
+  isConnected: boolean;
+  connectedCount: number;
+  isScanning: boolean;
+  stations: Array<StationStatus>;
+};
+
+export interface Spec extends TurboModule {
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+
+  connect(): void;
+  disconnect(): void;
+  disconnectStation(stationId: string): void;
+  setMaxStations(count: number): void;
+  configureScan(options: Object): void;
+  clearDeviceCache(): void;
+  getConnectionStats(): Promise<Object>;
+  getConnectionStatusSync(): ConnectionStatus;
+
+  write(stationId: string | null, data: string, options: Object | null): Promise<Object>;
+  writeBatch(stationId: string | null, packets: Array<string>, options: Object | null): Promise<Object>;
+  configureLinkProfile(options: Object): void;
+  getLinkStats(): Promise<Object>;
+  resetLinkStats(): void;
+
+  setEventBatching(enabled: boolean, intervalMs: number, maxBatchSize: number, queueCapacity: number): void;
+  getEventBatchingStats(): Promise<Object>;
+  configurePipeline(channel: string, stages: Array<Object> | null): Promise<boolean>;
+  getPipelineStats(): Promise<Object>;
+  getLatencyStats(): Promise<Object>;
+  getMonotonicNanos(): number;
+}
+
+export default TurboModuleRegistry.get<Spec>('ESP32Module');
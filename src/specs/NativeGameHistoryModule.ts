@@ -0,0 +1,57 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+// GameHistoryModule 的 codegen 規格，說明見 NativeNeuroSkyModule.ts。
+
+export type GameRecord = {
+  id: number;
+  userName: string;
+  timestamp: number;
+  completionTime: number;
+  accuracy: number;
+  attentionAvg: number;
+  brainPower: number;
+  endurance: number;
+  meditationAvg: number;
+  score: number;
+  stability: number;
+  successCount: number;
+  superPower: number;
+  throwCount: number;
+};
+
+export type RecordsCursor = {
+  timestamp: number;
+  id: number;
+};
+
+export type RecordsPage = {
+  records: Array<GameRecord>;
+  nextCursor: RecordsCursor | null;
+};
+
+export type UserSummary = {
+  userName: string;
+  recordCount: number;
+  averageScore: number;
+  bestScore: number;
+  averageAccuracy: number;
+  averageAttention: number;
+  averageMeditation: number;
+  firstPlayedAt: number;
+  lastPlayedAt: number;
+};
+
+export type HistorySummary = {
+  recordCount: number;
+  users: Array<UserSummary>;
+};
+
+export interface Spec extends TurboModule {
+  saveRecord(record: Object): Promise<number>;
+  deleteRecord(id: number): Promise<boolean>;
+  getRecordsPage(options: Object): Promise<RecordsPage>;
+  getSummary(userName: string | null): Promise<HistorySummary>;
+}
+
+export default TurboModuleRegistry.get<Spec>('GameHistoryModule');
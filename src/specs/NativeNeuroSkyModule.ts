@@ -0,0 +1,81 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+// NeuroSkyModule 的 codegen 規格。
+// 新架構目前關閉，TurboModuleRegistry 會回退到 NativeModules 上的同名模組；
+// 開啟新架構後同一份規格即可產生 TurboModule 介面，呼叫端不需修改。
+// 名稱以 Sync 結尾與 getLatestValues、getMonotonicNanos 為同步方法，可在遊戲迴圈中直接輪詢。
+
+export type ConnectionStatus = {
+  isConnected: boolean;
+  hasDevice: boolean;
+  state: string;
+  // 前景擷取服務是否執行中
+  acquisitionService: boolean;
+};
+
+export type LatestValues = {
+  attention: number;
+  meditation: number;
+  poorSignal: number;
+  // 距離最近一個樣本的毫秒數，尚無樣本時為 -1
+  ageMs: number;
+  isConnected: boolean;
+};
+
+export type SessionMetrics = {
+  endurance: number;
+  stability: number;
+  coordination: number;
+  brainActivity: number;
+  attentionMean: number;
+  meditationMean: number;
+  attentionCount: number;
+  meditationCount: number;
+  bandSampleCount: number;
+  bandAverages: Object;
+};
+
+export interface Spec extends TurboModule {
+  connect(): void;
+  disconnect(): void;
+  getConnectionStatus(): Promise<ConnectionStatus>;
+  getConnectionStatusSync(): ConnectionStatus;
+  getLatestValues(): LatestValues;
+  getReconnectStats(): Promise<Object>;
+
+  // capacity 上限 28800（約 8 小時），最多同時開啟 4 個 session（不含擷取 session）
+  openSession(capacity: number): Promise<number>;
+  // 頭戴裝置連上時自動開啟的擷取 session，尚未連上過時為 -1
+  getAcquisitionSession(): number;
+  closeSession(handle: number): void;
+  getSessionInfo(handle: number): Promise<Object>;
+  getSessionSlice(handle: number, channelName: string, fromSequence: number, maxCount: number): Promise<Object>;
+  getSessionMetrics(): Promise<SessionMetrics>;
+  getSessionMetricsSync(): SessionMetrics;
+  getSessionSeries(handle: number, series: string, width: number): Promise<Object>;
+  resetSessionMetrics(): void;
+
+  startSessionRecording(name: string): Promise<string>;
+  stopSessionRecording(): Promise<Object | null>;
+  readSessionRecording(path: string, fromMs: number, toMs: number, maxCount: number): Promise<Object>;
+  readRecordingSeries(path: string, series: string, fromMs: number, toMs: number, width: number): Promise<Object>;
+  startCapture(name: string): Promise<string>;
+  stopCapture(): Promise<Object | null>;
+  startReplay(path: string, speed: number): Promise<void>;
+  stopReplay(): void;
+
+  setEventBatching(enabled: boolean, intervalMs: number, maxBatchSize: number, queueCapacity: number): void;
+  getEventBatchingStats(): Promise<Object>;
+  setRawMode(enabled: boolean, options: Object | null): void;
+  configureSpectral(options: Object): Promise<Object>;
+  configurePipeline(channel: string, stages: Array<Object> | null): Promise<boolean>;
+  getPipelineStats(): Promise<Object>;
+  configureThrowCorrelation(options: Object): void;
+  getThrowCorrelationStats(): Promise<Object>;
+  getRawStreamStats(): Promise<Object>;
+  getLatencyStats(): Promise<Object>;
+  getMonotonicNanos(): number;
+}
+
+export default TurboModuleRegistry.get<Spec>('NeuroSkyModule');
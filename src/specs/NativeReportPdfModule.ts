@@ -0,0 +1,16 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+// ReportPdfModule 的 codegen 規格，說明見 NativeNeuroSkyModule.ts。
+
+export type RenderResult = {
+  filePath: string;
+  pages: number;
+  renderMs: number;
+};
+
+export interface Spec extends TurboModule {
+  renderReport(report: Object): Promise<RenderResult>;
+}
+
+export default TurboModuleRegistry.get<Spec>('ReportPdfModule');
@@ -0,0 +1,27 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+// SessionArchiveModule 的 codegen 規格，說明見 NativeNeuroSkyModule.ts。
+
+export type ExportResult = {
+  path: string;
+  sessions: number;
+  records: number;
+  sourceBytes: number;
+  bytes: number;
+  elapsedMs: number;
+};
+
+export type ImportResult = {
+  paths: Array<string>;
+  records: number;
+  elapsedMs: number;
+};
+
+export interface Spec extends TurboModule {
+  exportSessions(paths: Array<string> | null, name: string | null): Promise<ExportResult>;
+  readArchiveIndex(path: string): Promise<Object>;
+  importSessions(path: string): Promise<ImportResult>;
+}
+
+export default TurboModuleRegistry.get<Spec>('SessionArchiveModule');
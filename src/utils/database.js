@@ -1,12 +1,40 @@
+import { NativeModules } from 'react-native';
 import SQLite from 'react-native-sqlite-storage';
 
 SQLite.DEBUG(false);  // 關閉調試模式以提高性能
 SQLite.enablePromise(true);
 
+// Android 使用原生 GameHistoryModule（索引、分頁與預先計算的使用者統計），
+// 第一次開啟時會自動匯入舊的 game_records；沒有原生模組時沿用 SQLite 外掛
+const GameHistory = NativeModules.GameHistoryModule;
+
+// 歷史頁面每頁筆數
+export const HISTORY_PAGE_SIZE = 50;
+
+// 只傳送資料表需要的欄位，避免把腦波陣列整包送過 bridge
+const toRecordFields = (gameRecord) => ({
+  accuracy: gameRecord.accuracy || 0,
+  attentionAvg: gameRecord.attentionAvg || 0,
+  brainPower: gameRecord.brainPower || 0,
+  endurance: gameRecord.endurance || 0,
+  meditationAvg: gameRecord.meditationAvg || 0,
+  score: gameRecord.score || 0,
+  stability: gameRecord.stability || 0,
+  successCount: gameRecord.successCount || 0,
+  superPower: gameRecord.superPower || 0,
+  throwCount: gameRecord.throwCount || 0,
+  userName: gameRecord.userName || 'Anonymous',
+  timestamp: gameRecord.timestamp,
+  completionTime: gameRecord.completionTime
+});
+
 export default class Database {
   static db = null;
 
   static async initDB() {
+    if (GameHistory) {
+      return GameHistory;
+    }
     if (this.db) {
       return this.db;
     }
@@ -79,6 +107,15 @@ export default class Database {
   }
 
   static async saveGameRecord(gameRecord) {
+    if (GameHistory) {
+      try {
+        await GameHistory.saveRecord(toRecordFields(gameRecord));
+        return true;
+      } catch (error) {
+        console.error('Error saving game record:', error);
+        return false;
+      }
+    }
     if (!this.db) {
       await this.initDB();
     }
@@ -101,20 +138,21 @@ export default class Database {
       ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);
     `;
 
+    const fields = toRecordFields(gameRecord);
     const values = [
-      gameRecord.accuracy || 0,
-      gameRecord.attentionAvg || 0,
-      gameRecord.brainPower || 0,
-      gameRecord.endurance || 0,
-      gameRecord.meditationAvg || 0,
-      gameRecord.score || 0,
-      gameRecord.stability || 0,
-      gameRecord.successCount || 0,
-      gameRecord.superPower || 0,
-      gameRecord.throwCount || 0,
-      gameRecord.userName || 'Anonymous',
-      gameRecord.timestamp,
-      gameRecord.completionTime
+      fields.accuracy,
+      fields.attentionAvg,
+      fields.brainPower,
+      fields.endurance,
+      fields.meditationAvg,
+      fields.score,
+      fields.stability,
+      fields.successCount,
+      fields.superPower,
+      fields.throwCount,
+      fields.userName,
+      fields.timestamp,
+      fields.completionTime
     ];
 
     try {
@@ -126,37 +164,97 @@ export default class Database {
     }
   }
 
-  static async getAllGameRecords() {
+  // 依時間由新到舊讀取一頁紀錄，cursor 為上一頁回傳的 nextCursor，
+  // 回傳 { records, nextCursor }，沒有下一頁時 nextCursor 為 null
+  static async getGameRecordsPage(cursor = null, limit = HISTORY_PAGE_SIZE, userName = null) {
+    if (GameHistory) {
+      try {
+        return await GameHistory.getRecordsPage({ cursor, limit, userName });
+      } catch (error) {
+        console.error('Error getting game records:', error);
+        return { records: [], nextCursor: null };
+      }
+    }
     if (!this.db) {
       await this.initDB();
     }
 
     try {
+      const conditions = [];
+      const args = [];
+      if (userName) {
+        conditions.push('userName = ?');
+        args.push(userName);
+      }
+      if (cursor) {
+        conditions.push('(timestamp < ? OR (timestamp = ? AND id < ?))');
+        args.push(cursor.timestamp, cursor.timestamp, cursor.id);
+      }
+      const where = conditions.length > 0 ? `WHERE ${conditions.join(' AND ')}` : '';
+      // 多取一筆判斷是否還有下一頁
       const [results] = await this.db.executeSql(
-        'SELECT * FROM game_records ORDER BY timestamp DESC;'
+        `SELECT * FROM game_records ${where} ORDER BY timestamp DESC, id DESC LIMIT ?;`,
+        [...args, limit + 1]
       );
-      
+
       const records = [];
-      for (let i = 0; i < results.rows.length; i++) {
+      for (let i = 0; i < results.rows.length && i < limit; i++) {
         records.push(results.rows.item(i));
       }
-      
-      return records;
+      const last = records[records.length - 1];
+      const nextCursor = results.rows.length > limit ? { timestamp: last.timestamp, id: last.id } : null;
+      return { records, nextCursor };
     } catch (error) {
       console.error('Error getting game records:', error);
-      return [];
+      return { records: [], nextCursor: null };
+    }
+  }
+
+  // 紀錄總數與各使用者統計 { recordCount, users }
+  static async getHistorySummary(userName = null) {
+    if (GameHistory) {
+      try {
+        return await GameHistory.getSummary(userName);
+      } catch (error) {
+        console.error('Error getting history summary:', error);
+        return { recordCount: 0, users: [] };
+      }
+    }
+    if (!this.db) {
+      await this.initDB();
+    }
+
+    try {
+      const [results] = await this.db.executeSql(
+        userName
+          ? 'SELECT COUNT(*) AS count FROM game_records WHERE userName = ?;'
+          : 'SELECT COUNT(*) AS count FROM game_records;',
+        userName ? [userName] : []
+      );
+      return { recordCount: results.rows.item(0).count, users: [] };
+    } catch (error) {
+      console.error('Error getting history summary:', error);
+      return { recordCount: 0, users: [] };
     }
   }
 
-  static async deleteGameRecord(timestamp) {
+  static async deleteGameRecord(record) {
+    if (GameHistory) {
+      try {
+        return await GameHistory.deleteRecord(record.id);
+      } catch (error) {
+        console.error('Error deleting game record:', error);
+        return false;
+      }
+    }
     if (!this.db) {
       await this.initDB();
     }
 
     try {
       await this.db.executeSql(
-        'DELETE FROM game_records WHERE timestamp = ?;',
-        [timestamp]
+        'DELETE FROM game_records WHERE id = ?;',
+        [record.id]
       );
       return true;
     } catch (error) {